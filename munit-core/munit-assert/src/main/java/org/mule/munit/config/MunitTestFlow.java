@@ -14,6 +14,7 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.munit.common.MunitCore;
+import org.mule.munit.common.mp.CallRecordingMode;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.fail;
@@ -40,6 +41,11 @@ public class MunitTestFlow extends MunitFlow
      */
     private String expectExceptionThatSatisfies;
 
+    /**
+     * <p>How the message processor calls of the test are recorded, null to use the suite mode</p>
+     */
+    private CallRecordingMode callRecordingMode;
+
     public MunitTestFlow(String name, MuleContext muleContext)
     {
         super(name, muleContext);
@@ -57,6 +63,16 @@ public class MunitTestFlow extends MunitFlow
         this.expectExceptionThatSatisfies = expectExceptionThatSatisfies;
     }
 
+    public CallRecordingMode getCallRecordingMode()
+    {
+        return callRecordingMode;
+    }
+
+    public void setCallRecordingMode(CallRecordingMode callRecordingMode)
+    {
+        this.callRecordingMode = callRecordingMode;
+    }
+
     public void setIgnore(boolean ignore)
     {
         this.ignore = ignore;
@@ -10,6 +10,7 @@ import org.mule.api.lifecycle.Disposable;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.config.spring.MuleHierarchicalBeanDefinitionParserDelegate;
 import org.mule.munit.AssertModule;
+import org.mule.munit.common.mp.CallRecordingMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -58,6 +59,11 @@ public class AssertModuleConfigDefinitionParser
             builder.addPropertyValue("mockConnectors", Boolean.valueOf(element.getAttribute("mock-connectors")));
         }
 
+        if (element.hasAttribute("call-recording"))
+        {
+            builder.addPropertyValue("callRecordingMode", CallRecordingMode.valueOf(element.getAttribute("call-recording")));
+        }
+
         List<String> flowNames = new ArrayList<String>();
         Element exclusions = DomUtils.getChildElementByTagName(element, "exclude-inbound-mocking");
         if (exclusions != null)
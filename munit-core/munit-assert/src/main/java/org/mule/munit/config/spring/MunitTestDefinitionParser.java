@@ -9,6 +9,7 @@ package org.mule.munit.config.spring;
 import org.mule.api.config.MuleProperties;
 import org.mule.config.spring.parsers.generic.OrphanDefinitionParser;
 import org.mule.config.spring.util.ProcessingStrategyUtils;
+import org.mule.munit.common.mp.CallRecordingMode;
 
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.ParserContext;
@@ -31,6 +32,7 @@ public class MunitTestDefinitionParser extends OrphanDefinitionParser
         addIgnored("abstract");
         addIgnored("name");
         addIgnored("processingStrategy");
+        addIgnored("call-recording");
     }
 
     @java.lang.Override
@@ -40,6 +42,10 @@ public class MunitTestDefinitionParser extends OrphanDefinitionParser
         builder.addConstructorArgReference(MuleProperties.OBJECT_MULE_CONTEXT);
         builder.addPropertyValue("expectExceptionThatSatisfies", element.getAttribute("expectExceptionThatSatisfies"));
         builder.addPropertyValue("ignore", Boolean.getBoolean(element.getAttribute("ignore")));
+        if (element.hasAttribute("call-recording"))
+        {
+            builder.addPropertyValue("callRecordingMode", CallRecordingMode.valueOf(element.getAttribute("call-recording")));
+        }
         ProcessingStrategyUtils.configureProcessingStrategy(element, builder,
                                                             ProcessingStrategyUtils.QUEUED_ASYNC_PROCESSING_STRATEGY);
         super.doParse(element, parserContext, builder);
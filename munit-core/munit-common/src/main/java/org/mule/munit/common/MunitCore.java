@@ -8,16 +8,17 @@ package org.mule.munit.common;
 
 
 import org.mule.api.MuleContext;
-import org.mule.api.config.MuleProperties;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.registry.MuleRegistry;
 import org.mule.api.registry.RegistrationException;
 import org.mule.modules.interceptor.processors.MessageProcessorCall;
-import org.mule.munit.common.endpoint.MockEndpointManager;
+import org.mule.munit.common.endpoint.MunitSpringFactoryPostProcessor;
+import org.mule.munit.common.mp.CallRecordingMode;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
 import org.mule.munit.common.mp.MunitMessageProcessorCall;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +37,20 @@ public class MunitCore
 
     public static final String LINE_NUMBER_ELEMENT_ATTRIBUTE = "__MUNIT_LINE_NUMBER";
 
+    /**
+     * <p>
+     * System property with the maximum number of elements of the Mule stack trace
+     * </p>
+     */
+    public static final String STACK_TRACE_DEPTH_PROPERTY = "munit.stackTrace.depth";
+
+    /**
+     * <p>
+     * Maximum number of elements of the Mule stack trace when the {@link #STACK_TRACE_DEPTH_PROPERTY} is not set
+     * </p>
+     */
+    public static final int DEFAULT_STACK_TRACE_DEPTH = 100;
+
     /**
      * <p>
      * Resets the status of Munit. Used after each test.
@@ -45,20 +60,28 @@ public class MunitCore
      */
     public static void reset(MuleContext muleContext)
     {
-        MockEndpointManager endpointFactory = (MockEndpointManager) muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
-        endpointFactory.resetBehaviors();
-
-        MockedMessageProcessorManager mpManager = (MockedMessageProcessorManager) muleContext.getRegistry().lookupObject(MockedMessageProcessorManager.ID);
+        MunitRuntime.of(muleContext).reset();
+    }
 
-        if (mpManager != null)
-        {
-            mpManager.reset();
-        }
+    /**
+     * <p>
+     * Reports the failures of the asynchronous spy assertions of the test. Used when each test finishes, before
+     * {@link #reset(MuleContext)}.
+     * </p>
+     *
+     * @param muleContext The Mule context
+     * @throws AssertionError if an assertion failed or did not finish in time
+     * @since 3.5
+     */
+    public static void verifyAsyncSpyAssertions(MuleContext muleContext)
+    {
+        MunitRuntime.of(muleContext).verifyAsyncSpyAssertions();
     }
 
     /**
      * <p>
-     * Adds the {@link MockedMessageProcessorManager} to the {@link MuleRegistry}
+     * Adds the {@link MockedMessageProcessorManager} to the {@link MuleRegistry} and binds the {@link MunitRuntime}
+     * of the context
      * </p>
      *
      * @param muleContext <p>
@@ -70,10 +93,23 @@ public class MunitCore
         try
         {
             MuleRegistry registry = muleContext.getRegistry();
-            if (registry.lookupObject(MockedMessageProcessorManager.ID) == null)
+            MockedMessageProcessorManager manager = (MockedMessageProcessorManager) registry.lookupObject(MockedMessageProcessorManager.ID);
+            if (manager == null)
             {
-                registry.registerObject(MockedMessageProcessorManager.ID, new MockedMessageProcessorManager());
+                manager = new MockedMessageProcessorManager();
+                Object configuration = registry.lookupObject(MunitSpringFactoryPostProcessor.ID);
+                if (configuration instanceof MunitSpringFactoryPostProcessor)
+                {
+                    MunitSpringFactoryPostProcessor munitConfiguration = (MunitSpringFactoryPostProcessor) configuration;
+                    manager.setDefaultRecordingMode(munitConfiguration.getCallRecordingMode());
+                    if (munitConfiguration.getNotInterceptedMessageProcessors() != null)
+                    {
+                        manager.setNotInterceptedMessageProcessors(new HashSet<String>(munitConfiguration.getNotInterceptedMessageProcessors()));
+                    }
+                }
+                registry.registerObject(MockedMessageProcessorManager.ID, manager);
             }
+            MunitRuntime.bind(muleContext).setMessageProcessorManager(manager);
         }
         catch (RegistrationException e)
         {
@@ -82,10 +118,47 @@ public class MunitCore
         }
     }
 
+    /**
+     * <p>
+     * Sets how the message processor calls of the running test are recorded. The mode is restored to the suite
+     * default on {@link #reset(MuleContext)}.
+     * </p>
+     *
+     * @param muleContext The mule context
+     * @param mode        The recording mode, if null the current mode is kept
+     * @since 3.5
+     */
+    public static void setCallRecordingMode(MuleContext muleContext, CallRecordingMode mode)
+    {
+        MockedMessageProcessorManager manager = MunitRuntime.of(muleContext).currentMessageProcessorManager();
+        if (manager != null && mode != null)
+        {
+            manager.setRecordingMode(mode);
+        }
+    }
 
     /**
      * <p>
-     * Builds the mule Stack Trace based on the Munit registered calls.
+     * Sets how the message processor calls of every test of the suite are recorded.
+     * </p>
+     *
+     * @param muleContext The mule context
+     * @param mode        The recording mode, if null the current mode is kept
+     * @since 3.5
+     */
+    public static void setDefaultCallRecordingMode(MuleContext muleContext, CallRecordingMode mode)
+    {
+        MockedMessageProcessorManager manager = MunitRuntime.of(muleContext).getMessageProcessorManager();
+        if (manager != null && mode != null)
+        {
+            manager.setDefaultRecordingMode(mode);
+        }
+    }
+
+    /**
+     * <p>
+     * Builds the mule Stack Trace based on the Munit registered calls, up to the depth defined by the
+     * {@link #STACK_TRACE_DEPTH_PROPERTY} system property.
      * </p>
      * <p/>
      * <p>
@@ -103,40 +176,66 @@ public class MunitCore
      */
     public static List<StackTraceElement> buildMuleStackTrace(MuleContext muleContext)
     {
-        MockedMessageProcessorManager manager = (MockedMessageProcessorManager) muleContext.getRegistry().lookupObject(MockedMessageProcessorManager.ID);
-        List<MunitMessageProcessorCall> calls = manager.getCalls();
+        return buildMuleStackTrace(muleContext, Integer.getInteger(STACK_TRACE_DEPTH_PROPERTY, DEFAULT_STACK_TRACE_DEPTH));
+    }
 
-        List<StackTraceElement> stackTraceElements = new ArrayList<StackTraceElement>();
+    /**
+     * <p>
+     * Builds the mule Stack Trace with the last calls of the test. The stack trace elements are only created for
+     * those calls, and only when a failure is reported.
+     * </p>
+     *
+     * @param muleContext The mule context
+     * @param maxDepth    The maximum number of elements, if it is not positive every recorded call is included
+     * @return A list of JAVA stack trace elements, the newest call first
+     * @since 3.5
+     */
+    public static List<StackTraceElement> buildMuleStackTrace(MuleContext muleContext, int maxDepth)
+    {
+        MockedMessageProcessorManager manager = MunitRuntime.of(muleContext).currentMessageProcessorManager();
+        List<MunitMessageProcessorCall> calls = manager.getRecentCalls(maxDepth);
 
-        StringBuffer stackTrace = new StringBuffer();
+        List<StackTraceElement> stackTraceElements = new ArrayList<StackTraceElement>(calls.size());
         for (MunitMessageProcessorCall call : calls)
         {
-            stackTraceElements.add(0, new StackTraceElement(getFlowConstructName(call), getFullName(call), call.getFileName(), lineNumber(call)));
-            stackTrace.insert(0, call.getMessageProcessorId().getFullName());
+            stackTraceElements.add(new StackTraceElement(getFlowConstructName(call), getFullName(call), call.getFileName(), lineNumber(call)));
         }
         return stackTraceElements;
     }
 
-    private static Integer lineNumber(MunitMessageProcessorCall call)
+    private static int lineNumber(MunitMessageProcessorCall call)
     {
-        String lineNumber = call.getLineNumber();
-        if (lineNumber == null)
-        {
-            return 0;
-        }
-        return Integer.valueOf(lineNumber);
+        return call.getLine();
     }
 
+    /**
+     * <p>
+     * The message processor name followed by its attributes. The attributes of the call are not modified, they may
+     * be read again by the verifications.
+     * </p>
+     */
     private static String getFullName(MessageProcessorCall call)
     {
-        String fullName = call.getMessageProcessorId().getFullName();
+        StringBuilder fullName = new StringBuilder(call.getMessageProcessorId().getFullName()).append('{');
         Map<String, Object> attributes = call.getAttributes();
-        attributes.toString();
-        attributes.remove("name");
-        attributes.remove(LINE_NUMBER_ELEMENT_ATTRIBUTE);
-
-
-        return fullName + attributes.toString();
+        if (attributes != null)
+        {
+            boolean first = true;
+            for (Map.Entry<String, Object> attribute : attributes.entrySet())
+            {
+                if ("name".equals(attribute.getKey()) || LINE_NUMBER_ELEMENT_ATTRIBUTE.equals(attribute.getKey()))
+                {
+                    continue;
+                }
+                if (!first)
+                {
+                    fullName.append(", ");
+                }
+                fullName.append(attribute.getKey()).append('=').append(attribute.getValue());
+                first = false;
+            }
+        }
+        return fullName.append('}').toString();
     }
 
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleSession;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Execution scopes of the tests that run in the same {@link MuleContext}. Each test gets an execution Id, bound to
+ * the thread that runs the test and carried by the session of its events, so it is propagated to the child events
+ * created by the flows.
+ * </p>
+ * <p/>
+ * <p>
+ * The managers keep the behaviors, spy assertions and calls of each execution apart, so several tests can run at
+ * the same time against the same started context. Events and threads without execution Id use the state of the
+ * context, as when execution scopes are disabled.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitExecution
+{
+
+    /**
+     * <p>
+     * System property that enables the execution scopes, disabled by default
+     * </p>
+     */
+    public static final String ENABLED_PROPERTY = "munit.executionScopes";
+
+    /**
+     * <p>
+     * The session property that holds the execution Id
+     * </p>
+     */
+    public static final String EXECUTION_ID_PROPERTY = "MUNIT_EXECUTION_ID";
+
+    private static final ThreadLocal<String> currentExecution = new ThreadLocal<String>();
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private MunitExecution()
+    {
+    }
+
+    /**
+     * @return True if the tests must run in their own execution scope
+     */
+    public static boolean isEnabled()
+    {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * <p>
+     * Opens a new execution scope and binds it to the current thread.
+     * </p>
+     *
+     * @param muleContext The mule context where the test runs
+     * @return The execution Id
+     */
+    public static String begin(MuleContext muleContext)
+    {
+        String executionId = "munit-" + sequence.incrementAndGet();
+        MunitRuntime.of(muleContext).beginExecution(executionId);
+        currentExecution.set(executionId);
+        return executionId;
+    }
+
+    /**
+     * <p>
+     * Closes the execution scope of the current thread, if there is one. Events that still carry its Id use the
+     * state of the context from now on.
+     * </p>
+     *
+     * @param muleContext The mule context where the test runs
+     */
+    public static void end(MuleContext muleContext)
+    {
+        String executionId = currentExecution.get();
+        if (executionId != null)
+        {
+            currentExecution.remove();
+            MunitRuntime.of(muleContext).endExecution(executionId);
+        }
+    }
+
+    /**
+     * @return The execution Id bound to the current thread, null if there is none
+     */
+    public static String current()
+    {
+        return currentExecution.get();
+    }
+
+    /**
+     * <p>
+     * Gets the execution Id carried by an event.
+     * </p>
+     *
+     * @param event The event
+     * @return The execution Id, null if the event does not carry one
+     */
+    public static String idOf(MuleEvent event)
+    {
+        MuleSession session = event == null ? null : event.getSession();
+        if (session == null)
+        {
+            return null;
+        }
+        Object executionId = session.getProperty(EXECUTION_ID_PROPERTY);
+        return executionId instanceof String ? (String) executionId : null;
+    }
+
+    /**
+     * <p>
+     * Makes an event carry the execution Id of the current thread. Nothing is done if there is none.
+     * </p>
+     *
+     * @param event The event that starts the test
+     * @return The same event
+     */
+    public static MuleEvent bind(MuleEvent event)
+    {
+        String executionId = currentExecution.get();
+        if (executionId != null && event != null && event.getSession() != null)
+        {
+            event.getSession().setProperty(EXECUTION_ID_PROPERTY, executionId);
+        }
+        return event;
+    }
+}
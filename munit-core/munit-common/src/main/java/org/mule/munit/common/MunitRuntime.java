@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common;
+
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.api.registry.RegistrationException;
+import org.mule.munit.common.endpoint.MockEndpointManager;
+import org.mule.munit.common.mp.MockedMessageProcessorManager;
+
+/**
+ * <p>
+ * Handle to the Munit state of a {@link MuleContext}: the {@link MockedMessageProcessorManager} and the
+ * {@link MockEndpointManager}.
+ * </p>
+ * <p/>
+ * <p>
+ * There is one runtime per {@link MuleContext}, registered once in its registry. The interceptors, mock endpoints
+ * and mocking tools keep a reference to it, so processing a message does not need to look up the registry.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitRuntime
+{
+
+    /**
+     * <p>
+     * The Id in the Mule registry
+     * </p>
+     */
+    public static final String ID = "_muleMunitRuntime";
+
+    private final MuleContext muleContext;
+
+    private volatile MockedMessageProcessorManager messageProcessorManager;
+
+    private volatile MockEndpointManager endpointManager;
+
+    public MunitRuntime(MuleContext muleContext)
+    {
+        this.muleContext = muleContext;
+    }
+
+    /**
+     * <p>
+     * Gets the runtime of a {@link MuleContext}. If no runtime was bound to the context a new one is returned, it
+     * resolves the managers from the registry the first time they are needed.
+     * </p>
+     *
+     * @param muleContext The mule context
+     * @return The Munit runtime of the context
+     */
+    public static MunitRuntime of(MuleContext muleContext)
+    {
+        Object runtime = muleContext.getRegistry().lookupObject(ID);
+        if (runtime instanceof MunitRuntime)
+        {
+            return (MunitRuntime) runtime;
+        }
+        return new MunitRuntime(muleContext);
+    }
+
+    /**
+     * <p>
+     * Gets the runtime bound to a {@link MuleContext}, binding a new one if there is none.
+     * </p>
+     *
+     * @param muleContext The mule context
+     * @return The Munit runtime bound to the context
+     */
+    public static synchronized MunitRuntime bind(MuleContext muleContext)
+    {
+        MuleRegistry registry = muleContext.getRegistry();
+        Object runtime = registry.lookupObject(ID);
+        if (runtime instanceof MunitRuntime)
+        {
+            return (MunitRuntime) runtime;
+        }
+
+        MunitRuntime newRuntime = new MunitRuntime(muleContext);
+        try
+        {
+            registry.registerObject(ID, newRuntime);
+        }
+        catch (RegistrationException e)
+        {
+            // Very uncommon scenario.
+            throw new RuntimeException(e);
+        }
+        return newRuntime;
+    }
+
+    public MuleContext getMuleContext()
+    {
+        return muleContext;
+    }
+
+    /**
+     * @return The message processor manager, null if it was not registered yet
+     */
+    public MockedMessageProcessorManager getMessageProcessorManager()
+    {
+        MockedMessageProcessorManager manager = messageProcessorManager;
+        if (manager == null)
+        {
+            manager = (MockedMessageProcessorManager) muleContext.getRegistry().lookupObject(MockedMessageProcessorManager.ID);
+            messageProcessorManager = manager;
+        }
+        return manager;
+    }
+
+    public void setMessageProcessorManager(MockedMessageProcessorManager messageProcessorManager)
+    {
+        this.messageProcessorManager = messageProcessorManager;
+    }
+
+    /**
+     * @return The endpoint manager, null if the endpoint factory of the application was not replaced by Munit
+     */
+    public MockEndpointManager getEndpointManager()
+    {
+        MockEndpointManager manager = endpointManager;
+        if (manager == null)
+        {
+            Object endpointFactory = muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+            if (endpointFactory instanceof MockEndpointManager)
+            {
+                manager = (MockEndpointManager) endpointFactory;
+                endpointManager = manager;
+            }
+        }
+        return manager;
+    }
+
+    public void setEndpointManager(MockEndpointManager endpointManager)
+    {
+        this.endpointManager = endpointManager;
+    }
+
+    /**
+     * @return The message processor manager of the execution scope of the current thread, or the context one if the
+     *         thread has no execution scope
+     */
+    public MockedMessageProcessorManager currentMessageProcessorManager()
+    {
+        MockedMessageProcessorManager manager = getMessageProcessorManager();
+        String executionId = MunitExecution.current();
+        return manager == null || executionId == null ? manager : manager.forExecution(executionId);
+    }
+
+    /**
+     * @return The endpoint manager of the execution scope of the current thread, or the context one if the thread
+     *         has no execution scope
+     */
+    public MockEndpointManager currentEndpointManager()
+    {
+        MockEndpointManager manager = getEndpointManager();
+        String executionId = MunitExecution.current();
+        return manager == null || executionId == null ? manager : manager.forExecution(executionId);
+    }
+
+    /**
+     * <p>
+     * Opens the execution scope of a test in the managers.
+     * </p>
+     *
+     * @param executionId The execution Id
+     */
+    public void beginExecution(String executionId)
+    {
+        MockedMessageProcessorManager mpManager = getMessageProcessorManager();
+        if (mpManager != null)
+        {
+            mpManager.openExecutionScope(executionId);
+        }
+
+        MockEndpointManager endpointFactory = getEndpointManager();
+        if (endpointFactory != null)
+        {
+            endpointFactory.openExecutionScope(executionId);
+        }
+    }
+
+    /**
+     * <p>
+     * Closes the execution scope of a test in the managers.
+     * </p>
+     *
+     * @param executionId The execution Id
+     */
+    public void endExecution(String executionId)
+    {
+        MockedMessageProcessorManager mpManager = getMessageProcessorManager();
+        if (mpManager != null)
+        {
+            mpManager.closeExecutionScope(executionId);
+        }
+
+        MockEndpointManager endpointFactory = getEndpointManager();
+        if (endpointFactory != null)
+        {
+            endpointFactory.closeExecutionScope(executionId);
+        }
+    }
+
+    /**
+     * <p>
+     * Waits for the asynchronous spy assertions of the test and reports their failures. If the current thread runs
+     * in an execution scope only the assertions of the scope are verified.
+     * </p>
+     *
+     * @throws AssertionError if an assertion failed or did not finish in time
+     */
+    public void verifyAsyncSpyAssertions()
+    {
+        MockedMessageProcessorManager mpManager = currentMessageProcessorManager();
+        if (mpManager != null)
+        {
+            mpManager.verifyAsyncSpyAssertions();
+        }
+    }
+
+    /**
+     * <p>
+     * Resets the status of the managers. Used after each test. If the current thread runs in an execution scope only
+     * the status of the scope is reset.
+     * </p>
+     */
+    public void reset()
+    {
+        MockEndpointManager endpointFactory = currentEndpointManager();
+        if (endpointFactory != null)
+        {
+            endpointFactory.resetBehaviors();
+        }
+
+        MockedMessageProcessorManager mpManager = currentMessageProcessorManager();
+        if (mpManager != null)
+        {
+            mpManager.reset();
+        }
+    }
+}
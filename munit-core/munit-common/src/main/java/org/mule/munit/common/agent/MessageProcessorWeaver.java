@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+
+import net.sf.cglib.asm.ClassAdapter;
+import net.sf.cglib.asm.ClassReader;
+import net.sf.cglib.asm.ClassVisitor;
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.FieldVisitor;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Opcodes;
+
+/**
+ * <p>
+ * Weaves the Munit interception into the message processor classes when they are loaded, so message processors can
+ * be mocked without creating a proxy subclass for each of them.
+ * </p>
+ * <p/>
+ * <p>
+ * Every class that implements <code>process(MuleEvent)</code> is woven: the original method is renamed to
+ * {@link MunitWeaving#ORIGINAL_PROCESS} and a new process method runs it directly while the instance has no
+ * interception, or calls {@link MunitWeaving#intercept(Object, Object)} otherwise. The class also implements
+ * {@link WovenMessageProcessor} to hold the interception of each instance.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorWeaver implements ClassFileTransformer
+{
+
+    private static final String PROCESS = "process";
+    private static final String PROCESS_DESCRIPTOR = "(Lorg/mule/api/MuleEvent;)Lorg/mule/api/MuleEvent;";
+    private static final String MULE_EVENT = "org/mule/api/MuleEvent";
+
+    private static final String INTERCEPTION_FIELD = "munit$interception";
+    private static final String OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+
+    private static final String WOVEN_INTERFACE = WovenMessageProcessor.class.getName().replace('.', '/');
+    private static final String WEAVING = MunitWeaving.class.getName().replace('.', '/');
+    private static final String INTERCEPT_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private static final byte[] PROCESS_DESCRIPTOR_BYTES = PROCESS_DESCRIPTOR.getBytes();
+
+    /**
+     * <p>
+     * Packages that never contain message processors, or that must not be woven
+     * </p>
+     */
+    private static final String[] EXCLUDED_PACKAGES = {
+            "java/", "javax/", "sun/", "com/sun/", "jdk/", "net/sf/cglib/", "org/mule/munit/common/agent/"
+    };
+
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer)
+    {
+        if (classBeingRedefined != null || className == null || isExcluded(className)
+            || !contains(classfileBuffer, PROCESS_DESCRIPTOR_BYTES))
+        {
+            return null;
+        }
+
+        try
+        {
+            return weave(classfileBuffer);
+        }
+        catch (Throwable e)
+        {
+            // The class is loaded as it is, its message processors can not be mocked
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Weaves a class.
+     * </p>
+     *
+     * @param classBytes The bytecode of the class
+     * @return The woven bytecode, or null if the class does not implement a process method
+     */
+    public byte[] weave(byte[] classBytes)
+    {
+        ClassReader reader = new ClassReader(classBytes);
+        if ((reader.getAccess() & Opcodes.ACC_INTERFACE) != 0
+            || Arrays.asList(reader.getInterfaces()).contains(WOVEN_INTERFACE))
+        {
+            return null;
+        }
+
+        ClassWriter writer = new ClassWriter(reader, 0);
+        WeavingClassAdapter adapter = new WeavingClassAdapter(writer);
+        reader.accept(adapter, 0);
+        return adapter.woven ? writer.toByteArray() : null;
+    }
+
+    private static boolean isExcluded(String className)
+    {
+        if (className.contains("$$"))
+        {
+            // Generated proxies
+            return true;
+        }
+        for (String excludedPackage : EXCLUDED_PACKAGES)
+        {
+            if (className.startsWith(excludedPackage))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Cheap check done before parsing the class: the descriptor of the process method must be in the constant pool.
+     * </p>
+     */
+    private static boolean contains(byte[] bytes, byte[] pattern)
+    {
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++)
+        {
+            for (int j = 0; j < pattern.length; j++)
+            {
+                if (bytes[i + j] != pattern[j])
+                {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static class WeavingClassAdapter extends ClassAdapter
+    {
+
+        private String className;
+        private int version;
+        private String[] exceptions;
+        private boolean woven;
+
+        private WeavingClassAdapter(ClassVisitor cv)
+        {
+            super(cv);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces)
+        {
+            this.className = name;
+            this.version = version;
+
+            // The interface is always added, the result is discarded if there is no process method to weave
+            String[] newInterfaces = new String[interfaces == null ? 1 : interfaces.length + 1];
+            if (interfaces != null)
+            {
+                System.arraycopy(interfaces, 0, newInterfaces, 0, interfaces.length);
+            }
+            newInterfaces[newInterfaces.length - 1] = WOVEN_INTERFACE;
+            super.visit(version, access, name, signature, superName, newInterfaces);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions)
+        {
+            if (!isWeavable(access, name, desc))
+            {
+                return super.visitMethod(access, name, desc, signature, exceptions);
+            }
+
+            this.woven = true;
+            this.exceptions = exceptions;
+            int originalAccess = (access & ~(Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) | Opcodes.ACC_PRIVATE;
+            return super.visitMethod(originalAccess, MunitWeaving.ORIGINAL_PROCESS, desc, signature, exceptions);
+        }
+
+        @Override
+        public void visitEnd()
+        {
+            if (woven)
+            {
+                addInterceptionField();
+                addProcessMethod();
+            }
+            super.visitEnd();
+        }
+
+        private boolean isWeavable(int access, String name, String desc)
+        {
+            int excluded = Opcodes.ACC_ABSTRACT | Opcodes.ACC_STATIC | Opcodes.ACC_NATIVE | Opcodes.ACC_BRIDGE | Opcodes.ACC_SYNTHETIC;
+            return PROCESS.equals(name) && PROCESS_DESCRIPTOR.equals(desc) && (access & excluded) == 0;
+        }
+
+        private void addInterceptionField()
+        {
+            FieldVisitor field = super.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_VOLATILE | Opcodes.ACC_TRANSIENT | Opcodes.ACC_SYNTHETIC,
+                                                  INTERCEPTION_FIELD, OBJECT_DESCRIPTOR, null, null);
+            field.visitEnd();
+
+            MethodVisitor getter = super.visitMethod(Opcodes.ACC_PUBLIC, "munit$getInterception", "()" + OBJECT_DESCRIPTOR, null, null);
+            getter.visitCode();
+            getter.visitVarInsn(Opcodes.ALOAD, 0);
+            getter.visitFieldInsn(Opcodes.GETFIELD, className, INTERCEPTION_FIELD, OBJECT_DESCRIPTOR);
+            getter.visitInsn(Opcodes.ARETURN);
+            getter.visitMaxs(1, 1);
+            getter.visitEnd();
+
+            MethodVisitor setter = super.visitMethod(Opcodes.ACC_PUBLIC, "munit$setInterception", "(" + OBJECT_DESCRIPTOR + ")V", null, null);
+            setter.visitCode();
+            setter.visitVarInsn(Opcodes.ALOAD, 0);
+            setter.visitVarInsn(Opcodes.ALOAD, 1);
+            setter.visitFieldInsn(Opcodes.PUTFIELD, className, INTERCEPTION_FIELD, OBJECT_DESCRIPTOR);
+            setter.visitInsn(Opcodes.RETURN);
+            setter.visitMaxs(2, 2);
+            setter.visitEnd();
+        }
+
+        /**
+         * <p>
+         * The new process method:
+         * </p>
+         * <code>
+         * if (munit$interception == null) return munit$process(event);
+         * return (MuleEvent) MunitWeaving.intercept(this, event);
+         * </code>
+         */
+        private void addProcessMethod()
+        {
+            MethodVisitor process = super.visitMethod(Opcodes.ACC_PUBLIC, PROCESS, PROCESS_DESCRIPTOR, null, exceptions);
+            Label intercepted = new Label();
+            process.visitCode();
+            process.visitVarInsn(Opcodes.ALOAD, 0);
+            process.visitFieldInsn(Opcodes.GETFIELD, className, INTERCEPTION_FIELD, OBJECT_DESCRIPTOR);
+            process.visitJumpInsn(Opcodes.IFNONNULL, intercepted);
+            process.visitVarInsn(Opcodes.ALOAD, 0);
+            process.visitVarInsn(Opcodes.ALOAD, 1);
+            process.visitMethodInsn(Opcodes.INVOKESPECIAL, className, MunitWeaving.ORIGINAL_PROCESS, PROCESS_DESCRIPTOR);
+            process.visitInsn(Opcodes.ARETURN);
+            process.visitLabel(intercepted);
+            if ((version & 0xFFFF) >= Opcodes.V1_6)
+            {
+                process.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+            }
+            process.visitVarInsn(Opcodes.ALOAD, 0);
+            process.visitVarInsn(Opcodes.ALOAD, 1);
+            process.visitMethodInsn(Opcodes.INVOKESTATIC, WEAVING, "intercept", INTERCEPT_DESCRIPTOR);
+            process.visitTypeInsn(Opcodes.CHECKCAST, MULE_EVENT);
+            process.visitInsn(Opcodes.ARETURN);
+            process.visitMaxs(2, 2);
+            process.visitEnd();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.agent;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * <p>
+ * Instrumentation agent that weaves the Munit interception into the message processor classes, an alternative to
+ * the CGLIB proxies. It is enabled by running the tests with <code>-javaagent:munit-common.jar</code>.
+ * </p>
+ * <p/>
+ * <p>
+ * The agent classes must be loaded by the same class loader as the rest of Munit, so the weaving mode is meant for
+ * JVMs whose class path holds Munit and Mule, like the ones forked by Surefire or an IDE.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitAgent
+{
+
+    private static volatile Instrumentation instrumentation;
+
+    private MunitAgent()
+    {
+    }
+
+    public static void premain(String options, Instrumentation instrumentation)
+    {
+        install(instrumentation);
+    }
+
+    /**
+     * <p>
+     * Used when the agent is attached to a running JVM. Only the classes loaded after attaching it are woven.
+     * </p>
+     */
+    public static void agentmain(String options, Instrumentation instrumentation)
+    {
+        install(instrumentation);
+    }
+
+    /**
+     * @return True if the message processor classes are woven, in that case Munit does not create proxies for them
+     */
+    public static boolean isActive()
+    {
+        return instrumentation != null;
+    }
+
+    private static synchronized void install(Instrumentation newInstrumentation)
+    {
+        if (instrumentation == null)
+        {
+            newInstrumentation.addTransformer(new MessageProcessorWeaver());
+            instrumentation = newInstrumentation;
+        }
+    }
+}
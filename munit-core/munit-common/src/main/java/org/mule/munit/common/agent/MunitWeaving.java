@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.agent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * Entry point of the code woven by the {@link MessageProcessorWeaver}. The woven process method of an intercepted
+ * message processor calls {@link #intercept(Object, Object)}, and the interception calls
+ * {@link #invokeOriginal(Object, Object, Method)} to run the real code.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitWeaving
+{
+
+    /**
+     * <p>
+     * The name the original process method is renamed to
+     * </p>
+     */
+    public static final String ORIGINAL_PROCESS = "munit$process";
+
+    /**
+     * <p>
+     * The interception of a woven message processor
+     * </p>
+     */
+    public interface Interception
+    {
+
+        /**
+         * @param messageProcessor The woven message processor
+         * @param event            The processed event
+         * @return The result of the call
+         */
+        Object process(Object messageProcessor, Object event) throws Throwable;
+    }
+
+    private MunitWeaving()
+    {
+    }
+
+    /**
+     * <p>
+     * Called by the woven process method when the message processor has an interception.
+     * </p>
+     *
+     * @param messageProcessor The woven message processor
+     * @param event            The processed event
+     * @return The result of the call
+     */
+    public static Object intercept(Object messageProcessor, Object event) throws Throwable
+    {
+        Object interception = ((WovenMessageProcessor) messageProcessor).munit$getInterception();
+        if (interception == null)
+        {
+            return invokeOriginal(messageProcessor, event, originalProcessOf(messageProcessor.getClass()));
+        }
+        return ((Interception) interception).process(messageProcessor, event);
+    }
+
+    /**
+     * <p>
+     * Runs the real code of a woven message processor. The exceptions of the real code are thrown as they are.
+     * </p>
+     *
+     * @param messageProcessor The woven message processor
+     * @param event            The processed event
+     * @param originalProcess  The original process method, see {@link #originalProcessOf(Class)}
+     * @return The result of the real code
+     */
+    public static Object invokeOriginal(Object messageProcessor, Object event, Method originalProcess) throws Throwable
+    {
+        try
+        {
+            return originalProcess.invoke(messageProcessor, event);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * <p>
+     * Finds the original process method of a woven class, the one declared by the closest woven class of its
+     * hierarchy.
+     * </p>
+     *
+     * @param wovenClass The class of the message processor
+     * @return The accessible original process method
+     * @throws IllegalArgumentException If the class was not woven
+     */
+    public static Method originalProcessOf(Class<?> wovenClass)
+    {
+        for (Class<?> current = wovenClass; current != null; current = current.getSuperclass())
+        {
+            for (Method method : current.getDeclaredMethods())
+            {
+                if (ORIGINAL_PROCESS.equals(method.getName()) && method.getParameterTypes().length == 1)
+                {
+                    method.setAccessible(true);
+                    return method;
+                }
+            }
+        }
+        throw new IllegalArgumentException("The class " + wovenClass.getName() + " was not woven by Munit");
+    }
+}
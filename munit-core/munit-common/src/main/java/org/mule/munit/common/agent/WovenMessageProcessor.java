@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.agent;
+
+/**
+ * <p>
+ * Implemented by the message processor classes woven by the {@link MessageProcessorWeaver}. The interception of each
+ * message processor instance is held by the instance itself, while it is null the message processor runs its own
+ * code.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public interface WovenMessageProcessor
+{
+
+    /**
+     * @return The {@link MunitWeaving.Interception} of the message processor, null if it is not intercepted
+     */
+    Object munit$getInterception();
+
+    /**
+     * @param interception The {@link MunitWeaving.Interception} of the message processor
+     */
+    void munit$setInterception(Object interception);
+}
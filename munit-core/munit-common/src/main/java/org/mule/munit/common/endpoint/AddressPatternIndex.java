@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Index of the outbound behaviors registered for address patterns. A pattern is written as an address with one of
+ * these prefixes:
+ * </p>
+ * <ul>
+ * <li><code>glob:</code> where <code>*</code> matches any text without <code>/</code> and <code>**</code> matches
+ * any text</li>
+ * <li><code>regex:</code> followed by a Java regular expression that must match the whole address</li>
+ * </ul>
+ * <p/>
+ * <p>
+ * The patterns are stored in a prefix trie by their literal prefix, the text before the first wildcard, so only the
+ * patterns whose prefix is a prefix of the address are evaluated.
+ * </p>
+ * <p/>
+ * <p>
+ * When several patterns match, glob patterns win over regular expressions, then the longest literal prefix wins,
+ * then the last registered pattern wins.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class AddressPatternIndex
+{
+
+    public static final String GLOB_PREFIX = "glob:";
+    public static final String REGEX_PREFIX = "regex:";
+
+    private static final String REGEX_META_CHARACTERS = "\\.[]{}()<>*+-=!?^$|";
+
+    private volatile Node root = new Node();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param address The address of a behavior
+     * @return True if the address is a glob or regex pattern
+     */
+    public static boolean isPattern(String address)
+    {
+        return address != null && (address.startsWith(GLOB_PREFIX) || address.startsWith(REGEX_PREFIX));
+    }
+
+    /**
+     * <p>
+     * Registers the behavior of an address pattern. Registering the same pattern again replaces its behavior.
+     * </p>
+     *
+     * @param pattern  The pattern, with its <code>glob:</code> or <code>regex:</code> prefix
+     * @param behavior The behavior of the addresses that match the pattern
+     */
+    public synchronized void add(String pattern, OutboundBehavior behavior)
+    {
+        Entry entry = pattern.startsWith(GLOB_PREFIX)
+                      ? Entry.glob(pattern, pattern.substring(GLOB_PREFIX.length()), behavior, sequence.incrementAndGet())
+                      : Entry.regex(pattern, pattern.substring(REGEX_PREFIX.length()), behavior, sequence.incrementAndGet());
+
+        Node node = root;
+        for (int i = 0; i < entry.prefix.length(); i++)
+        {
+            node = node.childFor(entry.prefix.charAt(i));
+        }
+
+        for (Entry existing : node.entries)
+        {
+            if (existing.pattern.equals(pattern))
+            {
+                node.entries.remove(existing);
+            }
+        }
+        node.entries.add(entry);
+    }
+
+    /**
+     * <p>
+     * Finds the behavior of the best matching pattern.
+     * </p>
+     *
+     * @param address The evaluated address
+     * @return The behavior, null if no pattern matches
+     */
+    public OutboundBehavior getBehaviorFor(String address)
+    {
+        if (address == null)
+        {
+            return null;
+        }
+
+        List<Node> path = new ArrayList<Node>();
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < address.length() && node != null; i++)
+        {
+            node = node.children.get(address.charAt(i));
+            if (node != null)
+            {
+                path.add(node);
+            }
+        }
+
+        Entry glob = bestMatch(path, address, true);
+        if (glob != null)
+        {
+            return glob.behavior;
+        }
+        Entry regex = bestMatch(path, address, false);
+        return regex == null ? null : regex.behavior;
+    }
+
+    public boolean isEmpty()
+    {
+        return root.isEmpty();
+    }
+
+    public void clear()
+    {
+        root = new Node();
+    }
+
+    /**
+     * <p>
+     * Evaluates the candidates from the longest prefix to the shortest one, the first match is the best one.
+     * </p>
+     */
+    private static Entry bestMatch(List<Node> path, String address, boolean glob)
+    {
+        for (int i = path.size() - 1; i >= 0; i--)
+        {
+            Entry best = null;
+            for (Entry entry : path.get(i).entries)
+            {
+                if (entry.glob == glob && (best == null || entry.sequence > best.sequence) && entry.matches(address))
+                {
+                    best = entry;
+                }
+            }
+            if (best != null)
+            {
+                return best;
+            }
+        }
+        return null;
+    }
+
+    private static class Node
+    {
+
+        private final ConcurrentMap<Character, Node> children = new ConcurrentHashMap<Character, Node>();
+        private final List<Entry> entries = new CopyOnWriteArrayList<Entry>();
+
+        private Node childFor(char c)
+        {
+            Node child = children.get(c);
+            if (child == null)
+            {
+                child = new Node();
+                children.put(c, child);
+            }
+            return child;
+        }
+
+        private boolean isEmpty()
+        {
+            return entries.isEmpty() && children.isEmpty();
+        }
+    }
+
+    private static class Entry
+    {
+
+        private final String pattern;
+        private final String prefix;
+        private final Pattern compiled;
+        private final boolean glob;
+        private final OutboundBehavior behavior;
+        private final long sequence;
+
+        private Entry(String pattern, String prefix, Pattern compiled, boolean glob, OutboundBehavior behavior, long sequence)
+        {
+            this.pattern = pattern;
+            this.prefix = prefix;
+            this.compiled = compiled;
+            this.glob = glob;
+            this.behavior = behavior;
+            this.sequence = sequence;
+        }
+
+        private static Entry glob(String pattern, String glob, OutboundBehavior behavior, long sequence)
+        {
+            int wildcard = glob.indexOf('*');
+            String prefix = wildcard < 0 ? glob : glob.substring(0, wildcard);
+            return new Entry(pattern, prefix, Pattern.compile(globToRegex(glob)), true, behavior, sequence);
+        }
+
+        private static Entry regex(String pattern, String regex, OutboundBehavior behavior, long sequence)
+        {
+            return new Entry(pattern, literalPrefixOf(regex), Pattern.compile(regex), false, behavior, sequence);
+        }
+
+        private boolean matches(String address)
+        {
+            return compiled.matcher(address).matches();
+        }
+
+        private static String globToRegex(String glob)
+        {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++)
+            {
+                char c = glob.charAt(i);
+                if (c != '*')
+                {
+                    literal.append(c);
+                    continue;
+                }
+
+                if (literal.length() > 0)
+                {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*')
+                {
+                    regex.append(".*");
+                    i++;
+                }
+                else
+                {
+                    regex.append("[^/]*");
+                }
+            }
+            if (literal.length() > 0)
+            {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return regex.toString();
+        }
+
+        /**
+         * <p>
+         * The text every match starts with: the regular expression characters before the first meta character. An
+         * alternation anywhere in the expression means there is no common prefix.
+         * </p>
+         */
+        private static String literalPrefixOf(String regex)
+        {
+            if (regex.indexOf('|') >= 0)
+            {
+                return "";
+            }
+
+            int end = 0;
+            while (end < regex.length() && REGEX_META_CHARACTERS.indexOf(regex.charAt(end)) < 0)
+            {
+                end++;
+            }
+
+            // A quantifier after the prefix applies to its last character, that character is optional
+            if (end < regex.length() && end > 0 && "*?{".indexOf(regex.charAt(end)) >= 0)
+            {
+                end--;
+            }
+            return regex.substring(0, end);
+        }
+    }
+}
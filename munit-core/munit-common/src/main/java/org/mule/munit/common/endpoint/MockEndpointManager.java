@@ -9,9 +9,14 @@ package org.mule.munit.common.endpoint;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
 import org.mule.api.endpoint.*;
+import org.mule.munit.common.mocking.Bulkhead;
+import org.mule.munit.common.mocking.BulkheadRegistry;
+import org.mule.munit.common.mocking.FaultScheduleRegistry;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <p>
@@ -46,6 +51,41 @@ public class MockEndpointManager implements EndpointFactory
      */
     protected Map<String, OutboundBehavior> behaviors = new HashMap<String, OutboundBehavior>();
 
+    /**
+     * <p>
+     * The expected behaviors for the outbound endpoints registered with a glob or regex address pattern
+     * </p>
+     */
+    protected AddressPatternIndex patterns = new AddressPatternIndex();
+
+    /**
+     * <p>
+     * The behaviors of the open execution scopes, indexed by execution Id
+     * </p>
+     */
+    private final ConcurrentMap<String, MockEndpointManager> executionScopes = new ConcurrentHashMap<String, MockEndpointManager>();
+
+    /**
+     * <p>
+     * The mocked outbound endpoints already created, indexed by the real endpoint
+     * </p>
+     */
+    private final MockOutboundEndpointCache outboundEndpoints = new MockOutboundEndpointCache();
+
+    /**
+     * <p>
+     * The bulkheads of the behaviors, reported on each {@link #resetBehaviors()}
+     * </p>
+     */
+    protected BulkheadRegistry bulkheads = new BulkheadRegistry();
+
+    /**
+     * <p>
+     * The fault schedules of the behaviors, indexed by address until {@link #resetBehaviors()}
+     * </p>
+     */
+    protected FaultScheduleRegistry faults = new FaultScheduleRegistry();
+
     @Override
     public InboundEndpoint getInboundEndpoint(String uri) throws MuleException
     {
@@ -55,7 +95,7 @@ public class MockEndpointManager implements EndpointFactory
     @Override
     public OutboundEndpoint getOutboundEndpoint(String uri) throws MuleException
     {
-        return new MockOutboundEndpoint(defaultFactory.getOutboundEndpoint(uri));
+        return outboundEndpoints.wrap(defaultFactory.getOutboundEndpoint(uri), this);
     }
 
     @Override
@@ -67,7 +107,7 @@ public class MockEndpointManager implements EndpointFactory
     @Override
     public OutboundEndpoint getOutboundEndpoint(EndpointBuilder builder) throws MuleException
     {
-        return new MockOutboundEndpoint(defaultFactory.getOutboundEndpoint(builder));
+        return outboundEndpoints.wrap(defaultFactory.getOutboundEndpoint(builder), this);
     }
 
     @Override
@@ -79,7 +119,7 @@ public class MockEndpointManager implements EndpointFactory
     @Override
     public OutboundEndpoint getOutboundEndpoint(EndpointURI endpointUri) throws MuleException
     {
-        return new MockOutboundEndpoint(defaultFactory.getOutboundEndpoint(endpointUri));
+        return outboundEndpoints.wrap(defaultFactory.getOutboundEndpoint(endpointUri), this);
     }
 
     @Override
@@ -98,6 +138,14 @@ public class MockEndpointManager implements EndpointFactory
         this.defaultFactory = defaultFactory;
     }
 
+    /**
+     * @return The cache of the mocked outbound endpoints, with its hit ratio
+     */
+    public MockOutboundEndpointCache getOutboundEndpointCache()
+    {
+        return outboundEndpoints;
+    }
+
 
     /**
      * <p>
@@ -105,7 +153,8 @@ public class MockEndpointManager implements EndpointFactory
      * </p>
      *
      * @param address  <p>
-     *                 The outbound endpoint address
+     *                 The outbound endpoint address, or an address pattern prefixed with
+     *                 {@link AddressPatternIndex#GLOB_PREFIX} or {@link AddressPatternIndex#REGEX_PREFIX}
      *                 </p>
      * @param behavior <p>
      *                 The expected behaviour which is a representation of a desired MuleMessage plus the before/after
@@ -114,17 +163,127 @@ public class MockEndpointManager implements EndpointFactory
      */
     public void addBehavior(String address, OutboundBehavior behavior)
     {
-        behaviors.put(address, behavior);
+        if (behavior != null && behavior.getBulkhead() != null)
+        {
+            bulkheads.register(address, behavior.getBulkhead());
+        }
+        if (behavior != null && behavior.getFaults() != null)
+        {
+            faults.register(address, behavior.getFaults());
+        }
+
+        if (AddressPatternIndex.isPattern(address))
+        {
+            patterns.add(address, behavior);
+        }
+        else
+        {
+            behaviors.put(address, behavior);
+        }
     }
 
     /**
      * <p>
-     * Gets the behavior of an address
+     * Gets the behavior of an address. A behavior registered for the exact address wins over the address patterns.
      * </p>
      */
     public OutboundBehavior getBehaviorFor(String address)
     {
-        return this.behaviors.get(address);
+        OutboundBehavior behavior = this.behaviors.get(address);
+        if (behavior != null || patterns.isEmpty())
+        {
+            return behavior;
+        }
+        return patterns.getBehaviorFor(address);
+    }
+
+    /**
+     * @return The statistics of the bulkheads of the behaviors, indexed by address, the statistics of the bulkheads
+     *         of the same address are added up
+     */
+    public Map<String, Bulkhead.Statistics> getBulkheadStatistics()
+    {
+        return bulkheads.getStatistics();
+    }
+
+    /**
+     * @param address The address of the mocks, as it was given when they were defined
+     * @return The calls of the mocks of the address that threw their exception
+     */
+    public long countInjectedFaults(String address)
+    {
+        return faults.countInjectedFaults(address);
+    }
+
+    /**
+     * @param address The address of the mocks, as it was given when they were defined
+     * @return The calls of the mocks of the address that went to the real outbound endpoint
+     */
+    public long countFaultPasses(String address)
+    {
+        return faults.countPasses(address);
+    }
+
+    /**
+     * <p>
+     * Opens an execution scope, with its own outbound endpoint behaviors.
+     * </p>
+     *
+     * @param executionId The execution Id
+     * @return The manager of the execution scope
+     */
+    public MockEndpointManager openExecutionScope(String executionId)
+    {
+        MockEndpointManager scope = new MockEndpointManager();
+        scope.setDefaultFactory(defaultFactory);
+        MockEndpointManager existing = executionScopes.putIfAbsent(executionId, scope);
+        return existing != null ? existing : scope;
+    }
+
+    /**
+     * <p>
+     * Closes an execution scope, discarding its behaviors.
+     * </p>
+     *
+     * @param executionId The execution Id
+     */
+    public void closeExecutionScope(String executionId)
+    {
+        executionScopes.remove(executionId);
+    }
+
+    /**
+     * @return True if there is any open execution scope
+     */
+    public boolean hasExecutionScopes()
+    {
+        return !executionScopes.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Gets the manager of an execution scope.
+     * </p>
+     *
+     * @param executionId The execution Id, can be null
+     * @return The manager of the execution scope, or this manager if the scope is not open
+     */
+    public MockEndpointManager forExecution(String executionId)
+    {
+        if (executionId == null)
+        {
+            return this;
+        }
+        MockEndpointManager scope = executionScopes.get(executionId);
+        return scope != null ? scope : this;
+    }
+
+    /**
+     * @return True if no outbound endpoint behavior is registered, so the endpoints can go straight to the real ones
+     */
+    public boolean isEmpty()
+    {
+        return behaviors.isEmpty() && patterns.isEmpty();
     }
 
     /**
@@ -134,6 +293,9 @@ public class MockEndpointManager implements EndpointFactory
      */
     public void resetBehaviors()
     {
+        this.bulkheads.reportAndClear();
+        this.faults.clear();
         this.behaviors.clear();
+        this.patterns.clear();
     }
 }
@@ -22,7 +22,9 @@ import org.mule.api.security.EndpointSecurityFilter;
 import org.mule.api.transaction.TransactionConfig;
 import org.mule.api.transformer.Transformer;
 import org.mule.api.transport.Connector;
+import org.mule.munit.common.MunitExecution;
 import org.mule.munit.common.MunitUtils;
+import org.mule.munit.common.mocking.Bulkhead;
 import org.mule.processor.AbstractRedeliveryPolicy;
 
 import java.util.List;
@@ -41,9 +43,29 @@ public class MockOutboundEndpoint implements OutboundEndpoint
 
     private OutboundEndpoint realEndpoint;
 
+    /**
+     * <p>
+     * The manager that holds the endpoint behaviors, if null it is taken from the registry
+     * </p>
+     */
+    private MockEndpointManager endpointManager;
+
+    /**
+     * <p>
+     * The address of the real endpoint, built when the first message is processed
+     * </p>
+     */
+    private volatile AddressTemplate addressTemplate;
+
     public MockOutboundEndpoint(OutboundEndpoint realEndpoint)
+    {
+        this(realEndpoint, null);
+    }
+
+    public MockOutboundEndpoint(OutboundEndpoint realEndpoint, MockEndpointManager endpointManager)
     {
         this.realEndpoint = realEndpoint;
+        this.endpointManager = endpointManager;
     }
 
     @Override
@@ -217,41 +239,84 @@ public class MockOutboundEndpoint implements OutboundEndpoint
     @Override
     public MuleEvent process(MuleEvent event) throws MuleException
     {
-        MockEndpointManager manager = (MockEndpointManager) getEndpointManager(event);
+        MockEndpointManager manager = getEndpointManager(event);
+        if (manager.hasExecutionScopes())
+        {
+            manager = manager.forExecution(MunitExecution.idOf(event));
+        }
+
+        if (manager.isEmpty())
+        {
+            return realEndpoint.process(event);
+        }
 
-        String address = realAddressAsExpression();
-        ExpressionManager expressionManager = event.getMuleContext().getExpressionManager();
-        if (expressionManager.isValidExpression(address))
+        AddressTemplate template = getAddressTemplate(event.getMuleContext().getExpressionManager());
+        if (template.isValid())
         {
-            String realAddress = (String) expressionManager.evaluate(address, event);
-            OutboundBehavior behavior = manager.getBehaviorFor(realAddress);
+            OutboundBehavior behavior = manager.getBehaviorFor(template.resolve(event));
 
-            if (behavior == null)
+            if (behavior == null || (behavior.getFaults() != null && !behavior.getFaults().nextCallFails()))
             {
                 return realEndpoint.process(event);
             }
 
-            if (behavior.getException() !=null ){
-                throw behavior.getException();
+            Bulkhead bulkhead = behavior.getBulkhead();
+            if (bulkhead != null)
+            {
+                bulkhead.enter();
             }
 
-            MunitUtils.verifyAssertions(event, behavior.getAssertions());
-            if ( behavior.getMuleMessageTransformer() != null ){
-                event.setMessage(behavior.getMuleMessageTransformer().transform(event.getMessage()));
+            try
+            {
+                if (behavior.getLatency() != null)
+                {
+                    behavior.getLatency().delay();
+                }
+
+                if (behavior.getException() !=null ){
+                    throw behavior.getException();
+                }
+
+                MunitUtils.verifyAssertions(event, behavior.getAssertions());
+                if ( behavior.getMuleMessageTransformer() != null ){
+                    event.setMessage(behavior.getMuleMessageTransformer().transform(event.getMessage()));
+                }
+            }
+            finally
+            {
+                if (bulkhead != null)
+                {
+                    bulkhead.exit();
+                }
             }
         }
 
         return event;
     }
 
-    private String realAddressAsExpression()
+    /**
+     * <p>
+     * Gets the address template of the real endpoint, it is only built for the first message
+     * </p>
+     */
+    private AddressTemplate getAddressTemplate(ExpressionManager expressionManager)
     {
-        return "#[string:" + realEndpoint.getAddress() + "]";
+        AddressTemplate template = addressTemplate;
+        if (template == null)
+        {
+            template = new AddressTemplate(realEndpoint.getAddress(), expressionManager);
+            addressTemplate = template;
+        }
+        return template;
     }
 
-    private Object getEndpointManager(MuleEvent event)
+    private MockEndpointManager getEndpointManager(MuleEvent event)
     {
-        return event.getMuleContext().getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+        if (endpointManager == null)
+        {
+            endpointManager = (MockEndpointManager) event.getMuleContext().getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+        }
+        return endpointManager;
     }
 
     @Override
@@ -259,4 +324,49 @@ public class MockOutboundEndpoint implements OutboundEndpoint
     {
         return realEndpoint.getName();
     }
+
+    /**
+     * <p>
+     * The address of the real endpoint. Static addresses are used as they are, and addresses with expressions are
+     * evaluated against each event.
+     * </p>
+     */
+    private static class AddressTemplate
+    {
+
+        private final String address;
+        private final String expression;
+        private final boolean valid;
+        private final ExpressionManager expressionManager;
+
+        private AddressTemplate(String address, ExpressionManager expressionManager)
+        {
+            this.address = address;
+            this.expressionManager = expressionManager;
+            if (address != null && address.contains(ExpressionManager.DEFAULT_EXPRESSION_PREFIX))
+            {
+                this.expression = "#[string:" + address + "]";
+                this.valid = expressionManager.isValidExpression(expression);
+            }
+            else
+            {
+                this.expression = null;
+                this.valid = true;
+            }
+        }
+
+        private boolean isValid()
+        {
+            return valid;
+        }
+
+        private String resolve(MuleEvent event)
+        {
+            if (expression == null)
+            {
+                return address;
+            }
+            return (String) expressionManager.evaluate(expression, event);
+        }
+    }
 }
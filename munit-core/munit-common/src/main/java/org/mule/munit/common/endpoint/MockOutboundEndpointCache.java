@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.endpoint;
+
+import org.mule.api.endpoint.OutboundEndpoint;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Cache of the {@link MockOutboundEndpoint} wrappers, indexed by the real endpoint they wrap.
+ * </p>
+ * <p/>
+ * <p>
+ * Dynamic outbound endpoints are resolved for each message, and the default endpoint factory returns the same real
+ * endpoint for the same resolved URI, so the wrapper is reused instead of allocated for each message. The cache is
+ * bounded, the least recently used wrappers are discarded when it is full.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MockOutboundEndpointCache
+{
+
+    /**
+     * <p>
+     * System property with the maximum number of cached wrappers
+     * </p>
+     */
+    public static final String MAX_SIZE_PROPERTY = "munit.outboundEndpoints.cacheSize";
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final int maxSize;
+
+    private final Map<EndpointKey, MockOutboundEndpoint> wrappers;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public MockOutboundEndpointCache()
+    {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+    }
+
+    public MockOutboundEndpointCache(final int maxSize)
+    {
+        this.maxSize = maxSize;
+        this.wrappers = new LinkedHashMap<EndpointKey, MockOutboundEndpoint>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EndpointKey, MockOutboundEndpoint> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Gets the wrapper of a real endpoint, creating it if it is not cached.
+     * </p>
+     *
+     * @param realEndpoint The endpoint created by the default factory
+     * @param manager      The manager that holds the endpoint behaviors
+     * @return The mocked endpoint
+     */
+    public MockOutboundEndpoint wrap(OutboundEndpoint realEndpoint, MockEndpointManager manager)
+    {
+        if (realEndpoint == null || maxSize <= 0)
+        {
+            misses.incrementAndGet();
+            return new MockOutboundEndpoint(realEndpoint, manager);
+        }
+
+        EndpointKey key = new EndpointKey(realEndpoint);
+        synchronized (wrappers)
+        {
+            MockOutboundEndpoint wrapper = wrappers.get(key);
+            if (wrapper != null)
+            {
+                hits.incrementAndGet();
+                return wrapper;
+            }
+
+            misses.incrementAndGet();
+            wrapper = new MockOutboundEndpoint(realEndpoint, manager);
+            wrappers.put(key, wrapper);
+            return wrapper;
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio of lookups served from the cache, 0 if there was no lookup
+     */
+    public double getHitRatio()
+    {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size()
+    {
+        synchronized (wrappers)
+        {
+            return wrappers.size();
+        }
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * <p>
+     * Discards the cached wrappers and the statistics.
+     * </p>
+     */
+    public void clear()
+    {
+        synchronized (wrappers)
+        {
+            wrappers.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MockOutboundEndpointCache{size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses()
+               + ", hitRatio=" + getHitRatio() + "}";
+    }
+
+    /**
+     * <p>
+     * Identity of a real endpoint. Endpoints with equal configuration can still be different instances with their own
+     * lifecycle, so each instance gets its own wrapper.
+     * </p>
+     */
+    private static class EndpointKey
+    {
+
+        private final OutboundEndpoint endpoint;
+
+        private EndpointKey(OutboundEndpoint endpoint)
+        {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof EndpointKey && ((EndpointKey) o).endpoint == endpoint;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(endpoint);
+        }
+    }
+}
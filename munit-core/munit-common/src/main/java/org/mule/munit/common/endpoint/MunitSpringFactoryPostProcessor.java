@@ -6,6 +6,7 @@
  */
 package org.mule.munit.common.endpoint;
 
+import org.mule.munit.common.mp.CallRecordingMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +29,13 @@ import java.util.logging.Logger;
 public class MunitSpringFactoryPostProcessor
 {
 
+    /**
+     * <p>
+     * The name of the Munit configuration bean
+     * </p>
+     */
+    public static final String ID = "___MunitSpringFactoryPostProcessor";
+
     private static Logger logger = Logger.getLogger("Bean definition Processor");
 
     /**
@@ -52,8 +60,19 @@ public class MunitSpringFactoryPostProcessor
      */
     protected List<String> mockingExcludedFlows = new ArrayList<String>();
 
+    /**
+     * <p>
+     * Defines how the message processor calls of the suite tests are recorded
+     * </p>
+     */
+    protected CallRecordingMode callRecordingMode = CallRecordingMode.FULL;
 
-
+    /**
+     * <p>
+     * The message processors, as <code>namespace:name</code>, that the interception rules of the suite left out
+     * </p>
+     */
+    protected List<String> notInterceptedMessageProcessors = new ArrayList<String>();
 
     public void setMockInbounds(boolean mockInbounds)
     {
@@ -79,4 +98,24 @@ public class MunitSpringFactoryPostProcessor
     {
         this.mockConnectors = mockConnectors;
     }
+
+    public CallRecordingMode getCallRecordingMode()
+    {
+        return callRecordingMode;
+    }
+
+    public void setCallRecordingMode(CallRecordingMode callRecordingMode)
+    {
+        this.callRecordingMode = callRecordingMode;
+    }
+
+    public List<String> getNotInterceptedMessageProcessors()
+    {
+        return notInterceptedMessageProcessors;
+    }
+
+    public void setNotInterceptedMessageProcessors(List<String> notInterceptedMessageProcessors)
+    {
+        this.notInterceptedMessageProcessors = notInterceptedMessageProcessors;
+    }
 }
@@ -9,6 +9,9 @@ package org.mule.munit.common.endpoint;
 import org.mule.api.MuleException;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.modules.interceptor.processors.MuleMessageTransformer;
+import org.mule.munit.common.mocking.Bulkhead;
+import org.mule.munit.common.mocking.FaultSchedule;
+import org.mule.munit.common.mocking.LatencyDistribution;
 
 import java.util.List;
 
@@ -46,16 +49,60 @@ public class OutboundBehavior
      */
     private List<MessageProcessor> assertions;
 
+    /**
+     * <p>
+     * The time the outbound endpoint takes to respond, null to respond immediately
+     * </p>
+     */
+    private LatencyDistribution latency;
+
+    /**
+     * <p>
+     * The limit of concurrent calls of the outbound endpoint, null for no limit
+     * </p>
+     */
+    private Bulkhead bulkhead;
+
+    /**
+     * <p>
+     * The calls that throw the exception, null if all of them do. The other calls go to the real outbound endpoint.
+     * </p>
+     */
+    private FaultSchedule faults;
+
     public OutboundBehavior(MuleMessageTransformer muleMessageTransformer, List<MessageProcessor> assertions)
+    {
+        this(muleMessageTransformer, assertions, null, null);
+    }
+
+    public OutboundBehavior(MuleException exception, List<MessageProcessor> assertions)
+    {
+        this(exception, assertions, null, null);
+    }
+
+    public OutboundBehavior(MuleMessageTransformer muleMessageTransformer, List<MessageProcessor> assertions,
+                            LatencyDistribution latency, Bulkhead bulkhead)
     {
         this.muleMessageTransformer = muleMessageTransformer;
         this.assertions = assertions;
+        this.latency = latency;
+        this.bulkhead = bulkhead;
     }
 
-    public OutboundBehavior(MuleException exception, List<MessageProcessor> assertions)
+    public OutboundBehavior(MuleException exception, List<MessageProcessor> assertions,
+                            LatencyDistribution latency, Bulkhead bulkhead)
+    {
+        this(exception, assertions, latency, bulkhead, null);
+    }
+
+    public OutboundBehavior(MuleException exception, List<MessageProcessor> assertions,
+                            LatencyDistribution latency, Bulkhead bulkhead, FaultSchedule faults)
     {
         this.exception = exception;
         this.assertions = assertions;
+        this.latency = latency;
+        this.bulkhead = bulkhead;
+        this.faults = faults;
     }
 
 
@@ -73,4 +120,19 @@ public class OutboundBehavior
     {
         return exception;
     }
+
+    public LatencyDistribution getLatency()
+    {
+        return latency;
+    }
+
+    public Bulkhead getBulkhead()
+    {
+        return bulkhead;
+    }
+
+    public FaultSchedule getFaults()
+    {
+        return faults;
+    }
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Limits the number of concurrent calls a mocked message processor or outbound endpoint serves, like a backend that
+ * can only handle a few requests at a time. The calls over the limit wait for a free slot, are rejected, or wait until
+ * a timeout.
+ * </p>
+ * <p/>
+ * <p>
+ * Bulkheads can be written as text: <code>4</code> or <code>4,queue</code> to queue, <code>4,reject</code> to
+ * reject and <code>4,timeout:500</code> to wait at most 500 milliseconds.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class Bulkhead
+{
+
+    /**
+     * <p>
+     * What happens to a call when all the slots are busy
+     * </p>
+     */
+    public enum Policy
+    {
+        QUEUE, REJECT, TIMEOUT
+    }
+
+    private final int maxConcurrentCalls;
+    private final Policy policy;
+    private final long timeoutMillis;
+    private final Semaphore slots;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+
+    private Bulkhead(int maxConcurrentCalls, Policy policy, long timeoutMillis)
+    {
+        if (maxConcurrentCalls <= 0)
+        {
+            throw new IllegalArgumentException("The maximum number of concurrent calls must be greater than 0");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.policy = policy;
+        this.timeoutMillis = timeoutMillis;
+        this.slots = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * @return A bulkhead where calls over the limit wait until a slot is free
+     */
+    public static Bulkhead queueing(int maxConcurrentCalls)
+    {
+        return new Bulkhead(maxConcurrentCalls, Policy.QUEUE, 0);
+    }
+
+    /**
+     * @return A bulkhead where calls over the limit fail immediately
+     */
+    public static Bulkhead rejecting(int maxConcurrentCalls)
+    {
+        return new Bulkhead(maxConcurrentCalls, Policy.REJECT, 0);
+    }
+
+    /**
+     * @return A bulkhead where calls over the limit fail if no slot is free before the timeout
+     */
+    public static Bulkhead timingOut(int maxConcurrentCalls, long timeoutMillis)
+    {
+        if (timeoutMillis < 0)
+        {
+            throw new IllegalArgumentException("The timeout can not be negative");
+        }
+        return new Bulkhead(maxConcurrentCalls, Policy.TIMEOUT, timeoutMillis);
+    }
+
+    /**
+     * <p>
+     * Builds a bulkhead from its text form.
+     * </p>
+     *
+     * @param definition The bulkhead, as described in the class documentation
+     * @return The bulkhead
+     */
+    public static Bulkhead parse(String definition)
+    {
+        try
+        {
+            String[] parts = definition.trim().split(",");
+            int maxConcurrentCalls = Integer.parseInt(parts[0].trim());
+            String policy = parts.length > 1 ? parts[1].trim().toLowerCase() : "queue";
+            if ("queue".equals(policy))
+            {
+                return queueing(maxConcurrentCalls);
+            }
+            if ("reject".equals(policy))
+            {
+                return rejecting(maxConcurrentCalls);
+            }
+            if (policy.startsWith("timeout:"))
+            {
+                return timingOut(maxConcurrentCalls, Long.parseLong(policy.substring("timeout:".length()).trim()));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid bulkhead " + definition, e);
+        }
+        throw new IllegalArgumentException("Invalid bulkhead " + definition);
+    }
+
+    /**
+     * <p>
+     * Takes a slot for a call. Every successful call must be followed by {@link #exit()}.
+     * </p>
+     *
+     * @throws MuleException if the call is rejected, times out, or the thread is interrupted while waiting
+     */
+    public void enter() throws MuleException
+    {
+        calls.incrementAndGet();
+        if (slots.tryAcquire())
+        {
+            return;
+        }
+
+        if (policy == Policy.REJECT)
+        {
+            rejected.incrementAndGet();
+            throw new DefaultMuleException("The mock rejected the call, it is already serving " + maxConcurrentCalls + " calls");
+        }
+
+        queued.incrementAndGet();
+        updateMax(maxWaiting, waiting.incrementAndGet());
+        long start = System.nanoTime();
+        try
+        {
+            if (policy == Policy.QUEUE)
+            {
+                slots.acquire();
+            }
+            else if (!slots.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                timedOut.incrementAndGet();
+                throw new DefaultMuleException("The call timed out after waiting " + timeoutMillis + " ms for the mock, it is serving " + maxConcurrentCalls + " calls");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DefaultMuleException("The call was interrupted while waiting for the mock");
+        }
+        finally
+        {
+            waiting.decrementAndGet();
+            long waitNanos = System.nanoTime() - start;
+            totalWaitNanos.addAndGet(waitNanos);
+            updateMax(maxWaitNanos, waitNanos);
+        }
+    }
+
+    /**
+     * <p>
+     * Frees the slot of a call.
+     * </p>
+     */
+    public void exit()
+    {
+        slots.release();
+    }
+
+    public int getMaxConcurrentCalls()
+    {
+        return maxConcurrentCalls;
+    }
+
+    public Policy getPolicy()
+    {
+        return policy;
+    }
+
+    /**
+     * @return A snapshot of the calls served by the bulkhead
+     */
+    public Statistics getStatistics()
+    {
+        return new Statistics(calls.get(), queued.get(), rejected.get(), timedOut.get(), totalWaitNanos.get(),
+                              maxWaitNanos.get(), maxWaiting.get());
+    }
+
+    @Override
+    public String toString()
+    {
+        return maxConcurrentCalls + "," + (policy == Policy.TIMEOUT ? "timeout:" + timeoutMillis : policy.name().toLowerCase());
+    }
+
+    private static void updateMax(AtomicLong max, long value)
+    {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    private static void updateMax(AtomicInteger max, int value)
+    {
+        int current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    /**
+     * <p>
+     * The calls served by a bulkhead and the time they waited for a slot
+     * </p>
+     */
+    public static class Statistics
+    {
+
+        private final long calls;
+        private final long queued;
+        private final long rejected;
+        private final long timedOut;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int maxQueueLength;
+
+        private Statistics(long calls, long queued, long rejected, long timedOut, long totalWaitNanos, long maxWaitNanos, int maxQueueLength)
+        {
+            this.calls = calls;
+            this.queued = queued;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.maxQueueLength = maxQueueLength;
+        }
+
+        public long getCalls()
+        {
+            return calls;
+        }
+
+        /**
+         * @return The calls that had to wait for a slot
+         */
+        public long getQueued()
+        {
+            return queued;
+        }
+
+        public long getRejected()
+        {
+            return rejected;
+        }
+
+        public long getTimedOut()
+        {
+            return timedOut;
+        }
+
+        /**
+         * @return The average time the queued calls waited for a slot
+         */
+        public double getAverageWaitMillis()
+        {
+            return queued == 0 ? 0 : totalWaitNanos / (queued * 1000000d);
+        }
+
+        public double getMaxWaitMillis()
+        {
+            return maxWaitNanos / 1000000d;
+        }
+
+        public int getMaxQueueLength()
+        {
+            return maxQueueLength;
+        }
+
+        /**
+         * <p>
+         * Adds up the statistics of two bulkheads of the same mock. The maximums are the maximum of both.
+         * </p>
+         *
+         * @param other The statistics of the other bulkhead
+         * @return The statistics of both bulkheads
+         */
+        public Statistics plus(Statistics other)
+        {
+            return new Statistics(calls + other.calls, queued + other.queued, rejected + other.rejected,
+                                  timedOut + other.timedOut, totalWaitNanos + other.totalWaitNanos,
+                                  Math.max(maxWaitNanos, other.maxWaitNanos), Math.max(maxQueueLength, other.maxQueueLength));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "calls=" + calls + ", queued=" + queued + ", rejected=" + rejected + ", timedOut=" + timedOut
+                   + ", averageWait=" + String.format("%.2f", getAverageWaitMillis()) + " ms"
+                   + ", maxWait=" + String.format("%.2f", getMaxWaitMillis()) + " ms"
+                   + ", maxQueueLength=" + maxQueueLength;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * The bulkheads of the mocks of a test, by the name of the mocked message processor or address. Their statistics
+ * are reported when the test ends.
+ * </p>
+ * <p/>
+ * <p>
+ * A name can have more than one bulkhead, for example when a message processor is mocked twice with different
+ * attributes. The statistics of a name add up the ones of all its bulkheads.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class BulkheadRegistry
+{
+
+    private static final Log logger = LogFactory.getLog(BulkheadRegistry.class);
+
+    private final Map<String, Set<Bulkhead>> bulkheads = new LinkedHashMap<String, Set<Bulkhead>>();
+
+    public synchronized void register(String name, Bulkhead bulkhead)
+    {
+        Set<Bulkhead> named = bulkheads.get(name);
+        if (named == null)
+        {
+            named = new LinkedHashSet<Bulkhead>();
+            bulkheads.put(name, named);
+        }
+        named.add(bulkhead);
+    }
+
+    /**
+     * @return The statistics of the bulkheads of each name, the mocked message processor or address
+     */
+    public synchronized Map<String, Bulkhead.Statistics> getStatistics()
+    {
+        Map<String, Bulkhead.Statistics> statistics = new LinkedHashMap<String, Bulkhead.Statistics>();
+        for (Map.Entry<String, Set<Bulkhead>> entry : bulkheads.entrySet())
+        {
+            Bulkhead.Statistics total = null;
+            for (Bulkhead bulkhead : entry.getValue())
+            {
+                total = total == null ? bulkhead.getStatistics() : total.plus(bulkhead.getStatistics());
+            }
+            statistics.put(entry.getKey(), total);
+        }
+        return statistics;
+    }
+
+    /**
+     * <p>
+     * Logs the statistics of the bulkheads and forgets them.
+     * </p>
+     */
+    public synchronized void reportAndClear()
+    {
+        if (bulkheads.isEmpty())
+        {
+            return;
+        }
+
+        if (logger.isInfoEnabled())
+        {
+            for (Map.Entry<String, Bulkhead.Statistics> entry : getStatistics().entrySet())
+            {
+                logger.info("Mock bulkhead " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+        bulkheads.clear();
+    }
+}
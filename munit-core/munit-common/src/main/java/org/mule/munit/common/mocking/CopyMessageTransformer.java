@@ -10,12 +10,16 @@ package org.mule.munit.common.mocking;
 import org.mule.DefaultMuleMessage;
 import org.mule.api.MuleMessage;
 import org.mule.modules.interceptor.processors.MuleMessageTransformer;
-import org.mule.munit.common.MunitUtils;
 
 /**
  * <p>
  * {@link MuleMessageTransformer} that copies one message into the other
  * </p>
+ * <p/>
+ * <p>
+ * The returned message is taken as a {@link MessageOverlay} when the transformer is created, so each call only
+ * writes the mocked payload and properties.
+ * </p>
  *
  * @author Mulesoft Inc.
  * @since 3.4
@@ -23,17 +27,17 @@ import org.mule.munit.common.MunitUtils;
 public class CopyMessageTransformer implements MuleMessageTransformer
 {
 
-    private DefaultMuleMessage returnMessage;
+    private final MessageOverlay overlay;
 
     public CopyMessageTransformer(DefaultMuleMessage returnMessage)
     {
-        this.returnMessage = returnMessage;
+        this.overlay = MessageOverlay.of(returnMessage);
     }
 
     @Override
     public MuleMessage transform(MuleMessage original)
     {
-        MunitUtils.copyMessage(returnMessage, (DefaultMuleMessage) original);
+        overlay.applyTo((DefaultMuleMessage) original);
         return original;
     }
 }
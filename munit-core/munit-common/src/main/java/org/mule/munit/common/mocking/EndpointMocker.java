@@ -11,9 +11,10 @@ import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
-import org.mule.api.config.MuleProperties;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.modules.interceptor.processors.MuleMessageTransformer;
+import org.mule.munit.common.MunitRuntime;
+import org.mule.munit.common.endpoint.AddressPatternIndex;
 import org.mule.munit.common.endpoint.MockEndpointManager;
 import org.mule.munit.common.endpoint.OutboundBehavior;
 
@@ -34,6 +35,11 @@ import java.util.List;
  * <code>
  * new EndpointMocker(muleContext).whenEndpointWithAddress("http://localhost:8080").thenReturn(muleMessage);
  * </code>
+ * <p/>
+ * <p>
+ * An exact address wins over the patterns of {@link #whenEndpointWithAddressLike(String)}, and those win over the
+ * ones of {@link #whenEndpointWithAddressMatching(String)}.
+ * </p>
  *
  * @author Mulesoft Inc.
  * @since 3.3.2
@@ -62,6 +68,27 @@ public class EndpointMocker
      */
     private List<SpyProcess> process;
 
+    /**
+     * <p>
+     * The time the endpoint takes to respond, null to respond immediately
+     * </p>
+     */
+    private LatencyDistribution latency;
+
+    /**
+     * <p>
+     * The limit of concurrent calls of the endpoint, null for no limit
+     * </p>
+     */
+    private Bulkhead bulkhead;
+
+    /**
+     * <p>
+     * The calls that throw the exception, null if all of them do
+     * </p>
+     */
+    private FaultSchedule faults;
+
     public EndpointMocker(MuleContext muleContext)
     {
         this.muleContext = muleContext;
@@ -85,6 +112,43 @@ public class EndpointMocker
         return this;
     }
 
+    /**
+     * <p>
+     * Defines which endpoints to use based on a glob pattern of their address. <code>*</code> matches any text
+     * without <code>/</code> and <code>**</code> matches any text.
+     * </p>
+     *
+     * @param glob <p>
+     *             The address pattern, for example <code>http://localhost:8080/users/*</code>
+     *             </p>
+     * @return <p>
+     *         The EndpointMocker object
+     *         </p>
+     */
+    public EndpointMocker whenEndpointWithAddressLike(String glob)
+    {
+        this.address = AddressPatternIndex.GLOB_PREFIX + glob;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines which endpoints to use based on a regular expression that must match their whole address
+     * </p>
+     *
+     * @param regex <p>
+     *              The address regular expression
+     *              </p>
+     * @return <p>
+     *         The EndpointMocker object
+     *         </p>
+     */
+    public EndpointMocker whenEndpointWithAddressMatching(String regex)
+    {
+        this.address = AddressPatternIndex.REGEX_PREFIX + regex;
+        return this;
+    }
+
     /**
      * <p>
      * Adds the spying processes to be consider when executing the endpoint
@@ -104,6 +168,61 @@ public class EndpointMocker
         return this;
     }
 
+    /**
+     * <p>
+     * Defines how long the endpoint takes to return its message or throw its exception
+     * </p>
+     *
+     * @param latency <p>
+     *                The latency distribution
+     *                </p>
+     * @return <p>
+     *         The EndpointMocker object
+     *         </p>
+     */
+    public EndpointMocker withLatency(LatencyDistribution latency)
+    {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines how many calls the endpoint serves at a time, and what happens to the others
+     * </p>
+     *
+     * @param bulkhead <p>
+     *                 The bulkhead of the endpoint
+     *                 </p>
+     * @return <p>
+     *         The EndpointMocker object
+     *         </p>
+     */
+    public EndpointMocker withBulkhead(Bulkhead bulkhead)
+    {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines which calls throw the exception of {@link #thenThrow(MuleException)}, the other calls go to the real
+     * endpoint
+     * </p>
+     *
+     * @param faults <p>
+     *               The fault schedule of the endpoint
+     *               </p>
+     * @return <p>
+     *         The EndpointMocker object
+     *         </p>
+     */
+    public EndpointMocker withFaults(FaultSchedule faults)
+    {
+        this.faults = faults;
+        return this;
+    }
+
     /**
      * <p>
      * Determines what value must the endpoint return
@@ -116,9 +235,9 @@ public class EndpointMocker
     public void thenReturn(MuleMessage message)
     {
         OutboundBehavior behavior = new OutboundBehavior(new CopyMessageTransformer((DefaultMuleMessage) message),
-                                                         createMessageProcessorFromSpy(process));
+                                                         createMessageProcessorFromSpy(process), latency, bulkhead);
 
-        MockEndpointManager factory = muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+        MockEndpointManager factory = MunitRuntime.of(muleContext).currentEndpointManager();
         factory.addBehavior(address, behavior);
     }
 
@@ -133,9 +252,9 @@ public class EndpointMocker
      */
     public void thenThrow(MuleException exception)
     {
-        OutboundBehavior behavior = new OutboundBehavior(exception, createMessageProcessorFromSpy(process));
+        OutboundBehavior behavior = new OutboundBehavior(exception, createMessageProcessorFromSpy(process), latency, bulkhead, faults);
 
-        MockEndpointManager factory = muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+        MockEndpointManager factory = MunitRuntime.of(muleContext).currentEndpointManager();
         factory.addBehavior(address, behavior);
     }
 
@@ -151,9 +270,9 @@ public class EndpointMocker
      */
     public void thenApply(MuleMessageTransformer transformer)
     {
-        OutboundBehavior behavior = new OutboundBehavior(transformer, createMessageProcessorFromSpy(process));
+        OutboundBehavior behavior = new OutboundBehavior(transformer, createMessageProcessorFromSpy(process), latency, bulkhead);
 
-        MockEndpointManager factory = muleContext.getRegistry().lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+        MockEndpointManager factory = MunitRuntime.of(muleContext).currentEndpointManager();
         factory.addBehavior(address, behavior);
     }
 
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Decides which calls of a mock that throws an exception fail. The calls that do not fail go to the real message
+ * processor or endpoint, so retry and until-successful paths can be measured against a backend that fails only
+ * some times.
+ * </p>
+ * <p/>
+ * <p>
+ * Schedules can be written as text:
+ * </p>
+ * <ul>
+ * <li><code>always</code>, every call fails</li>
+ * <li><code>probability:0.2</code> or <code>probability:0.2,1234</code>, a fraction of the calls fail, chosen with
+ * a random source of the given seed</li>
+ * <li><code>every:3</code>, the third, sixth, ... calls fail</li>
+ * <li><code>windows:0-500,2000-2500</code>, the calls made in those milliseconds since the first call fail</li>
+ * </ul>
+ * <p/>
+ * <p>
+ * The random source is seeded, by default with the value of the {@value #SEED_PROPERTY} system property or
+ * {@value #DEFAULT_SEED}, so a test fails the same calls on each run as long as it makes them in the same order.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public abstract class FaultSchedule
+{
+
+    /**
+     * <p>
+     * System property with the seed of the schedules that do not define one
+     * </p>
+     */
+    public static final String SEED_PROPERTY = "munit.faults.seed";
+
+    public static final long DEFAULT_SEED = 0L;
+
+    private final AtomicLong injectedFaults = new AtomicLong();
+
+    private final AtomicLong passes = new AtomicLong();
+
+    /**
+     * <p>
+     * Decides if the next call fails and counts it.
+     * </p>
+     *
+     * @return true if the mock must throw its exception, false if the call goes to the real one
+     */
+    public boolean nextCallFails()
+    {
+        if (fails())
+        {
+            injectedFaults.incrementAndGet();
+            return true;
+        }
+        passes.incrementAndGet();
+        return false;
+    }
+
+    protected abstract boolean fails();
+
+    /**
+     * @return The calls that failed
+     */
+    public long getInjectedFaults()
+    {
+        return injectedFaults.get();
+    }
+
+    /**
+     * @return The calls that went to the real message processor or endpoint
+     */
+    public long getPasses()
+    {
+        return passes.get();
+    }
+
+    public static FaultSchedule always()
+    {
+        return new Always();
+    }
+
+    public static FaultSchedule probability(double probability)
+    {
+        return probability(probability, Long.getLong(SEED_PROPERTY, DEFAULT_SEED));
+    }
+
+    public static FaultSchedule probability(double probability, long seed)
+    {
+        if (probability < 0 || probability > 1)
+        {
+            throw new IllegalArgumentException("The fault probability " + probability + " is not between 0 and 1");
+        }
+        return new Probability(probability, seed);
+    }
+
+    public static FaultSchedule everyNth(int n)
+    {
+        if (n < 1)
+        {
+            throw new IllegalArgumentException("The calls between faults must be at least 1");
+        }
+        return new EveryNth(n);
+    }
+
+    /**
+     * <p>
+     * Fails the calls made during the given time windows. The time is counted from the first call of the mock.
+     * </p>
+     *
+     * @param windows The start and the end in milliseconds of each window, the end is not included
+     */
+    public static FaultSchedule windows(long[]... windows)
+    {
+        if (windows.length == 0)
+        {
+            throw new IllegalArgumentException("At least one fault window must be defined");
+        }
+        for (long[] window : windows)
+        {
+            if (window.length != 2 || window[0] < 0 || window[1] < window[0])
+            {
+                throw new IllegalArgumentException("Invalid fault window " + Arrays.toString(window));
+            }
+        }
+        return new Windows(windows);
+    }
+
+    /**
+     * <p>
+     * Builds a schedule from its text form.
+     * </p>
+     *
+     * @param definition The schedule, as described in the class documentation
+     * @return The schedule
+     */
+    public static FaultSchedule parse(String definition)
+    {
+        String trimmed = definition.trim();
+        int separator = trimmed.indexOf(':');
+        String type = separator < 0 ? trimmed.toLowerCase() : trimmed.substring(0, separator).trim().toLowerCase();
+        String[] values = separator < 0 ? new String[0] : trimmed.substring(separator + 1).split(",");
+
+        try
+        {
+            if ("always".equals(type) && values.length == 0)
+            {
+                return always();
+            }
+            if ("probability".equals(type) && values.length == 1)
+            {
+                return probability(Double.parseDouble(values[0].trim()));
+            }
+            if ("probability".equals(type) && values.length == 2)
+            {
+                return probability(Double.parseDouble(values[0].trim()), Long.parseLong(values[1].trim()));
+            }
+            if ("every".equals(type) && values.length == 1)
+            {
+                return everyNth(Integer.parseInt(values[0].trim()));
+            }
+            if ("windows".equals(type) && values.length > 0)
+            {
+                List<long[]> windows = new ArrayList<long[]>();
+                for (String value : values)
+                {
+                    String[] bounds = value.split("-");
+                    windows.add(new long[] {Long.parseLong(bounds[0].trim()), Long.parseLong(bounds[1].trim())});
+                }
+                return windows(windows.toArray(new long[windows.size()][]));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid fault schedule " + definition, e);
+        }
+        throw new IllegalArgumentException("Invalid fault schedule " + definition);
+    }
+
+    private static class Always extends FaultSchedule
+    {
+
+        @Override
+        protected boolean fails()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "always";
+        }
+    }
+
+    private static class Probability extends FaultSchedule
+    {
+
+        private final double probability;
+        private final long seed;
+        private final Random random;
+
+        private Probability(double probability, long seed)
+        {
+            this.probability = probability;
+            this.seed = seed;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        protected boolean fails()
+        {
+            return random.nextDouble() < probability;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "probability:" + probability + "," + seed;
+        }
+    }
+
+    private static class EveryNth extends FaultSchedule
+    {
+
+        private final int n;
+        private final AtomicLong calls = new AtomicLong();
+
+        private EveryNth(int n)
+        {
+            this.n = n;
+        }
+
+        @Override
+        protected boolean fails()
+        {
+            return calls.incrementAndGet() % n == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "every:" + n;
+        }
+    }
+
+    private static class Windows extends FaultSchedule
+    {
+
+        private final long[][] windows;
+
+        /**
+         * <p>
+         * The time of the first call in nanoseconds, 0 before it
+         * </p>
+         */
+        private final AtomicLong firstCall = new AtomicLong();
+
+        private Windows(long[][] windows)
+        {
+            this.windows = windows;
+        }
+
+        @Override
+        protected boolean fails()
+        {
+            long now = System.nanoTime();
+            firstCall.compareAndSet(0, now);
+            long elapsedMillis = (now - firstCall.get()) / 1000000;
+            for (long[] window : windows)
+            {
+                if (elapsedMillis >= window[0] && elapsedMillis < window[1])
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder("windows:");
+            for (int i = 0; i < windows.length; i++)
+            {
+                builder.append(i == 0 ? "" : ",").append(windows[i][0]).append('-').append(windows[i][1]);
+            }
+            return builder.toString();
+        }
+    }
+}
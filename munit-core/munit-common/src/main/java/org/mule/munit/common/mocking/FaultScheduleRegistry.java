@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The fault schedules of the mocks of a test, with the name of the mocked message processor or address. The counters
+ * of the mocks with the same name are added up.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class FaultScheduleRegistry
+{
+
+    private final List<String> names = new ArrayList<String>();
+
+    private final List<FaultSchedule> schedules = new ArrayList<FaultSchedule>();
+
+    public synchronized void register(String name, FaultSchedule schedule)
+    {
+        names.add(name);
+        schedules.add(schedule);
+    }
+
+    /**
+     * @param name The name of the mock
+     * @return The calls of the mock that failed
+     */
+    public synchronized long countInjectedFaults(String name)
+    {
+        long count = 0;
+        for (int i = 0; i < names.size(); i++)
+        {
+            if (names.get(i).equals(name))
+            {
+                count += schedules.get(i).getInjectedFaults();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param name The name of the mock
+     * @return The calls of the mock that went to the real message processor or endpoint
+     */
+    public synchronized long countPasses(String name)
+    {
+        long count = 0;
+        for (int i = 0; i < names.size(); i++)
+        {
+            if (names.get(i).equals(name))
+            {
+                count += schedules.get(i).getPasses();
+            }
+        }
+        return count;
+    }
+
+    public synchronized void clear()
+    {
+        names.clear();
+        schedules.clear();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Distribution of the time a mocked message processor or outbound endpoint takes to respond, so the flow under test
+ * sees the latency of a real backend.
+ * </p>
+ * <p/>
+ * <p>
+ * Distributions can be written as text, in milliseconds:
+ * </p>
+ * <ul>
+ * <li><code>fixed:100</code> or just <code>100</code></li>
+ * <li><code>uniform:50,200</code> for a minimum and a maximum</li>
+ * <li><code>normal:120,30</code> for a mean and a standard deviation</li>
+ * <li><code>percentiles:50=80,90=200,99=800</code> for the latency of each percentile</li>
+ * </ul>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public abstract class LatencyDistribution
+{
+
+    private static final Random RANDOM = new Random();
+
+    /**
+     * <p>
+     * Samples a delay.
+     * </p>
+     *
+     * @param random The source of randomness
+     * @return The delay in milliseconds, never negative
+     */
+    public abstract long sampleMillis(Random random);
+
+    /**
+     * <p>
+     * Blocks the current thread for a sampled delay. If the thread is interrupted the delay ends and the thread keeps
+     * its interrupted status.
+     * </p>
+     */
+    public void delay()
+    {
+        long millis = sampleMillis(RANDOM);
+        if (millis <= 0)
+        {
+            return;
+        }
+
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static LatencyDistribution fixed(long millis)
+    {
+        checkNotNegative(millis);
+        return new Fixed(millis);
+    }
+
+    public static LatencyDistribution uniform(long minMillis, long maxMillis)
+    {
+        checkNotNegative(minMillis);
+        if (maxMillis < minMillis)
+        {
+            throw new IllegalArgumentException("The maximum latency " + maxMillis + " is lower than the minimum " + minMillis);
+        }
+        return new Uniform(minMillis, maxMillis);
+    }
+
+    /**
+     * <p>
+     * Normal distribution, negative samples are taken as no delay.
+     * </p>
+     */
+    public static LatencyDistribution normal(double meanMillis, double standardDeviationMillis)
+    {
+        if (standardDeviationMillis < 0)
+        {
+            throw new IllegalArgumentException("The standard deviation can not be negative");
+        }
+        return new Normal(meanMillis, standardDeviationMillis);
+    }
+
+    /**
+     * <p>
+     * Distribution replayed from a table of percentiles, for example the one measured on a real backend. Delays
+     * between two percentiles are interpolated, and the lowest percentile is taken as the minimum delay.
+     * </p>
+     *
+     * @param percentiles The latency in milliseconds of each percentile, from 0 to 100
+     */
+    public static LatencyDistribution percentiles(Map<Double, Long> percentiles)
+    {
+        if (percentiles == null || percentiles.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one percentile must be defined");
+        }
+
+        TreeMap<Double, Long> sorted = new TreeMap<Double, Long>(percentiles);
+        double[] points = new double[sorted.size()];
+        long[] values = new long[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Double, Long> entry : sorted.entrySet())
+        {
+            if (entry.getKey() < 0 || entry.getKey() > 100)
+            {
+                throw new IllegalArgumentException("The percentile " + entry.getKey() + " is not between 0 and 100");
+            }
+            checkNotNegative(entry.getValue());
+            if (i > 0 && entry.getValue() < values[i - 1])
+            {
+                throw new IllegalArgumentException("The latency of the percentile " + entry.getKey() + " is lower than the one of a lower percentile");
+            }
+            points[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new Percentiles(points, values);
+    }
+
+    /**
+     * <p>
+     * Builds a distribution from its text form.
+     * </p>
+     *
+     * @param definition The distribution, as described in the class documentation
+     * @return The distribution
+     */
+    public static LatencyDistribution parse(String definition)
+    {
+        String trimmed = definition.trim();
+        int separator = trimmed.indexOf(':');
+        String type = separator < 0 ? "fixed" : trimmed.substring(0, separator).trim().toLowerCase();
+        String arguments = separator < 0 ? trimmed : trimmed.substring(separator + 1);
+
+        try
+        {
+            String[] values = arguments.split(",");
+            if ("fixed".equals(type))
+            {
+                return fixed(Long.parseLong(values[0].trim()));
+            }
+            if ("uniform".equals(type) && values.length == 2)
+            {
+                return uniform(Long.parseLong(values[0].trim()), Long.parseLong(values[1].trim()));
+            }
+            if ("normal".equals(type) && values.length == 2)
+            {
+                return normal(Double.parseDouble(values[0].trim()), Double.parseDouble(values[1].trim()));
+            }
+            if ("percentiles".equals(type))
+            {
+                Map<Double, Long> percentiles = new TreeMap<Double, Long>();
+                for (String value : values)
+                {
+                    String[] percentile = value.split("=");
+                    percentiles.put(Double.parseDouble(percentile[0].trim().replace("p", "")), Long.parseLong(percentile[1].trim()));
+                }
+                return percentiles(percentiles);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid latency distribution " + definition, e);
+        }
+        throw new IllegalArgumentException("Invalid latency distribution " + definition);
+    }
+
+    private static void checkNotNegative(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException("The latency can not be negative");
+        }
+    }
+
+    private static class Fixed extends LatencyDistribution
+    {
+
+        private final long millis;
+
+        private Fixed(long millis)
+        {
+            this.millis = millis;
+        }
+
+        @Override
+        public long sampleMillis(Random random)
+        {
+            return millis;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "fixed:" + millis;
+        }
+    }
+
+    private static class Uniform extends LatencyDistribution
+    {
+
+        private final long minMillis;
+        private final long maxMillis;
+
+        private Uniform(long minMillis, long maxMillis)
+        {
+            this.minMillis = minMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        @Override
+        public long sampleMillis(Random random)
+        {
+            return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "uniform:" + minMillis + "," + maxMillis;
+        }
+    }
+
+    private static class Normal extends LatencyDistribution
+    {
+
+        private final double meanMillis;
+        private final double standardDeviationMillis;
+
+        private Normal(double meanMillis, double standardDeviationMillis)
+        {
+            this.meanMillis = meanMillis;
+            this.standardDeviationMillis = standardDeviationMillis;
+        }
+
+        @Override
+        public long sampleMillis(Random random)
+        {
+            return Math.max(0, Math.round(meanMillis + random.nextGaussian() * standardDeviationMillis));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "normal:" + meanMillis + "," + standardDeviationMillis;
+        }
+    }
+
+    private static class Percentiles extends LatencyDistribution
+    {
+
+        private final double[] points;
+        private final long[] values;
+
+        private Percentiles(double[] points, long[] values)
+        {
+            this.points = points;
+            this.values = values;
+        }
+
+        @Override
+        public long sampleMillis(Random random)
+        {
+            double percentile = random.nextDouble() * 100;
+            if (percentile <= points[0])
+            {
+                return values[0];
+            }
+
+            for (int i = 1; i < points.length; i++)
+            {
+                if (percentile <= points[i])
+                {
+                    double fraction = (percentile - points[i - 1]) / (points[i] - points[i - 1]);
+                    return values[i - 1] + Math.round(fraction * (values[i] - values[i - 1]));
+                }
+            }
+            return values[values.length - 1];
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder("percentiles:");
+            for (int i = 0; i < points.length; i++)
+            {
+                builder.append(i > 0 ? "," : "").append(points[i]).append('=').append(values[i]);
+            }
+            return builder.toString();
+        }
+    }
+}
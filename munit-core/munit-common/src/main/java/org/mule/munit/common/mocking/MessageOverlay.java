@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import org.mule.DefaultMuleMessage;
+
+import java.util.Set;
+
+import static org.mule.munit.common.mocking.NotDefinedPayload.isNotDefined;
+
+/**
+ * <p>
+ * Immutable snapshot of a mocked response: the payload and the properties that must be written over the message of
+ * the mocked call.
+ * </p>
+ * <p/>
+ * <p>
+ * The snapshot is taken once, when the mock is defined, so applying it only writes the mocked values. The property
+ * names of the response are not read again on every call.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public final class MessageOverlay
+{
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private final Object payload;
+
+    private final String[] inboundNames;
+    private final Object[] inboundValues;
+
+    private final String[] sessionNames;
+    private final Object[] sessionValues;
+
+    private final String[] invocationNames;
+    private final Object[] invocationValues;
+
+    private final String[] outboundNames;
+    private final Object[] outboundValues;
+
+    private MessageOverlay(DefaultMuleMessage message)
+    {
+        Object messagePayload = message.getPayload();
+        payload = messagePayload != null && !isNotDefined(messagePayload) ? messagePayload : null;
+
+        inboundNames = namesOf(message.getInboundPropertyNames());
+        inboundValues = new Object[inboundNames.length];
+        for (int i = 0; i < inboundNames.length; i++)
+        {
+            inboundValues[i] = message.getInboundProperty(inboundNames[i]);
+        }
+
+        sessionNames = namesOf(message.getSessionPropertyNames());
+        sessionValues = new Object[sessionNames.length];
+        for (int i = 0; i < sessionNames.length; i++)
+        {
+            sessionValues[i] = message.getSessionProperty(sessionNames[i]);
+        }
+
+        invocationNames = namesOf(message.getInvocationPropertyNames());
+        invocationValues = new Object[invocationNames.length];
+        for (int i = 0; i < invocationNames.length; i++)
+        {
+            invocationValues[i] = message.getInvocationProperty(invocationNames[i]);
+        }
+
+        outboundNames = namesOf(message.getOutboundPropertyNames());
+        outboundValues = new Object[outboundNames.length];
+        for (int i = 0; i < outboundNames.length; i++)
+        {
+            outboundValues[i] = message.getOutboundProperty(outboundNames[i]);
+        }
+    }
+
+    /**
+     * <p>
+     * Takes the snapshot of a mocked response.
+     * </p>
+     *
+     * @param message The message the mock returns
+     * @return The overlay of the message
+     */
+    public static MessageOverlay of(DefaultMuleMessage message)
+    {
+        return new MessageOverlay(message);
+    }
+
+    /**
+     * <p>
+     * Writes the overlay over a message. The payload is only replaced if the response defines one, a
+     * {@link ReplayablePayload} is opened again for each message.
+     * </p>
+     *
+     * @param message The message of the mocked call
+     */
+    public void applyTo(DefaultMuleMessage message)
+    {
+        if (payload instanceof ReplayablePayload)
+        {
+            message.setPayload(((ReplayablePayload) payload).openForHit());
+        }
+        else if (payload != null)
+        {
+            message.setPayload(payload);
+        }
+
+        for (int i = 0; i < inboundNames.length; i++)
+        {
+            message.setInboundProperty(inboundNames[i], inboundValues[i]);
+        }
+        for (int i = 0; i < sessionNames.length; i++)
+        {
+            message.setSessionProperty(sessionNames[i], sessionValues[i]);
+        }
+        for (int i = 0; i < invocationNames.length; i++)
+        {
+            message.setInvocationProperty(invocationNames[i], invocationValues[i]);
+        }
+        for (int i = 0; i < outboundNames.length; i++)
+        {
+            message.setOutboundProperty(outboundNames[i], outboundValues[i]);
+        }
+    }
+
+    /**
+     * @return True if applying the overlay does not change the message
+     */
+    public boolean isEmpty()
+    {
+        return payload == null && inboundNames.length == 0 && sessionNames.length == 0
+               && invocationNames.length == 0 && outboundNames.length == 0;
+    }
+
+    private static String[] namesOf(Set<String> names)
+    {
+        return names == null || names.isEmpty() ? NO_NAMES : names.toArray(new String[names.size()]);
+    }
+}
@@ -14,6 +14,7 @@ import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.modules.interceptor.processors.MuleMessageTransformer;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
+import org.mule.munit.common.mp.MunitMessageProcessorBehavior;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,6 +36,26 @@ import java.util.Map;
 public class MessageProcessorMocker extends MunitMockingTool
 {
 
+    /**
+     * <p>
+     * The time the mocked message processor takes to respond, null to respond immediately
+     * </p>
+     */
+    private LatencyDistribution latency;
+
+    /**
+     * <p>
+     * The limit of concurrent calls of the mocked message processor, null for no limit
+     * </p>
+     */
+    private Bulkhead bulkhead;
+
+    /**
+     * <p>
+     * The calls that throw the exception, null if all of them do
+     * </p>
+     */
+    private FaultSchedule faults;
 
     public MessageProcessorMocker(MuleContext muleContext)
     {
@@ -118,6 +139,61 @@ public class MessageProcessorMocker extends MunitMockingTool
         return this;
     }
 
+    /**
+     * <p>
+     * Defines how long the mocked message processor takes to return its message or throw its exception
+     * </p>
+     *
+     * @param latency <p>
+     *                The latency distribution
+     *                </p>
+     * @return <p>
+     *         The MessageProcessorMocker
+     *         </p>
+     */
+    public MessageProcessorMocker withLatency(LatencyDistribution latency)
+    {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines how many calls the mocked message processor serves at a time, and what happens to the others
+     * </p>
+     *
+     * @param bulkhead <p>
+     *                 The bulkhead of the mock
+     *                 </p>
+     * @return <p>
+     *         The MessageProcessorMocker
+     *         </p>
+     */
+    public MessageProcessorMocker withBulkhead(Bulkhead bulkhead)
+    {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines which calls throw the exception of {@link #thenThrow(Throwable)}, the other calls go to the real
+     * message processor
+     * </p>
+     *
+     * @param faults <p>
+     *               The fault schedule of the mock
+     *               </p>
+     * @return <p>
+     *         The MessageProcessorMocker
+     *         </p>
+     */
+    public MessageProcessorMocker withFaults(FaultSchedule faults)
+    {
+        this.faults = faults;
+        return this;
+    }
+
     /**
      * <p>
      * Defines what {@link MuleMessage} to return after the message processor call
@@ -134,7 +210,7 @@ public class MessageProcessorMocker extends MunitMockingTool
         MockedMessageProcessorManager manager = getManager();
         MessageProcessorCall messageProcessorCall = new MessageProcessorCall(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
         messageProcessorCall.setAttributes(messageProcessorAttributes);
-        manager.addBehavior(new MessageProcessorBehavior(messageProcessorCall, new CopyMessageTransformer((DefaultMuleMessage) message)));
+        manager.addBehavior(behavior(messageProcessorCall, new CopyMessageTransformer((DefaultMuleMessage) message)));
     }
 
     /**
@@ -153,7 +229,8 @@ public class MessageProcessorMocker extends MunitMockingTool
         MockedMessageProcessorManager manager = getManager();
         MessageProcessorCall messageProcessorCall = new MessageProcessorCall(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
         messageProcessorCall.setAttributes(messageProcessorAttributes);
-        manager.addBehavior(new MessageProcessorBehavior(messageProcessorCall, exception));
+        manager.addBehavior(latency == null && bulkhead == null && faults == null ? new MessageProcessorBehavior(messageProcessorCall, exception)
+                                                                                  : new MunitMessageProcessorBehavior(messageProcessorCall, exception, latency, bulkhead, faults));
     }
 
 
@@ -169,7 +246,7 @@ public class MessageProcessorMocker extends MunitMockingTool
         MockedMessageProcessorManager manager = getManager();
         MessageProcessorCall messageProcessorCall = new MessageProcessorCall(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
         messageProcessorCall.setAttributes(messageProcessorAttributes);
-        manager.addBehavior(new MessageProcessorBehavior(messageProcessorCall, new CopyMessageTransformer(new DefaultMuleMessage(NotDefinedPayload.getInstance(), muleContext))));
+        manager.addBehavior(behavior(messageProcessorCall, new CopyMessageTransformer(new DefaultMuleMessage(NotDefinedPayload.getInstance(), muleContext))));
     }
 
     /**
@@ -184,7 +261,16 @@ public class MessageProcessorMocker extends MunitMockingTool
         MockedMessageProcessorManager manager = getManager();
         MessageProcessorCall messageProcessorCall = new MessageProcessorCall(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
         messageProcessorCall.setAttributes(messageProcessorAttributes);
-        manager.addBehavior(new MessageProcessorBehavior(messageProcessorCall, transformer));
+        manager.addBehavior(behavior(messageProcessorCall, transformer));
+    }
+
+    private MessageProcessorBehavior behavior(MessageProcessorCall messageProcessorCall, MuleMessageTransformer transformer)
+    {
+        if (latency == null && bulkhead == null)
+        {
+            return new MessageProcessorBehavior(messageProcessorCall, transformer);
+        }
+        return new MunitMessageProcessorBehavior(messageProcessorCall, transformer, latency, bulkhead);
     }
 
     private void validateMessageProcessorName()
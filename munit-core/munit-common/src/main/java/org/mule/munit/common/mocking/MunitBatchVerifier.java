@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static junit.framework.Assert.fail;
+import org.mule.api.MuleContext;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+import org.mule.munit.common.mp.MessageProcessorCallMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Munit Tool to verify many message processor calls at once. The expectations are collected and checked together
+ * by {@link #verify()}, which reads the recorded calls of each message processor only once and reports every
+ * expectation that is not satisfied.
+ * </p>
+ * <p/>
+ * <p>Usage:</p>
+ * <p/>
+ * <code>
+ * new MunitBatchVerifier(muleContext)
+ * .verifyCallOfMessageProcessor("create-group").ofNamespace("jira").times(1)
+ * .verifyCallOfMessageProcessor("logger").atLeast(2)
+ * .verify();
+ * </code>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitBatchVerifier extends MunitMockingTool
+{
+
+    private final List<Expectation> expectations = new ArrayList<Expectation>();
+
+    public MunitBatchVerifier(MuleContext muleContext)
+    {
+        super(muleContext);
+    }
+
+    /**
+     * <p>
+     * Starts the expectation of a message processor
+     * </p>
+     *
+     * @param name <p>
+     *             The name of the message processor to verify call
+     *             </p>
+     * @return <p>
+     *         Itself
+     *         </p>
+     */
+    public MunitBatchVerifier verifyCallOfMessageProcessor(String name)
+    {
+        this.messageProcessorName = name;
+        this.messageProcessorNamespace = "mule";
+        this.messageProcessorAttributes = new HashMap<String, Object>();
+        return this;
+    }
+
+    /**
+     * <p>
+     * Defines the namespace of the message processor to verify call
+     * </p>
+     *
+     * @param namespace <p>
+     *                  The namespace of the message processor to verify call
+     *                  </p>
+     * @return <p>
+     *         Itself
+     *         </p>
+     */
+    public MunitBatchVerifier ofNamespace(String namespace)
+    {
+        this.messageProcessorNamespace = namespace;
+        return this;
+    }
+
+    public MunitBatchVerifier withAttributes(Map<String, Object> attributes)
+    {
+        this.messageProcessorAttributes = attributes;
+        return this;
+    }
+
+    public MunitBatchVerifier withAttributes(Attribute... attributes)
+    {
+        Map<String, Object> mapOfAttributes = new HashMap<String, Object>();
+        for (Attribute attribute : attributes)
+        {
+            mapOfAttributes.put(attribute.getId(), attribute.getValue());
+        }
+        return withAttributes(mapOfAttributes);
+    }
+
+    /**
+     * <p>
+     * Expects the message processor to be called exactly the given times
+     * </p>
+     */
+    public MunitBatchVerifier times(Integer times)
+    {
+        return expect(times, times, "Expected " + times);
+    }
+
+    /**
+     * <p>
+     * Expects the message processor to be called at least the given times
+     * </p>
+     */
+    public MunitBatchVerifier atLeast(Integer atLeast)
+    {
+        return expect(atLeast, Long.MAX_VALUE, "Expected at least " + atLeast);
+    }
+
+    /**
+     * <p>
+     * Expects the message processor to be called at most the given times
+     * </p>
+     */
+    public MunitBatchVerifier atMost(Integer atMost)
+    {
+        return expect(0, atMost, "Expected at most " + atMost);
+    }
+
+    /**
+     * <p>
+     * Expects the message processor to be called
+     * </p>
+     */
+    public MunitBatchVerifier atLeastOnce()
+    {
+        return expect(1, Long.MAX_VALUE, "Expected at least 1");
+    }
+
+    /**
+     * <p>
+     * Checks all the expectations and forgets them.
+     * </p>
+     *
+     * @throws junit.framework.AssertionFailedError with every expectation that is not satisfied
+     */
+    public void verify()
+    {
+        List<MessageProcessorCallMatcher> matchers = new ArrayList<MessageProcessorCallMatcher>(expectations.size());
+        for (Expectation expectation : expectations)
+        {
+            matchers.add(expectation.matcher);
+        }
+
+        long[] executedCalls = getManager().countCallsFor(matchers);
+
+        StringBuilder failures = new StringBuilder();
+        for (int i = 0; i < expectations.size(); i++)
+        {
+            Expectation expectation = expectations.get(i);
+            if (executedCalls[i] < expectation.min || executedCalls[i] > expectation.max)
+            {
+                failures.append(failures.length() == 0 ? "" : "\n")
+                        .append("On ").append(expectation.fullName).append(".")
+                        .append(expectation.description).append(" but got ").append(executedCalls[i]).append(" calls");
+            }
+        }
+        expectations.clear();
+
+        if (failures.length() > 0)
+        {
+            fail(failures.toString());
+        }
+    }
+
+    private MunitBatchVerifier expect(long min, long max, String description)
+    {
+        checkValidQuery();
+        MessageProcessorCallMatcher matcher = MessageProcessorCallMatcher.compile(new MessageProcessorId(messageProcessorName, messageProcessorNamespace),
+                                                                                  messageProcessorAttributes);
+        expectations.add(new Expectation(matcher, getFullName(), min, max, description));
+        return this;
+    }
+
+    private static class Expectation
+    {
+
+        private final MessageProcessorCallMatcher matcher;
+        private final String fullName;
+        private final long min;
+        private final long max;
+        private final String description;
+
+        private Expectation(MessageProcessorCallMatcher matcher, String fullName, long min, long max, String description)
+        {
+            this.matcher = matcher;
+            this.fullName = fullName;
+            this.min = min;
+            this.max = max;
+            this.description = description;
+        }
+    }
+}
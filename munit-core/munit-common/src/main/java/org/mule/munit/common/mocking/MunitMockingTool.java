@@ -8,6 +8,7 @@ package org.mule.munit.common.mocking;
 
 
 import org.mule.api.MuleContext;
+import org.mule.munit.common.MunitRuntime;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
 
 import java.util.HashMap;
@@ -26,6 +27,13 @@ public class MunitMockingTool
 
     protected MuleContext muleContext;
 
+    /**
+     * <p>
+     * The Munit runtime of the mule context, resolved once when the tool is created
+     * </p>
+     */
+    protected MunitRuntime runtime;
+
     protected String messageProcessorName;
     protected String messageProcessorNamespace = "mule";
     protected Map<String, Object> messageProcessorAttributes = new HashMap<String, Object>();
@@ -33,6 +41,7 @@ public class MunitMockingTool
     public MunitMockingTool(MuleContext muleContext)
     {
         this.muleContext = muleContext;
+        this.runtime = MunitRuntime.of(muleContext);
     }
 
     protected void checkValidQuery()
@@ -45,7 +54,7 @@ public class MunitMockingTool
 
     protected MockedMessageProcessorManager getManager()
     {
-        return (MockedMessageProcessorManager) muleContext.getRegistry().lookupObject(MockedMessageProcessorManager.ID);
+        return runtime.currentMessageProcessorManager();
     }
 
     protected String getFullName()
@@ -32,6 +32,13 @@ import java.util.Map;
 public class MunitSpy extends MunitMockingTool
 {
 
+    /**
+     * <p>
+     * If true the spy processes are evaluated off the message processor call
+     * </p>
+     */
+    private boolean async;
+
     public MunitSpy(MuleContext muleContext)
     {
         super(muleContext);
@@ -94,6 +101,27 @@ public class MunitSpy extends MunitMockingTool
     }
 
 
+    /**
+     * <p>
+     * Defines if the spy processes defined after this call run asynchronously. Asynchronous spy processes get a copy
+     * of the event and are evaluated by a worker pool, so they do not add their cost to the flow. Their failures are
+     * reported when the test finishes. Only immutable payloads, like strings, numbers or byte arrays, are copied, the
+     * calls with any other payload, like maps, POJOs or streams, are still spied on the flow.
+     * </p>
+     *
+     * @param async <p>
+     *              True to run the spy processes asynchronously
+     *              </p>
+     * @return <p>
+     *         Itself
+     *         </p>
+     */
+    public MunitSpy async(boolean async)
+    {
+        this.async = async;
+        return this;
+    }
+
     /**
      * The {@link SpyProcess} to run before the message processor
      *
@@ -154,7 +182,7 @@ public class MunitSpy extends MunitMockingTool
 
     protected SpyAssertion createSpyAssertion(MessageProcessorCall call, List<SpyProcess> spyProcesses)
     {
-        return new SpyAssertion(call, createMessageProcessors(spyProcesses));
+        return new SpyAssertion(call, createMessageProcessors(spyProcesses), async);
     }
 
     private ArrayList<MessageProcessor> createMessageProcessors(List<SpyProcess> beforeCall)
@@ -8,11 +8,10 @@ package org.mule.munit.common.mocking;
 
 import static junit.framework.Assert.fail;
 import org.mule.api.MuleContext;
-import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
+import org.mule.munit.common.endpoint.MockEndpointManager;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -79,12 +78,12 @@ public class MunitVerifier extends MunitMockingTool
      */
     public void times(Integer times)
     {
-        List<MessageProcessorCall> executedCalls = getExecutedCalls();
+        long executedCalls = countExecutedCalls();
 
-        if (executedCalls.size() != times)
+        if (executedCalls != times)
         {
             fail("On " + getFullName() + ".Expected " + times +
-                 " but got " + executedCalls.size() + " calls");
+                 " but got " + executedCalls + " calls");
         }
     }
 
@@ -101,11 +100,11 @@ public class MunitVerifier extends MunitMockingTool
     {
         checkValidQuery();
 
-        List<MessageProcessorCall> executedCalls = getExecutedCalls();
+        long executedCalls = countExecutedCalls();
 
-        if (executedCalls.size() < atLeast)
+        if (executedCalls < atLeast)
         {
-            fail("On " + getFullName() + ".Expected at least " + atLeast + " but got " + executedCalls.size() + " calls");
+            fail("On " + getFullName() + ".Expected at least " + atLeast + " but got " + executedCalls + " calls");
         }
     }
 
@@ -121,11 +120,11 @@ public class MunitVerifier extends MunitMockingTool
     public void atMost(Integer atMost)
     {
         checkValidQuery();
-        List<MessageProcessorCall> executedCalls = getExecutedCalls();
+        long executedCalls = countExecutedCalls();
 
-        if (executedCalls.size() > atMost)
+        if (executedCalls > atMost)
         {
-            fail("On " + getFullName() + ".Expected at most " + atMost + " but got " + executedCalls.size() + " calls");
+            fail("On " + getFullName() + ".Expected at most " + atMost + " but got " + executedCalls + " calls");
         }
     }
 
@@ -137,18 +136,92 @@ public class MunitVerifier extends MunitMockingTool
     public void atLeastOnce()
     {
         checkValidQuery();
-        List<MessageProcessorCall> executedCalls = getExecutedCalls();
-        if (executedCalls.isEmpty())
+        if (countExecutedCalls() == 0)
         {
             fail("On " + getFullName() + ".It was never called");
         }
 
     }
 
-    private List<MessageProcessorCall> getExecutedCalls()
+    /**
+     * <p>
+     * The times the mocks of the message processor must have thrown their exception, see
+     * {@link MessageProcessorMocker#withFaults(FaultSchedule)}
+     * </p>
+     *
+     * @param times <p>
+     *              The times the exception must have been thrown
+     *              </p>
+     */
+    public void injectedFaults(Integer times)
+    {
+        checkValidQuery();
+        long injectedFaults = countInjectedFaults();
+
+        if (injectedFaults != times)
+        {
+            fail("On " + getFullName() + ".Expected " + times + " injected faults but got " + injectedFaults);
+        }
+    }
+
+    /**
+     * @return The calls of the mocks of the message processor that threw their exception
+     */
+    public long countInjectedFaults()
+    {
+        checkValidQuery();
+        return getManager().countInjectedFaults(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
+    }
+
+    /**
+     * @return The calls of the mocks of the message processor that went to the real one because of their fault
+     *         schedule
+     */
+    public long countFaultPasses()
+    {
+        checkValidQuery();
+        return getManager().countFaultPasses(new MessageProcessorId(messageProcessorName, messageProcessorNamespace));
+    }
+
+    /**
+     * @param address The address of the endpoint mocks, as it was given when they were defined
+     * @return The calls of the mocks of the outbound endpoint that threw their exception
+     */
+    public long countInjectedFaultsOfEndpoint(String address)
+    {
+        MockEndpointManager endpointManager = runtime.currentEndpointManager();
+        return endpointManager == null ? 0 : endpointManager.countInjectedFaults(address);
+    }
+
+    /**
+     * @param address The address of the endpoint mocks, as it was given when they were defined
+     * @return The calls of the mocks of the outbound endpoint that went to the real one because of their fault
+     *         schedule
+     */
+    public long countFaultPassesOfEndpoint(String address)
+    {
+        MockEndpointManager endpointManager = runtime.currentEndpointManager();
+        return endpointManager == null ? 0 : endpointManager.countFaultPasses(address);
+    }
+
+    /**
+     * <p>
+     * Creates a verifier that checks many expectations with a single read of the recorded calls
+     * </p>
+     *
+     * @return <p>
+     *         The batch verifier
+     *         </p>
+     */
+    public MunitBatchVerifier inBatch()
+    {
+        return new MunitBatchVerifier(muleContext);
+    }
+
+    private long countExecutedCalls()
     {
-        return getManager().findCallsFor(new MessageProcessorId(messageProcessorName,
-                                                                messageProcessorNamespace), messageProcessorAttributes);
+        return getManager().countCallsFor(new MessageProcessorId(messageProcessorName,
+                                                                 messageProcessorNamespace), messageProcessorAttributes);
     }
 
     public MunitVerifier withAttributes(Map<String, Object> attributes)
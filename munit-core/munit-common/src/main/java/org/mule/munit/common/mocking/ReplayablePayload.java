@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * Payload of a mocked response that is read from a resource instead of being held in memory. Each time the mock is
+ * hit the message gets a new {@link InputStream} over the resource, so big responses are not kept on the heap and the
+ * flow processes them through its streaming paths.
+ * </p>
+ * <p/>
+ * <p>Usage:</p>
+ * <p/>
+ * <code>
+ * new DefaultMuleMessage(ReplayablePayload.from("classpath:responses/big.json"), muleContext);
+ * </code>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public abstract class ReplayablePayload
+{
+
+    public static final String CLASSPATH_PREFIX = "classpath:";
+    public static final String FILE_PREFIX = "file:";
+    public static final String MAPPED_FILE_PREFIX = "mapped:";
+
+    /**
+     * <p>
+     * Builds a payload from a location: <code>classpath:</code> for classpath resources, <code>file:</code> for
+     * files streamed on each hit and <code>mapped:</code> for memory mapped files. A location without prefix is a file
+     * if it exists, or a classpath resource otherwise.
+     * </p>
+     *
+     * @param location The location of the payload
+     * @return The payload
+     */
+    public static ReplayablePayload from(String location)
+    {
+        if (location.startsWith(CLASSPATH_PREFIX))
+        {
+            return fromClasspath(location.substring(CLASSPATH_PREFIX.length()));
+        }
+        if (location.startsWith(FILE_PREFIX))
+        {
+            return fromFile(new File(location.substring(FILE_PREFIX.length())));
+        }
+        if (location.startsWith(MAPPED_FILE_PREFIX))
+        {
+            return fromMappedFile(new File(location.substring(MAPPED_FILE_PREFIX.length())));
+        }
+        File file = new File(location);
+        return file.isFile() ? fromFile(file) : fromClasspath(location);
+    }
+
+    /**
+     * @param resource The classpath resource
+     * @return A payload that opens the classpath resource on each hit
+     */
+    public static ReplayablePayload fromClasspath(String resource)
+    {
+        String name = resource.startsWith("/") ? resource.substring(1) : resource;
+        URL url = getClassLoader().getResource(name);
+        if (url == null)
+        {
+            throw new IllegalArgumentException("The classpath resource " + resource + " does not exist");
+        }
+        return new UrlPayload(url);
+    }
+
+    /**
+     * @param file The file
+     * @return A payload that opens the file on each hit
+     */
+    public static ReplayablePayload fromFile(File file)
+    {
+        checkFile(file);
+        return new FilePayload(file);
+    }
+
+    /**
+     * <p>
+     * The file is mapped once and each hit reads the mapped pages, which live outside the heap.
+     * </p>
+     *
+     * @param file The file
+     * @return A payload that reads the memory mapped file on each hit
+     */
+    public static ReplayablePayload fromMappedFile(File file)
+    {
+        checkFile(file);
+        return new MappedFilePayload(file);
+    }
+
+    /**
+     * @return A new stream over the payload
+     */
+    public abstract InputStream open() throws IOException;
+
+    /**
+     * <p>
+     * Opens the payload for a mock hit.
+     * </p>
+     *
+     * @return A new stream over the payload
+     * @throws IllegalStateException if the resource can not be read
+     */
+    public InputStream openForHit()
+    {
+        try
+        {
+            return open();
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("The mocked payload " + this + " could not be read", e);
+        }
+    }
+
+    private static void checkFile(File file)
+    {
+        if (!file.isFile())
+        {
+            throw new IllegalArgumentException("The file " + file.getAbsolutePath() + " does not exist");
+        }
+    }
+
+    private static ClassLoader getClassLoader()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : ReplayablePayload.class.getClassLoader();
+    }
+
+    private static class UrlPayload extends ReplayablePayload
+    {
+
+        private final URL url;
+
+        private UrlPayload(URL url)
+        {
+            this.url = url;
+        }
+
+        @Override
+        public InputStream open() throws IOException
+        {
+            return url.openStream();
+        }
+
+        @Override
+        public String toString()
+        {
+            return url.toString();
+        }
+    }
+
+    private static class FilePayload extends ReplayablePayload
+    {
+
+        private final File file;
+
+        private FilePayload(File file)
+        {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream open() throws IOException
+        {
+            return new FileInputStream(file);
+        }
+
+        @Override
+        public String toString()
+        {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static class MappedFilePayload extends ReplayablePayload
+    {
+
+        private final File file;
+        private volatile MappedByteBuffer buffer;
+
+        private MappedFilePayload(File file)
+        {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream open() throws IOException
+        {
+            return new ByteBufferInputStream(getBuffer().duplicate());
+        }
+
+        private MappedByteBuffer getBuffer() throws IOException
+        {
+            MappedByteBuffer mapped = buffer;
+            if (mapped == null)
+            {
+                synchronized (this)
+                {
+                    mapped = buffer;
+                    if (mapped == null)
+                    {
+                        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                        try
+                        {
+                            FileChannel channel = randomAccessFile.getChannel();
+                            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                            buffer = mapped;
+                        }
+                        finally
+                        {
+                            randomAccessFile.close();
+                        }
+                    }
+                }
+            }
+            return mapped;
+        }
+
+        @Override
+        public String toString()
+        {
+            return MAPPED_FILE_PREFIX + file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * <p>
+     * Stream over a buffer, each hit reads its own duplicate of the mapped buffer.
+     * </p>
+     */
+    private static class ByteBufferInputStream extends InputStream
+    {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+            if (!buffer.hasRemaining())
+            {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+}
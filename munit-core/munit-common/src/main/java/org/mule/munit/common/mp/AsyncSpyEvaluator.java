@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.munit.common.MunitUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Evaluates asynchronous spy assertions off the thread of the message processor call, so they do not add their cost
+ * to the latency of the flow.
+ * </p>
+ * <p/>
+ * <p>
+ * Assertions are evaluated by a worker pool shared by all the managers, fed by a bounded queue. When the queue is
+ * full the calling thread waits for room up to the timeout, and if there is still none the assertion is reported as
+ * a failure, it is never evaluated by the calling thread. Failures are kept until {@link #verify()} reports them, once
+ * the test finished.
+ * </p>
+ * <p/>
+ * <p>
+ * The assertions get a snapshot of the event, see {@link EventSnapshot}. Only immutable payloads, like strings,
+ * numbers or byte arrays, which are copied, are evaluated asynchronously. Any other payload, like a map, a collection,
+ * a POJO or a stream, could be changed or consumed by the flow while the assertion reads it, so the assertion runs
+ * synchronously on the flow thread, see {@link #canEvaluate(MuleEvent)}.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class AsyncSpyEvaluator
+{
+
+    /**
+     * <p>
+     * System property with the number of workers of the shared pool
+     * </p>
+     */
+    public static final String THREADS_PROPERTY = "munit.spy.async.threads";
+
+    /**
+     * <p>
+     * System property with the number of assertions that can wait for a worker
+     * </p>
+     */
+    public static final String QUEUE_SIZE_PROPERTY = "munit.spy.async.queueSize";
+
+    /**
+     * <p>
+     * System property with the milliseconds to wait for the pending assertions when the test finishes
+     * </p>
+     */
+    public static final String TIMEOUT_PROPERTY = "munit.spy.async.timeout";
+
+    public static final int DEFAULT_THREADS = 2;
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    private static volatile Executor sharedExecutor;
+
+    private final Executor executor;
+
+    private final long timeoutMillis;
+
+    private final Object lock = new Object();
+
+    /**
+     * <p>
+     * The assertions submitted and not evaluated yet, guarded by the lock
+     * </p>
+     */
+    private int pending;
+
+    /**
+     * <p>
+     * The failures not reported yet, guarded by the lock
+     * </p>
+     */
+    private final List<String> failures = new ArrayList<String>();
+
+    private Throwable firstFailure;
+
+    public AsyncSpyEvaluator()
+    {
+        this(null, Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * @param executor      The executor of the assertions, if null the shared pool is used
+     * @param timeoutMillis The milliseconds to wait for the pending assertions
+     */
+    public AsyncSpyEvaluator(Executor executor, long timeoutMillis)
+    {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * <p>
+     * Queues the evaluation of a spy assertion.
+     * </p>
+     *
+     * @param description The message processor and moment of the assertion, used to report its failures
+     * @param assertions  The spy message processors
+     * @param snapshot    A copy of the event taken when the message processor was called, the flow must not use it
+     */
+    public void submit(final String description, final List<MessageProcessor> assertions, final MuleEvent snapshot)
+    {
+        synchronized (lock)
+        {
+            pending++;
+        }
+
+        try
+        {
+            getExecutor().execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Throwable failure = null;
+                    try
+                    {
+                        MunitUtils.verifyAssertions(snapshot, assertions);
+                    }
+                    catch (Throwable t)
+                    {
+                        failure = t;
+                    }
+                    finished(description, failure);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            finished(description, new AssertionError("the assertion was not evaluated, the queue of asynchronous spy assertions is full"));
+        }
+    }
+
+    /**
+     * <p>
+     * Checks if a spy assertion on the event can be evaluated asynchronously, that is, if the payload is immutable
+     * and a snapshot of the event can be taken.
+     * </p>
+     *
+     * @param event The event of the message processor call
+     * @return true if the payload can be read by an asynchronous assertion
+     */
+    public static boolean canEvaluate(MuleEvent event)
+    {
+        return EventSnapshot.canTake(event);
+    }
+
+    /**
+     * <p>
+     * Waits for the pending assertions and reports their failures. The failures are forgotten once reported.
+     * </p>
+     *
+     * @throws AssertionError if an assertion failed or did not finish in time
+     */
+    public void verify()
+    {
+        synchronized (lock)
+        {
+            int unfinished = awaitPending();
+            List<String> messages = new ArrayList<String>(failures);
+            if (unfinished > 0)
+            {
+                messages.add(unfinished + " asynchronous spy assertions did not finish in " + timeoutMillis + " ms");
+            }
+            Throwable cause = firstFailure;
+            failures.clear();
+            firstFailure = null;
+
+            if (!messages.isEmpty())
+            {
+                StringBuilder message = new StringBuilder("Asynchronous spy assertions failed:");
+                for (String failure : messages)
+                {
+                    message.append("\n - ").append(failure);
+                }
+                AssertionError error = new AssertionError(message.toString());
+                if (cause != null)
+                {
+                    error.initCause(cause);
+                }
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Waits for the pending assertions and forgets their failures.
+     * </p>
+     */
+    public void clear()
+    {
+        synchronized (lock)
+        {
+            awaitPending();
+            failures.clear();
+            firstFailure = null;
+        }
+    }
+
+    /**
+     * @return The assertions that are not evaluated yet
+     */
+    public int getPending()
+    {
+        synchronized (lock)
+        {
+            return pending;
+        }
+    }
+
+    private void finished(String description, Throwable failure)
+    {
+        synchronized (lock)
+        {
+            pending--;
+            if (failure != null)
+            {
+                Throwable reported = failure instanceof RuntimeException && failure.getCause() != null ? failure.getCause() : failure;
+                failures.add(description + ": " + reported.getMessage());
+                if (firstFailure == null)
+                {
+                    firstFailure = reported;
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return The assertions still pending after the timeout
+     */
+    private int awaitPending()
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (pending > 0 && remaining > 0)
+        {
+            try
+            {
+                lock.wait(remaining);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return pending;
+    }
+
+    private Executor getExecutor()
+    {
+        if (executor != null)
+        {
+            return executor;
+        }
+
+        Executor current = sharedExecutor;
+        if (current == null)
+        {
+            synchronized (AsyncSpyEvaluator.class)
+            {
+                current = sharedExecutor;
+                if (current == null)
+                {
+                    current = createSharedExecutor();
+                    sharedExecutor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Executor createSharedExecutor()
+    {
+        int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS));
+        int queueSize = Math.max(1, Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                                         new ArrayBlockingQueue<Runnable>(queueSize),
+                                                         new SpyThreadFactory(),
+                                                         new WaitForRoomPolicy(Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT)));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * <p>
+     * Makes the calling thread wait for room in the queue, and rejects the assertion if there is none in time
+     * </p>
+     */
+    private static class WaitForRoomPolicy implements RejectedExecutionHandler
+    {
+
+        private final long timeoutMillis;
+
+        private WaitForRoomPolicy(long timeoutMillis)
+        {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+        {
+            try
+            {
+                if (!executor.isShutdown() && executor.getQueue().offer(runnable, timeoutMillis, TimeUnit.MILLISECONDS))
+                {
+                    return;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            throw new RejectedExecutionException("The queue of asynchronous spy assertions is full");
+        }
+    }
+
+    private static class SpyThreadFactory implements ThreadFactory
+    {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "munit.spy." + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+/**
+ * <p>
+ * Defines how the {@link MockedMessageProcessorManager} records the message processor calls.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public enum CallRecordingMode
+{
+    /**
+     * <p>
+     * Every call is recorded with its attributes, so it can be verified with attribute matchers.
+     * </p>
+     */
+    FULL,
+
+    /**
+     * <p>
+     * Only the number of calls of each message processor is recorded, plus a bounded sample of the last calls.
+     * Use it for long running tests that push many events through a flow.
+     * </p>
+     */
+    COUNT_ONLY
+}
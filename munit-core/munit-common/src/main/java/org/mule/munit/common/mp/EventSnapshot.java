@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.api.MuleEvent;
+import org.mule.transport.NullPayload;
+
+/**
+ * <p>
+ * Copies of an event that can be read after the event goes on through the flow, to evaluate expressions or spy
+ * assertions later or in another thread.
+ * </p>
+ * <p/>
+ * <p>
+ * The copy has its own message and variables, but their values are the same objects as in the event. A snapshot is
+ * only taken when the payload is known to be immutable: null, strings, numbers, booleans, characters, enums or
+ * {@link NullPayload}. Byte arrays are copied. Any other payload, like a map, a collection, a POJO or a stream, can
+ * be changed by the flow after the snapshot, so the event has to be read at call time instead.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public final class EventSnapshot
+{
+
+    private EventSnapshot()
+    {
+    }
+
+    /**
+     * @param event The event to copy, can be null
+     * @return true if the event can be read later through a snapshot
+     */
+    public static boolean canTake(MuleEvent event)
+    {
+        if (event == null || event.getMessage() == null)
+        {
+            return true;
+        }
+
+        Object payload = event.getMessage().getPayload();
+        return payload == null
+               || payload instanceof String
+               || payload instanceof Number
+               || payload instanceof Boolean
+               || payload instanceof Character
+               || payload instanceof Enum
+               || payload instanceof NullPayload
+               || payload instanceof byte[];
+    }
+
+    /**
+     * <p>
+     * Copies the event. It must only be called if {@link #canTake(MuleEvent)} is true.
+     * </p>
+     *
+     * @param event The event to copy, can be null
+     * @return The copy of the event, null if the event is null
+     */
+    public static MuleEvent take(MuleEvent event)
+    {
+        if (event == null)
+        {
+            return null;
+        }
+
+        MuleEvent snapshot = DefaultMuleEvent.copy(event);
+        if (snapshot.getMessage() != null && snapshot.getMessage().getPayload() instanceof byte[])
+        {
+            snapshot.getMessage().setPayload(((byte[]) snapshot.getMessage().getPayload()).clone());
+        }
+        return snapshot;
+    }
+}
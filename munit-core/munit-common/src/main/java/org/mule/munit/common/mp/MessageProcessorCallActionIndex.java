@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.modules.interceptor.processors.MessageProcessorCall;
+import org.mule.modules.interceptor.processors.MessageProcessorCallAction;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * Index of {@link MessageProcessorCallAction}s (behaviors and spy assertions) by {@link MessageProcessorId}.
+ * </p>
+ * <p/>
+ * <p>
+ * The attribute matchers of each action are compiled when the action is registered. Looking up the best matching
+ * action only evaluates the actions of the called message processor, so the cost does not grow with the number of
+ * mocks of the test.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallActionIndex<T extends MessageProcessorCallAction>
+{
+
+    /**
+     * <p>
+     * The registered actions, in registration order, indexed by message processor Id
+     * </p>
+     */
+    private final ConcurrentMap<MessageProcessorId, List<IndexedAction<T>>> actions = new ConcurrentHashMap<MessageProcessorId, List<IndexedAction<T>>>();
+
+    /**
+     * <p>
+     * Adds an action to the index. Actions without a message processor call can never be matched so they are
+     * not indexed.
+     * </p>
+     *
+     * @param action The action to index
+     */
+    public void add(T action)
+    {
+        MessageProcessorCall messageProcessorCall = action == null ? null : action.getMessageProcessorCall();
+        if (messageProcessorCall == null || messageProcessorCall.getMessageProcessorId() == null)
+        {
+            return;
+        }
+
+        MessageProcessorId id = messageProcessorCall.getMessageProcessorId();
+        List<IndexedAction<T>> indexedActions = actions.get(id);
+        if (indexedActions == null)
+        {
+            List<IndexedAction<T>> newActions = new CopyOnWriteArrayList<IndexedAction<T>>();
+            indexedActions = actions.putIfAbsent(id, newActions);
+            if (indexedActions == null)
+            {
+                indexedActions = newActions;
+            }
+        }
+        indexedActions.add(new IndexedAction<T>(action, MessageProcessorCallMatcher.compile(messageProcessorCall)));
+    }
+
+    /**
+     * <p>
+     * Gets the action that best matches the call. On equal weights the last registered action wins.
+     * </p>
+     *
+     * @param messageProcessorCall The executed call
+     * @return The best matching action or null if none matches
+     */
+    public T getBetterMatchingAction(MessageProcessorCall messageProcessorCall)
+    {
+        MessageProcessorId id = messageProcessorCall.getMessageProcessorId();
+        if (id == null)
+        {
+            return null;
+        }
+
+        List<IndexedAction<T>> candidates = actions.get(id);
+        if (candidates == null)
+        {
+            return null;
+        }
+
+        T bestMatchingAction = null;
+        int bestMatchingWeight = 0;
+        for (IndexedAction<T> candidate : candidates)
+        {
+            int matchingWeight = candidate.matcher.matchingWeight(messageProcessorCall.getAttributes());
+            if (matchingWeight >= bestMatchingWeight)
+            {
+                bestMatchingAction = candidate.action;
+                bestMatchingWeight = matchingWeight;
+            }
+        }
+        return bestMatchingAction;
+    }
+
+    /**
+     * @param id The message processor Id
+     * @return true if there is at least one action registered for the message processor
+     */
+    public boolean contains(MessageProcessorId id)
+    {
+        return id != null && actions.containsKey(id);
+    }
+
+    public boolean isEmpty()
+    {
+        return actions.isEmpty();
+    }
+
+    public void clear()
+    {
+        actions.clear();
+    }
+
+    private static class IndexedAction<T>
+    {
+
+        private final T action;
+        private final MessageProcessorCallMatcher matcher;
+
+        private IndexedAction(T action, MessageProcessorCallMatcher matcher)
+        {
+            this.action = action;
+            this.matcher = matcher;
+        }
+    }
+}
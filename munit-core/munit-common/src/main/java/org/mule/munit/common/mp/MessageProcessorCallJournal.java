@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Append only journal of the message processor calls. Appending does not lock: every writer reserves a slot with an
+ * atomic cursor and publishes the call in it. The slots are stored in chunks that double their size, so the journal
+ * never copies nor moves the recorded calls.
+ * </p>
+ * <p/>
+ * <p>
+ * Reads are done over snapshots. A snapshot is a read only view of the calls that were completely published when it
+ * was taken, it does not copy them. Calls that are still being written by other threads when the snapshot is taken
+ * are not part of it.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallJournal<T> implements Iterable<T>
+{
+
+    /**
+     * <p>
+     * Size of the first chunk, each chunk doubles the size of the previous one
+     * </p>
+     */
+    private static final int FIRST_CHUNK_SIZE = 64;
+
+    /**
+     * <p>
+     * Number of chunks needed to address every positive int index
+     * </p>
+     */
+    private static final int MAX_CHUNKS = 26;
+
+    /**
+     * <p>
+     * The current content of the journal. It is replaced on {@link #clear()} so writers never see a half
+     * cleared journal.
+     * </p>
+     */
+    private volatile State<T> state = new State<T>();
+
+    /**
+     * <p>
+     * Appends a call to the journal.
+     * </p>
+     *
+     * @param call The call to record, null values are ignored
+     */
+    public void add(T call)
+    {
+        if (call == null)
+        {
+            return;
+        }
+
+        State<T> current = state;
+        int index = current.cursor.getAndIncrement();
+        if (index < 0)
+        {
+            throw new IllegalStateException("The call journal is full");
+        }
+        current.chunkFor(index, true).set(offsetOf(index), call);
+    }
+
+    /**
+     * <p>
+     * Takes a snapshot of the published calls.
+     * </p>
+     *
+     * @return A read only view of the calls, in recording order
+     */
+    public List<T> snapshot()
+    {
+        State<T> current = state;
+        return new Snapshot<T>(current, current.publishedCount());
+    }
+
+    public Iterator<T> iterator()
+    {
+        return snapshot().iterator();
+    }
+
+    public int size()
+    {
+        return state.publishedCount();
+    }
+
+    public boolean isEmpty()
+    {
+        return state.cursor.get() == 0;
+    }
+
+    /**
+     * <p>
+     * Removes all the calls. Snapshots taken before clearing keep their content.
+     * </p>
+     */
+    public void clear()
+    {
+        state = new State<T>();
+    }
+
+    private static int chunkOf(int index)
+    {
+        return 31 - Integer.numberOfLeadingZeros(index / FIRST_CHUNK_SIZE + 1);
+    }
+
+    private static int offsetOf(int index)
+    {
+        return index - FIRST_CHUNK_SIZE * ((1 << chunkOf(index)) - 1);
+    }
+
+    private static class State<T>
+    {
+
+        private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks = new AtomicReferenceArray<AtomicReferenceArray<T>>(MAX_CHUNKS);
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        /**
+         * <p>
+         * Hint of the number of slots that are known to be published, so snapshots do not scan the
+         * whole journal every time
+         * </p>
+         */
+        private final AtomicInteger published = new AtomicInteger();
+
+        private AtomicReferenceArray<T> chunkFor(int index, boolean create)
+        {
+            int chunk = chunkOf(index);
+            AtomicReferenceArray<T> slots = chunks.get(chunk);
+            if (slots == null && create)
+            {
+                chunks.compareAndSet(chunk, null, new AtomicReferenceArray<T>(FIRST_CHUNK_SIZE << chunk));
+                slots = chunks.get(chunk);
+            }
+            return slots;
+        }
+
+        private T get(int index)
+        {
+            AtomicReferenceArray<T> slots = chunkFor(index, false);
+            return slots == null ? null : slots.get(offsetOf(index));
+        }
+
+        private int publishedCount()
+        {
+            int reserved = cursor.get();
+            int known = published.get();
+            int count = known;
+            while (count < reserved && get(count) != null)
+            {
+                count++;
+            }
+            if (count > known)
+            {
+                published.compareAndSet(known, count);
+            }
+            return count;
+        }
+    }
+
+    private static class Snapshot<T> extends AbstractList<T> implements RandomAccess
+    {
+
+        private final State<T> state;
+        private final int size;
+
+        private Snapshot(State<T> state, int size)
+        {
+            this.state = state;
+            this.size = size;
+        }
+
+        @Override
+        public T get(int index)
+        {
+            if (index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return state.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
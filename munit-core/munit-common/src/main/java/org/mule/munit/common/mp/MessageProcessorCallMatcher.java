@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.modules.interceptor.matchers.EqMatcher;
+import org.mule.modules.interceptor.matchers.Matcher;
+import org.mule.modules.interceptor.matchers.NullMatcher;
+import org.mule.modules.interceptor.processors.MessageProcessorCall;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Compiled version of the attribute matchers of a {@link MessageProcessorCall}. The attributes are turned into
+ * {@link Matcher}s once, so matching a call does not need to iterate over a map nor check value types.
+ * </p>
+ * <p/>
+ * <p>
+ * Attributes that are not {@link Matcher}s are compared by equality, as
+ * {@link MessageProcessorCall#matchingWeight(MessageProcessorCall)} does.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallMatcher
+{
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final Matcher[] NO_MATCHERS = new Matcher[0];
+
+    /**
+     * <p>
+     * The message processor that must be called
+     * </p>
+     */
+    private final MessageProcessorId messageProcessorId;
+
+    /**
+     * <p>
+     * The attribute names, in the same order as {@link #matchers}
+     * </p>
+     */
+    private final String[] attributeNames;
+
+    /**
+     * <p>
+     * The matcher of each attribute
+     * </p>
+     */
+    private final Matcher[] matchers;
+
+    private MessageProcessorCallMatcher(MessageProcessorId messageProcessorId, String[] attributeNames, Matcher[] matchers)
+    {
+        this.messageProcessorId = messageProcessorId;
+        this.attributeNames = attributeNames;
+        this.matchers = matchers;
+    }
+
+    /**
+     * <p>
+     * Compiles the attributes of a call.
+     * </p>
+     *
+     * @param messageProcessorCall The call that defines the message processor and its attribute matchers
+     * @return The compiled matcher
+     */
+    public static MessageProcessorCallMatcher compile(MessageProcessorCall messageProcessorCall)
+    {
+        return compile(messageProcessorCall.getMessageProcessorId(), messageProcessorCall.getAttributes());
+    }
+
+    /**
+     * <p>
+     * Compiles a set of attribute matchers for a message processor.
+     * </p>
+     *
+     * @param messageProcessorId The message processor Id
+     * @param attributes         The attributes the message processor must match, it can be null
+     * @return The compiled matcher
+     */
+    public static MessageProcessorCallMatcher compile(MessageProcessorId messageProcessorId, Map<String, Object> attributes)
+    {
+        if (attributes == null || attributes.isEmpty())
+        {
+            return new MessageProcessorCallMatcher(messageProcessorId, NO_NAMES, NO_MATCHERS);
+        }
+
+        String[] names = new String[attributes.size()];
+        Matcher[] matchers = new Matcher[attributes.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> attribute : attributes.entrySet())
+        {
+            names[i] = attribute.getKey();
+            matchers[i] = toMatcher(attribute.getValue());
+            i++;
+        }
+        return new MessageProcessorCallMatcher(messageProcessorId, names, matchers);
+    }
+
+    private static Matcher toMatcher(Object value)
+    {
+        if (value instanceof Matcher)
+        {
+            return (Matcher) value;
+        }
+        if (value == null)
+        {
+            return new NullMatcher();
+        }
+        return new EqMatcher(value);
+    }
+
+    /**
+     * <p>
+     * Calculates how well a call matches. The more attributes are matched the heavier the call is.
+     * </p>
+     *
+     * @param messageProcessorCall The executed call
+     * @return The number of matched attributes, or -1 if the call does not match
+     */
+    public int matchingWeight(MessageProcessorCall messageProcessorCall)
+    {
+        if (messageProcessorId == null || !messageProcessorId.equals(messageProcessorCall.getMessageProcessorId()))
+        {
+            return -1;
+        }
+        return matchingWeight(messageProcessorCall.getAttributes());
+    }
+
+    /**
+     * <p>
+     * Same as {@link #matchingWeight(MessageProcessorCall)} but it does not check the message processor Id. Used when
+     * the caller already knows that the Id matches.
+     * </p>
+     *
+     * @param attributes The attributes of the executed call
+     * @return The number of matched attributes, or -1 if the attributes do not match
+     */
+    @SuppressWarnings("unchecked")
+    public int matchingWeight(Map<String, Object> attributes)
+    {
+        for (int i = 0; i < matchers.length; i++)
+        {
+            Object value = attributes == null ? null : attributes.get(attributeNames[i]);
+            if (!matchers[i].match(value))
+            {
+                return -1;
+            }
+        }
+        return matchers.length;
+    }
+
+    /**
+     * @return true if the calls must match some attributes, not only the message processor Id
+     */
+    public boolean hasAttributeMatchers()
+    {
+        return matchers.length > 0;
+    }
+
+    public MessageProcessorId getMessageProcessorId()
+    {
+        return messageProcessorId;
+    }
+}
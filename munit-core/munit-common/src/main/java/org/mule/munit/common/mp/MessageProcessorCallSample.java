@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Bounded sample of the last recorded calls. When the sample is full the oldest call is overwritten, so the memory
+ * used does not depend on the number of calls.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallSample<T>
+{
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public MessageProcessorCallSample(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("The sample capacity must be greater than zero");
+        }
+        this.slots = new AtomicReferenceArray<T>(capacity);
+    }
+
+    public void add(T call)
+    {
+        long index = cursor.getAndIncrement();
+        slots.set((int) (index % slots.length()), call);
+    }
+
+    /**
+     * @return The sampled calls, from the oldest to the newest one
+     */
+    public List<T> snapshot()
+    {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<T> calls = new ArrayList<T>((int) (end - start));
+        for (long i = start; i < end; i++)
+        {
+            T call = slots.get((int) (i % slots.length()));
+            if (call != null)
+            {
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    public int capacity()
+    {
+        return slots.length();
+    }
+}
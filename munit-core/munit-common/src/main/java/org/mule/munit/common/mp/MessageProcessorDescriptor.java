@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+/**
+ * <p>
+ * The static data of an intercepted message processor: its Id and where it is written down. It is created once per
+ * message processor and shared by all its recorded calls.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public final class MessageProcessorDescriptor
+{
+
+    private final MessageProcessorId messageProcessorId;
+    private final String fileName;
+    private final int lineNumber;
+
+    public MessageProcessorDescriptor(MessageProcessorId messageProcessorId, String fileName, int lineNumber)
+    {
+        this.messageProcessorId = messageProcessorId;
+        this.fileName = fileName == null ? null : fileName.intern();
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * <p>
+     * Creates a descriptor from the line number attribute added by the Munit parser.
+     * </p>
+     *
+     * @param messageProcessorId The message processor Id
+     * @param fileName           The name of the file where the message processor is written down
+     * @param lineNumber         The line number, it can be null
+     * @return The descriptor, with line number 0 if the line number is not a number
+     */
+    public static MessageProcessorDescriptor of(MessageProcessorId messageProcessorId, String fileName, String lineNumber)
+    {
+        return new MessageProcessorDescriptor(messageProcessorId, fileName, parseLineNumber(lineNumber));
+    }
+
+    public MessageProcessorId getMessageProcessorId()
+    {
+        return messageProcessorId;
+    }
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    private static int parseLineNumber(String lineNumber)
+    {
+        if (lineNumber == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return Integer.parseInt(lineNumber.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+}
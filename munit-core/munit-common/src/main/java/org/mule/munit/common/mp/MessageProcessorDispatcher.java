@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.api.MuleEvent;
+import org.mule.processor.AbstractInterceptingMessageProcessorBase;
+
+import java.lang.reflect.Method;
+
+import net.sf.cglib.asm.Type;
+import net.sf.cglib.core.Signature;
+import net.sf.cglib.proxy.MethodProxy;
+
+/**
+ * <p>
+ * Resolved methods of a proxy class. The processNext method is looked up and made accessible once per class, when
+ * the dispatcher is built, instead of once per call.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorDispatcher
+{
+
+    private static final String PROCESS_NEXT = "processNext";
+
+    private static final Signature PROCESS_NEXT_SIGNATURE = new Signature(PROCESS_NEXT, Type.getType(MuleEvent.class),
+                                                                          new Type[] {Type.getType(MuleEvent.class)});
+
+    private final Class<?> proxyClass;
+
+    /**
+     * <p>
+     * The processNext method proxy, null if the proxy class does not intercept it
+     * </p>
+     */
+    private final MethodProxy processNextProxy;
+
+    /**
+     * <p>
+     * The processNext method, used when there is no method proxy for it
+     * </p>
+     */
+    private final Method processNextMethod;
+
+    public MessageProcessorDispatcher(Class<?> proxyClass)
+    {
+        this.proxyClass = proxyClass;
+        this.processNextProxy = findMethodProxy();
+        this.processNextMethod = processNextProxy == null ? findProcessNextMethod() : null;
+    }
+
+    /**
+     * <p>
+     * Calls the processNext method of an intercepting message processor.
+     * </p>
+     *
+     * @param obj   The intercepting message processor, an instance of the proxy class
+     * @param event The event to send to the next message processor
+     * @return The result of the next message processor
+     */
+    public Object processNext(Object obj, MuleEvent event) throws Throwable
+    {
+        if (processNextProxy != null)
+        {
+            return processNextProxy.invoke(obj, new Object[] {event});
+        }
+        return processNextMethod.invoke(obj, event);
+    }
+
+    public Class<?> getProxyClass()
+    {
+        return proxyClass;
+    }
+
+    private static Method findProcessNextMethod()
+    {
+        try
+        {
+            Method method = AbstractInterceptingMessageProcessorBase.class.getDeclaredMethod(PROCESS_NEXT, MuleEvent.class);
+            method.setAccessible(true);
+            return method;
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new IllegalStateException("The " + PROCESS_NEXT + " method of intercepting message processors was not found", e);
+        }
+    }
+
+    /**
+     * <p>
+     * The processNext method proxy. Classes that are not CGLIB proxies, like the ones woven by the Munit agent, have
+     * none.
+     * </p>
+     */
+    private MethodProxy findMethodProxy()
+    {
+        try
+        {
+            return MethodProxy.find(proxyClass, PROCESS_NEXT_SIGNATURE);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+}
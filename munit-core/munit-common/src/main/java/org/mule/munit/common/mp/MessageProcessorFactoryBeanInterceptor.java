@@ -8,13 +8,11 @@ package org.mule.munit.common.mp;
 
 import org.mule.api.processor.MessageProcessor;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodProxy;
-import org.objenesis.ObjenesisStd;
 
 /**
  * <p/>
@@ -28,7 +26,22 @@ import org.objenesis.ObjenesisStd;
 public class MessageProcessorFactoryBeanInterceptor extends AbstractMunitMessageProcessorInterceptor
 {
 
-    private ObjenesisStd objenesis = new ObjenesisStd();
+    /**
+     * <p>
+     * The cache of the wrapper proxy classes
+     * </p>
+     */
+    private final MunitProxyClassCache proxyClassCache;
+
+    public MessageProcessorFactoryBeanInterceptor()
+    {
+        this(new MunitProxyClassCache());
+    }
+
+    public MessageProcessorFactoryBeanInterceptor(MunitProxyClassCache proxyClassCache)
+    {
+        this.proxyClassCache = proxyClassCache;
+    }
 
     @Override
     public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable
@@ -39,22 +52,16 @@ public class MessageProcessorFactoryBeanInterceptor extends AbstractMunitMessage
         {
             if ( MessageProcessor.class.isAssignableFrom(o.getClass()) && !Enhancer.isEnhanced(o.getClass()))
             {
+                Class<?> proxyClass = proxyClassCache.getProxyClass(o.getClass(), MunitProxyClassCache.ProxyKind.WRAPPER);
+
                 MunitMessageProcessorInterceptor callback = new WrapperMunitMessageProcessorInterceptor((MessageProcessor) o);
                 callback.setId(id);
                 callback.setAttributes(attributes);
                 callback.setFileName(fileName);
                 callback.setLineNumber(lineNumber);
+                callback.setDispatcher(proxyClassCache.getDispatcher(proxyClass));
 
-
-                Enhancer e = new Enhancer();
-                e.setSuperclass(o.getClass());
-                e.setInterceptDuringConstruction(true);
-                e.setUseCache(false);
-                e.setAttemptLoad(true);
-                e.setNamingPolicy(new MunitNamingPolicy());
-                e.setCallbackTypes(new Class[] {WrapperMunitMessageProcessorInterceptor.class});
-
-                return createProxy(e.createClass(), callback);
+                return proxyClassCache.newInstanceWithoutConstructor(proxyClass, new Callback[] {callback});
 
             }
             else
@@ -74,15 +81,4 @@ public class MessageProcessorFactoryBeanInterceptor extends AbstractMunitMessage
         return null;
     }
 
-    private Object createProxy(Class<?> proxyClass, Callback interceptor) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException
-    {
-        Object proxy = objenesis.newInstance(proxyClass);
-
-        proxy.getClass().getDeclaredMethod("setCallbacks",
-                                           new Callback[0].getClass()).invoke(proxy,
-                                                                              new Object[] {
-                                                                                      new Callback[] {interceptor}});
-        return proxy;
-    }
-
 }
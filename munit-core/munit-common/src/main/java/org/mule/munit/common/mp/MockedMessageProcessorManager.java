@@ -6,14 +6,27 @@
  */
 package org.mule.munit.common.mp;
 
+import org.mule.modules.interceptor.processors.MessageProcessorBehavior;
 import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.modules.interceptor.processors.MessageProcessorManager;
+import org.mule.munit.common.mocking.Bulkhead;
+import org.mule.munit.common.mocking.BulkheadRegistry;
+import org.mule.munit.common.mocking.FaultScheduleRegistry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -29,12 +42,80 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
 
     public static String ID = "_muleMockMpManager";
 
+    private static final Log logger = LogFactory.getLog(MockedMessageProcessorManager.class);
+
+    /**
+     * <p>
+     * Number of full calls kept when the calls are recorded in {@link CallRecordingMode#COUNT_ONLY} mode
+     * </p>
+     */
+    public static final int CALL_SAMPLE_SIZE = 100;
+
+    /**
+     * <p>
+     * These are the real calls of the message processors. Calls are appended without locking so message
+     * processors running in parallel do not contend while recording.
+     * </p>
+     */
+    protected MessageProcessorCallJournal<MunitMessageProcessorCall> calls = new MessageProcessorCallJournal<MunitMessageProcessorCall>();
+
+    /**
+     * <p>
+     * The same calls as {@link #calls}, indexed by message processor, so verifying a message processor does not read
+     * the calls of the others
+     * </p>
+     */
+    protected ConcurrentMap<MessageProcessorId, MessageProcessorCallJournal<MunitMessageProcessorCall>> callsById = new ConcurrentHashMap<MessageProcessorId, MessageProcessorCallJournal<MunitMessageProcessorCall>>();
+
+    /**
+     * <p>
+     * The number of calls of each message processor, recorded in every mode
+     * </p>
+     */
+    protected ConcurrentMap<MessageProcessorId, StripedCounter> callCounters = new ConcurrentHashMap<MessageProcessorId, StripedCounter>();
+
+    /**
+     * <p>
+     * The last calls, used instead of {@link #calls} in {@link CallRecordingMode#COUNT_ONLY} mode
+     * </p>
+     */
+    protected volatile MessageProcessorCallSample<MunitMessageProcessorCall> callSample = new MessageProcessorCallSample<MunitMessageProcessorCall>(CALL_SAMPLE_SIZE);
+
+    /**
+     * <p>
+     * Incremented each time a behavior or a spy assertion is added or removed, so the interceptors know when
+     * their cached {@link #isPassthrough(MessageProcessorId)} result is stale
+     * </p>
+     */
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * <p>
-     * These are the real calls of the message processors.
+     * The recording mode of the suite, restored on each {@link #reset()}
      * </p>
      */
-    protected List<MunitMessageProcessorCall> calls = new LinkedList<MunitMessageProcessorCall>();
+    private volatile CallRecordingMode defaultRecordingMode = CallRecordingMode.FULL;
+
+    /**
+     * <p>
+     * The recording mode of the running test
+     * </p>
+     */
+    private volatile CallRecordingMode recordingMode = CallRecordingMode.FULL;
+
+    /**
+     * <p>
+     * The message processors, as <code>namespace:name</code>, that the interception rules of the suite left out
+     * </p>
+     */
+    private volatile Set<String> notInterceptedMessageProcessors = Collections.emptySet();
+
+    /**
+     * <p>
+     * The message processors that were already reported as not intercepted
+     * </p>
+     */
+    private final ConcurrentMap<String, Boolean> reportedNotIntercepted = new ConcurrentHashMap<String, Boolean>();
 
 
     /**
@@ -53,15 +134,139 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
 
     /**
      * <p>
-     * Reset all the status
+     * The behaviors indexed by message processor Id, used to find the best matching behavior of a call
+     * </p>
+     */
+    protected MessageProcessorCallActionIndex<MessageProcessorBehavior> behaviorIndex = new MessageProcessorCallActionIndex<MessageProcessorBehavior>();
+
+    /**
+     * <p>
+     * The before call spy assertions indexed by message processor Id
+     * </p>
+     */
+    protected MessageProcessorCallActionIndex<SpyAssertion> beforeCallSpyAssertionIndex = new MessageProcessorCallActionIndex<SpyAssertion>();
+
+    /**
+     * <p>
+     * The after call spy assertions indexed by message processor Id
+     * </p>
+     */
+    protected MessageProcessorCallActionIndex<SpyAssertion> afterCallSpyAssertionIndex = new MessageProcessorCallActionIndex<SpyAssertion>();
+
+    /**
+     * <p>
+     * The managers of the open execution scopes, indexed by execution Id
+     * </p>
+     */
+    private final ConcurrentMap<String, MockedMessageProcessorManager> executionScopes = new ConcurrentHashMap<String, MockedMessageProcessorManager>();
+
+    /**
+     * <p>
+     * The bulkheads of the behaviors, reported on each {@link #reset()}
+     * </p>
+     */
+    protected BulkheadRegistry bulkheads = new BulkheadRegistry();
+
+    /**
+     * <p>
+     * The fault schedules of the behaviors, indexed by message processor until {@link #reset()}
+     * </p>
+     */
+    protected FaultScheduleRegistry faults = new FaultScheduleRegistry();
+
+    /**
+     * <p>
+     * The evaluator of the asynchronous spy assertions, its failures are reported by
+     * {@link #verifyAsyncSpyAssertions()}
+     * </p>
+     */
+    protected AsyncSpyEvaluator asyncSpies = new AsyncSpyEvaluator();
+
+    /**
+     * <p>
+     * Opens an execution scope. The scope has its own behaviors, spy assertions and calls, and starts with the
+     * recording mode of this manager.
+     * </p>
+     *
+     * @param executionId The execution Id
+     * @return The manager of the execution scope
+     */
+    public MockedMessageProcessorManager openExecutionScope(String executionId)
+    {
+        MockedMessageProcessorManager scope = new MockedMessageProcessorManager();
+        scope.setDefaultRecordingMode(defaultRecordingMode);
+        scope.setNotInterceptedMessageProcessors(notInterceptedMessageProcessors);
+        MockedMessageProcessorManager existing = executionScopes.putIfAbsent(executionId, scope);
+        return existing != null ? existing : scope;
+    }
+
+    /**
+     * <p>
+     * Closes an execution scope, discarding its state.
+     * </p>
+     *
+     * @param executionId The execution Id
+     */
+    public void closeExecutionScope(String executionId)
+    {
+        executionScopes.remove(executionId);
+    }
+
+    /**
+     * @return True if there is any open execution scope
+     */
+    public boolean hasExecutionScopes()
+    {
+        return !executionScopes.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Gets the manager of an execution scope.
+     * </p>
+     *
+     * @param executionId The execution Id, can be null
+     * @return The manager of the execution scope, or this manager if the scope is not open
+     */
+    public MockedMessageProcessorManager forExecution(String executionId)
+    {
+        if (executionId == null)
+        {
+            return this;
+        }
+        MockedMessageProcessorManager scope = executionScopes.get(executionId);
+        return scope != null ? scope : this;
+    }
+
+    /**
+     * <p>
+     * Reset all the status. The recording mode goes back to the default one. The execution scopes are reset by
+     * their own managers. The pending asynchronous spy assertions are awaited and their failures discarded.
      * </p>
      */
     public void reset()
     {
+        // Waits out of the lock, the spy assertions may call intercepted message processors
+        asyncSpies.clear();
+        resetState();
+    }
+
+    private synchronized void resetState()
+    {
+        bulkheads.reportAndClear();
+        faults.clear();
         behaviors.clear();
         calls.clear();
+        callsById.clear();
+        callCounters.clear();
+        callSample = new MessageProcessorCallSample<MunitMessageProcessorCall>(CALL_SAMPLE_SIZE);
+        recordingMode = defaultRecordingMode;
         beforeCallSpyAssertions.clear();
         afterCallSpyAssertions.clear();
+        behaviorIndex.clear();
+        beforeCallSpyAssertionIndex.clear();
+        afterCallSpyAssertionIndex.clear();
+        generation.incrementAndGet();
     }
 
     /**
@@ -75,10 +280,10 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
      */
     public List<MessageProcessorCall> findCallsFor(MessageProcessorId mpId, Map<String, Object> attributesMatchers)
     {
+        warnIfNotIntercepted(mpId);
         List<MessageProcessorCall> expected = new ArrayList<MessageProcessorCall>();
-        MessageProcessorCall matchingCall = new MessageProcessorCall(mpId);
-        matchingCall.setAttributes(attributesMatchers);
-        for (MessageProcessorCall call : calls)
+        MessageProcessorCallMatcher matchingCall = MessageProcessorCallMatcher.compile(mpId, attributesMatchers);
+        for (MessageProcessorCall call : getCallsOf(mpId))
         {
             if (matchingCall.matchingWeight(call) >= 0)
             {
@@ -88,6 +293,123 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
         return expected;
     }
 
+    /**
+     * <p>
+     * Counts the executed calls of many expectations at once. Expectations without attributes are taken from the
+     * call counters, and the calls of each message processor with attribute expectations are read only once.
+     * </p>
+     *
+     * @param matchers The expected calls
+     * @return The number of calls of each expectation, in the same order
+     * @throws IllegalStateException if there are attribute matchers and the calls are recorded in
+     *                               {@link CallRecordingMode#COUNT_ONLY} mode
+     */
+    public long[] countCallsFor(List<MessageProcessorCallMatcher> matchers)
+    {
+        long[] counts = new long[matchers.size()];
+        Map<MessageProcessorId, List<Integer>> byId = new LinkedHashMap<MessageProcessorId, List<Integer>>();
+        for (int i = 0; i < matchers.size(); i++)
+        {
+            MessageProcessorCallMatcher matcher = matchers.get(i);
+            MessageProcessorId mpId = matcher.getMessageProcessorId();
+            if (mpId == null)
+            {
+                continue;
+            }
+            warnIfNotIntercepted(mpId);
+
+            if (!matcher.hasAttributeMatchers())
+            {
+                StripedCounter counter = callCounters.get(mpId);
+                counts[i] = counter == null ? 0 : counter.get();
+                continue;
+            }
+
+            if (recordingMode == CallRecordingMode.COUNT_ONLY)
+            {
+                throw new IllegalStateException("The calls of " + mpId.getFullName() + " are recorded in "
+                                                + CallRecordingMode.COUNT_ONLY + " mode, they cannot be verified with attributes");
+            }
+            List<Integer> indexes = byId.get(mpId);
+            if (indexes == null)
+            {
+                indexes = new ArrayList<Integer>();
+                byId.put(mpId, indexes);
+            }
+            indexes.add(i);
+        }
+
+        for (Map.Entry<MessageProcessorId, List<Integer>> entry : byId.entrySet())
+        {
+            for (MunitMessageProcessorCall call : getCallsOf(entry.getKey()))
+            {
+                Map<String, Object> attributes = call.getAttributes();
+                for (Integer index : entry.getValue())
+                {
+                    if (matchers.get(index).matchingWeight(attributes) >= 0)
+                    {
+                        counts[index]++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * <p>
+     * Gets the recorded calls of a message processor, in execution order. In {@link CallRecordingMode#COUNT_ONLY}
+     * mode only the sampled calls are returned.
+     * </p>
+     */
+    private List<MunitMessageProcessorCall> getCallsOf(MessageProcessorId mpId)
+    {
+        if (recordingMode == CallRecordingMode.COUNT_ONLY)
+        {
+            List<MunitMessageProcessorCall> sampled = new ArrayList<MunitMessageProcessorCall>();
+            for (MunitMessageProcessorCall call : callSample.snapshot())
+            {
+                if (mpId != null && mpId.equals(call.getMessageProcessorId()))
+                {
+                    sampled.add(call);
+                }
+            }
+            return sampled;
+        }
+
+        MessageProcessorCallJournal<MunitMessageProcessorCall> journal = mpId == null ? null : callsById.get(mpId);
+        return journal == null ? Collections.<MunitMessageProcessorCall>emptyList() : journal.snapshot();
+    }
+
+    /**
+     * <p>
+     * Counts the executed calls for a message processor that satisfies the attribute matchers. When there are no
+     * attribute matchers the result is taken from the call counters, so it is available in every recording mode.
+     * </p>
+     *
+     * @param mpId               The Message processor Id
+     * @param attributesMatchers The attributes that the message processor must match
+     * @return The number of calls
+     * @throws IllegalStateException if there are attribute matchers and the calls are recorded in
+     *                               {@link CallRecordingMode#COUNT_ONLY} mode
+     */
+    public long countCallsFor(MessageProcessorId mpId, Map<String, Object> attributesMatchers)
+    {
+        warnIfNotIntercepted(mpId);
+        if (attributesMatchers == null || attributesMatchers.isEmpty())
+        {
+            StripedCounter counter = callCounters.get(mpId);
+            return counter == null ? 0 : counter.get();
+        }
+
+        if (recordingMode == CallRecordingMode.COUNT_ONLY)
+        {
+            throw new IllegalStateException("The calls of " + mpId.getFullName() + " are recorded in "
+                                            + CallRecordingMode.COUNT_ONLY + " mode, they cannot be verified with attributes");
+        }
+        return findCallsFor(mpId, attributesMatchers).size();
+    }
+
     /**
      * <p>
      * Gets the best matching Before Spy assertion.
@@ -98,7 +420,7 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
      */
     public SpyAssertion getBetterMatchingBeforeSpyAssertion(MessageProcessorCall messageProcessorCall)
     {
-        return getBetterMatchingAction(messageProcessorCall, beforeCallSpyAssertions);
+        return beforeCallSpyAssertionIndex.getBetterMatchingAction(messageProcessorCall);
     }
 
 
@@ -112,26 +434,301 @@ public class MockedMessageProcessorManager extends MessageProcessorManager
      */
     public SpyAssertion getBetterMatchingAfterSpyAssertion(MessageProcessorCall messageProcessorCall)
     {
-        return getBetterMatchingAction(messageProcessorCall, afterCallSpyAssertions);
+        return afterCallSpyAssertionIndex.getBetterMatchingAction(messageProcessorCall);
+    }
+
+    /**
+     * <p>
+     * Gets the best matching behavior. Only the behaviors of the called message processor are evaluated.
+     * </p>
+     *
+     * @param messageProcessorCall The comparing call
+     * @return The best matching behavior
+     */
+    @Override
+    public MessageProcessorBehavior getBetterMatchingBehavior(MessageProcessorCall messageProcessorCall)
+    {
+        return behaviorIndex.getBetterMatchingAction(messageProcessorCall);
+    }
+
+    @Override
+    public synchronized void addBehavior(MessageProcessorBehavior behavior)
+    {
+        super.addBehavior(behavior);
+        behaviorIndex.add(behavior);
+        generation.incrementAndGet();
+        warnIfNotIntercepted(behavior.getMessageProcessorCall());
+
+        if (behavior instanceof MunitMessageProcessorBehavior)
+        {
+            MunitMessageProcessorBehavior munitBehavior = (MunitMessageProcessorBehavior) behavior;
+            MessageProcessorId id = behavior.getMessageProcessorCall() == null ? null : behavior.getMessageProcessorCall().getMessageProcessorId();
+            if (munitBehavior.getBulkhead() != null)
+            {
+                bulkheads.register(nameOf(id), munitBehavior.getBulkhead());
+            }
+            if (munitBehavior.getFaults() != null)
+            {
+                faults.register(nameOf(id), munitBehavior.getFaults());
+            }
+        }
+    }
+
+    private void warnIfNotIntercepted(MessageProcessorCall messageProcessorCall)
+    {
+        if (messageProcessorCall != null)
+        {
+            warnIfNotIntercepted(messageProcessorCall.getMessageProcessorId());
+        }
     }
 
-    public synchronized void addCall(MunitMessageProcessorCall call)
+    /**
+     * <p>
+     * Logs, once per message processor, that a mock, spy or verification targets a message processor that is not
+     * intercepted, so it will never match a call
+     * </p>
+     */
+    private void warnIfNotIntercepted(MessageProcessorId id)
     {
-        calls.add(call);
+        if (id == null || notInterceptedMessageProcessors.isEmpty())
+        {
+            return;
+        }
+
+        String name = nameOf(id);
+        if (notInterceptedMessageProcessors.contains(name) && reportedNotIntercepted.putIfAbsent(name, Boolean.TRUE) == null)
+        {
+            logger.warn("The message processor " + name + " is not intercepted by the interception rules of the suite, "
+                        + "it can not be mocked, spied nor verified");
+        }
+    }
+
+    private static String nameOf(MessageProcessorId id)
+    {
+        return id == null ? "unknown" : id.getNamespace() + ":" + id.getName();
+    }
+
+    /**
+     * @return The statistics of the bulkheads of the behaviors, indexed by <code>namespace:name</code> of their
+     *         message processor, the statistics of the bulkheads of the same message processor are added up
+     */
+    public Map<String, Bulkhead.Statistics> getBulkheadStatistics()
+    {
+        return bulkheads.getStatistics();
+    }
+
+    public AsyncSpyEvaluator getAsyncSpyEvaluator()
+    {
+        return asyncSpies;
+    }
+
+    /**
+     * <p>
+     * Waits for the asynchronous spy assertions of the test and reports their failures.
+     * </p>
+     *
+     * @throws AssertionError if an assertion failed or did not finish in time
+     */
+    public void verifyAsyncSpyAssertions()
+    {
+        asyncSpies.verify();
+    }
+
+    /**
+     * @param mpId The message processor Id
+     * @return The calls of the mocks of the message processor that threw their exception
+     */
+    public long countInjectedFaults(MessageProcessorId mpId)
+    {
+        return faults.countInjectedFaults(nameOf(mpId));
+    }
+
+    /**
+     * @param mpId The message processor Id
+     * @return The calls of the mocks of the message processor that went to the real one
+     */
+    public long countFaultPasses(MessageProcessorId mpId)
+    {
+        return faults.countPasses(nameOf(mpId));
+    }
+
+    public void addCall(MunitMessageProcessorCall call)
+    {
+        countCall(call);
+        if (recordingMode == CallRecordingMode.COUNT_ONLY)
+        {
+            callSample.add(call);
+        }
+        else
+        {
+            calls.add(call);
+            indexCall(call);
+        }
+    }
+
+    private void indexCall(MunitMessageProcessorCall call)
+    {
+        MessageProcessorId id = call.getMessageProcessorId();
+        if (id == null)
+        {
+            return;
+        }
+
+        MessageProcessorCallJournal<MunitMessageProcessorCall> journal = callsById.get(id);
+        if (journal == null)
+        {
+            MessageProcessorCallJournal<MunitMessageProcessorCall> newJournal = new MessageProcessorCallJournal<MunitMessageProcessorCall>();
+            journal = callsById.putIfAbsent(id, newJournal);
+            if (journal == null)
+            {
+                journal = newJournal;
+            }
+        }
+        journal.add(call);
+    }
+
+    private void countCall(MunitMessageProcessorCall call)
+    {
+        MessageProcessorId id = call.getMessageProcessorId();
+        if (id == null)
+        {
+            return;
+        }
+
+        StripedCounter counter = callCounters.get(id);
+        if (counter == null)
+        {
+            StripedCounter newCounter = new StripedCounter();
+            counter = callCounters.putIfAbsent(id, newCounter);
+            if (counter == null)
+            {
+                counter = newCounter;
+            }
+        }
+        counter.increment();
     }
 
     public synchronized void addBeforeCallSpyAssertion(SpyAssertion spyAssertion)
     {
         beforeCallSpyAssertions.add(spyAssertion);
+        beforeCallSpyAssertionIndex.add(spyAssertion);
+        generation.incrementAndGet();
+        warnIfNotIntercepted(spyAssertion.getMessageProcessorCall());
     }
 
     public synchronized void addAfterCallSpyAssertion(SpyAssertion spyAssertion)
     {
         afterCallSpyAssertions.add(spyAssertion);
+        afterCallSpyAssertionIndex.add(spyAssertion);
+        generation.incrementAndGet();
+        warnIfNotIntercepted(spyAssertion.getMessageProcessorCall());
     }
 
+    /**
+     * <p>
+     * Checks if the calls of a message processor can go straight to the real message processor, that is, there is
+     * no behavior nor spy assertion registered for it. The calls are still recorded, but their expression attributes
+     * are only evaluated if they are read, unless the payload can not be kept, see {@link EventSnapshot}.
+     * </p>
+     *
+     * @param id The message processor Id
+     * @return true if nothing can match the calls of the message processor
+     */
+    public boolean isPassthrough(MessageProcessorId id)
+    {
+        return !behaviorIndex.contains(id)
+               && !beforeCallSpyAssertionIndex.contains(id)
+               && !afterCallSpyAssertionIndex.contains(id);
+    }
+
+    /**
+     * @return The current generation of the registered behaviors and spy assertions
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * <p>
+     * Gets the recorded calls. The returned list is a read only snapshot, it is not modified by calls recorded
+     * after this method returns. In {@link CallRecordingMode#COUNT_ONLY} mode only the sampled calls are returned.
+     * </p>
+     *
+     * @return The recorded calls in execution order
+     */
     public List<MunitMessageProcessorCall> getCalls()
     {
-        return new LinkedList<MunitMessageProcessorCall>(calls);
+        if (recordingMode == CallRecordingMode.COUNT_ONLY)
+        {
+            return callSample.snapshot();
+        }
+        return calls.snapshot();
+    }
+
+    /**
+     * <p>
+     * Gets the last recorded calls, the frames of the Mule stack trace. Only the requested calls are read, so the
+     * cost does not depend on the number of recorded calls.
+     * </p>
+     *
+     * @param maxDepth The maximum number of calls, if it is not positive every recorded call is returned
+     * @return The last calls, from the newest to the oldest one
+     */
+    public List<MunitMessageProcessorCall> getRecentCalls(int maxDepth)
+    {
+        List<MunitMessageProcessorCall> recorded = getCalls();
+        int size = recorded.size();
+        int depth = maxDepth > 0 ? Math.min(maxDepth, size) : size;
+
+        List<MunitMessageProcessorCall> recent = new ArrayList<MunitMessageProcessorCall>(depth);
+        for (int i = size - 1; i >= size - depth; i--)
+        {
+            recent.add(recorded.get(i));
+        }
+        return recent;
+    }
+
+    /**
+     * <p>
+     * Sets the recording mode of the suite. It is also applied to the running test.
+     * </p>
+     *
+     * @param defaultRecordingMode The recording mode used by every test that does not define its own
+     */
+    public void setDefaultRecordingMode(CallRecordingMode defaultRecordingMode)
+    {
+        this.defaultRecordingMode = defaultRecordingMode;
+        this.recordingMode = defaultRecordingMode;
+    }
+
+    /**
+     * <p>
+     * Sets the recording mode of the running test, until the next {@link #reset()}.
+     * </p>
+     *
+     * @param recordingMode The recording mode
+     */
+    public void setRecordingMode(CallRecordingMode recordingMode)
+    {
+        this.recordingMode = recordingMode;
+    }
+
+    /**
+     * <p>
+     * Sets the message processors that are not intercepted, the mocks, spies and verifications that target them are
+     * reported.
+     * </p>
+     *
+     * @param notInterceptedMessageProcessors The message processors, as <code>namespace:name</code>
+     */
+    public void setNotInterceptedMessageProcessors(Set<String> notInterceptedMessageProcessors)
+    {
+        this.notInterceptedMessageProcessors = notInterceptedMessageProcessors == null ? Collections.<String>emptySet() : notInterceptedMessageProcessors;
+    }
+
+    public CallRecordingMode getRecordingMode()
+    {
+        return recordingMode;
     }
 }
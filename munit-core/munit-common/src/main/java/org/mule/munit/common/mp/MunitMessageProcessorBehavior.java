@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.api.MuleException;
+import org.mule.modules.interceptor.processors.MessageProcessorBehavior;
+import org.mule.modules.interceptor.processors.MessageProcessorCall;
+import org.mule.modules.interceptor.processors.MuleMessageTransformer;
+import org.mule.munit.common.mocking.Bulkhead;
+import org.mule.munit.common.mocking.FaultSchedule;
+import org.mule.munit.common.mocking.LatencyDistribution;
+
+/**
+ * <p>
+ * {@link MessageProcessorBehavior} that simulates the load of a real backend: it takes some time before returning
+ * its message or throwing its exception, it can serve a limited number of calls at a time, and it can throw its
+ * exception only on some calls.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitMessageProcessorBehavior extends MessageProcessorBehavior
+{
+
+    private final LatencyDistribution latency;
+
+    private final Bulkhead bulkhead;
+
+    private final FaultSchedule faults;
+
+    public MunitMessageProcessorBehavior(MessageProcessorCall messageProcessorCall, MuleMessageTransformer muleMessageTransformer,
+                                         LatencyDistribution latency, Bulkhead bulkhead)
+    {
+        super(messageProcessorCall, muleMessageTransformer);
+        this.latency = latency;
+        this.bulkhead = bulkhead;
+        this.faults = null;
+    }
+
+    public MunitMessageProcessorBehavior(MessageProcessorCall messageProcessorCall, Throwable exception,
+                                         LatencyDistribution latency, Bulkhead bulkhead)
+    {
+        this(messageProcessorCall, exception, latency, bulkhead, null);
+    }
+
+    public MunitMessageProcessorBehavior(MessageProcessorCall messageProcessorCall, Throwable exception,
+                                         LatencyDistribution latency, Bulkhead bulkhead, FaultSchedule faults)
+    {
+        super(messageProcessorCall, exception);
+        this.latency = latency;
+        this.bulkhead = bulkhead;
+        this.faults = faults;
+    }
+
+    /**
+     * @return The latency, null if the behavior responds immediately
+     */
+    public LatencyDistribution getLatency()
+    {
+        return latency;
+    }
+
+    /**
+     * @return The bulkhead, null if the behavior serves any number of calls at a time
+     */
+    public Bulkhead getBulkhead()
+    {
+        return bulkhead;
+    }
+
+    /**
+     * @return The fault schedule, null if the exception is thrown on every call
+     */
+    public FaultSchedule getFaults()
+    {
+        return faults;
+    }
+
+    /**
+     * <p>
+     * Decides if the mock handles the next call. It does unless its fault schedule lets the call go to the real
+     * message processor.
+     * </p>
+     *
+     * @return true if the mock handles the call
+     */
+    public boolean appliesToNextCall()
+    {
+        return faults == null || faults.nextCallFails();
+    }
+
+    /**
+     * <p>
+     * Starts a call: takes a bulkhead slot and waits for the latency. If this method returns normally
+     * {@link #end()} must be called once the mocked response is built.
+     * </p>
+     *
+     * @throws MuleException if the bulkhead does not accept the call
+     */
+    public void begin() throws MuleException
+    {
+        if (bulkhead != null)
+        {
+            bulkhead.enter();
+        }
+        if (latency != null)
+        {
+            latency.delay();
+        }
+    }
+
+    /**
+     * <p>
+     * Ends a call, freeing its bulkhead slot.
+     * </p>
+     */
+    public void end()
+    {
+        if (bulkhead != null)
+        {
+            bulkhead.exit();
+        }
+    }
+}
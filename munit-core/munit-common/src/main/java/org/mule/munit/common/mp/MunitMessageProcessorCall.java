@@ -9,10 +9,22 @@ package org.mule.munit.common.mp;
 import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 
+import java.util.Map;
+
 /**
  * <p>
  * Representation of the message processor call for Munit
  * </p>
+ * <p/>
+ * <p>
+ * The attributes of a recorded call can be given by an {@link AttributesResolver}. In that case they are evaluated the
+ * first time they are read and kept afterwards.
+ * </p>
+ * <p/>
+ * <p>
+ * The message processor Id, file name and line number are held by a {@link MessageProcessorDescriptor} shared by all
+ * the calls of the same message processor.
+ * </p>
  *
  * @author Mulesoft Inc.
  * @since 3.4
@@ -20,32 +32,138 @@ import org.mule.modules.interceptor.processors.MessageProcessorId;
 public class MunitMessageProcessorCall extends MessageProcessorCall
 {
 
-    private String fileName;
-    private String lineNumber;
+    /**
+     * <p>
+     * Evaluates the attributes of the call when they are read
+     * </p>
+     */
+    public interface AttributesResolver
+    {
+
+        Map<String, Object> resolve();
+    }
+
+    private volatile MessageProcessorDescriptor descriptor;
+
+    /**
+     * <p>
+     * When the call was recorded, in milliseconds
+     * </p>
+     */
+    private final long timestamp;
+
+    /**
+     * <p>
+     * The pending attribute evaluation, null once the attributes are known
+     * </p>
+     */
+    private volatile AttributesResolver attributesResolver;
 
     public MunitMessageProcessorCall(MessageProcessorId messageProcessorId)
     {
-        super(messageProcessorId);
+        this(new MessageProcessorDescriptor(messageProcessorId, null, 0));
+    }
+
+    public MunitMessageProcessorCall(MessageProcessorDescriptor descriptor)
+    {
+        super(descriptor.getMessageProcessorId());
+        this.descriptor = descriptor;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes()
+    {
+        if (attributesResolver != null)
+        {
+            resolveAttributes();
+        }
+        return super.getAttributes();
+    }
+
+    @Override
+    public void setAttributes(Map<String, Object> attributes)
+    {
+        synchronized (this)
+        {
+            super.setAttributes(attributes);
+            attributesResolver = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Sets the attributes to be evaluated the first time they are read. The resolver is kept until then, so it must
+     * not depend on state that changes after the call, like the event that goes on through the flow.
+     * </p>
+     *
+     * @param attributesResolver The attributes evaluation
+     */
+    public void setAttributesResolver(AttributesResolver attributesResolver)
+    {
+        this.attributesResolver = attributesResolver;
+    }
+
+    /**
+     * @return true if the attributes were not evaluated yet
+     */
+    public boolean hasPendingAttributes()
+    {
+        return attributesResolver != null;
+    }
+
+    private synchronized void resolveAttributes()
+    {
+        AttributesResolver resolver = attributesResolver;
+        if (resolver != null)
+        {
+            super.setAttributes(resolver.resolve());
+            attributesResolver = null;
+        }
     }
 
 
     public void setFileName(String fileName)
     {
-        this.fileName = fileName;
+        MessageProcessorDescriptor current = descriptor;
+        descriptor = new MessageProcessorDescriptor(current.getMessageProcessorId(), fileName, current.getLineNumber());
     }
 
     public String getFileName()
     {
-        return fileName;
+        return descriptor.getFileName();
     }
 
     public void setLineNumber(String lineNumber)
     {
-        this.lineNumber = lineNumber;
+        MessageProcessorDescriptor current = descriptor;
+        descriptor = MessageProcessorDescriptor.of(current.getMessageProcessorId(), current.getFileName(), lineNumber);
     }
 
+    /**
+     * @return The line number, null if it is unknown
+     */
     public String getLineNumber()
     {
-        return lineNumber;
+        int lineNumber = descriptor.getLineNumber();
+        return lineNumber == 0 ? null : String.valueOf(lineNumber);
+    }
+
+    /**
+     * @return The line number, 0 if it is unknown
+     */
+    public int getLine()
+    {
+        return descriptor.getLineNumber();
+    }
+
+    public MessageProcessorDescriptor getDescriptor()
+    {
+        return descriptor;
+    }
+
+    public long getTimestamp()
+    {
+        return timestamp;
     }
 }
@@ -6,19 +6,24 @@
  */
 package org.mule.munit.common.mp;
 
-import net.sf.cglib.asm.Type;
-import net.sf.cglib.core.Signature;
 import net.sf.cglib.proxy.MethodProxy;
 import org.mule.DefaultMuleEvent;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
+import org.mule.api.expression.ExpressionManager;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.modules.interceptor.processors.AbstractMessageProcessorInterceptor;
 import org.mule.modules.interceptor.processors.MessageProcessorBehavior;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+import org.mule.munit.common.MunitExecution;
+import org.mule.munit.common.MunitRuntime;
 import org.mule.munit.common.MunitUtils;
 import org.mule.processor.AbstractInterceptingMessageProcessorBase;
 
-import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 
 /**
  * <p>
@@ -32,38 +37,119 @@ public class MunitMessageProcessorInterceptor extends AbstractMessageProcessorIn
     private String fileName;
     private String lineNumber;
 
+    /**
+     * <p>
+     * Cached result of {@link MockedMessageProcessorManager#isPassthrough}, valid while the manager generation
+     * does not change
+     * </p>
+     */
+    private volatile PassthroughState passthroughState;
+
+    /**
+     * <p>
+     * The Munit runtime of the last processed event's mule context
+     * </p>
+     */
+    private volatile MunitRuntime runtime;
+
+    /**
+     * <p>
+     * The resolved methods of the proxy class
+     * </p>
+     */
+    private volatile MessageProcessorDispatcher dispatcher;
+
+    /**
+     * <p>
+     * The static data of the message processor shared by its calls
+     * </p>
+     */
+    private volatile MessageProcessorDescriptor descriptor;
+
+    /**
+     * <p>
+     * The attributes of the message processor as they are written in the configuration
+     * </p>
+     */
+    private volatile Map<String, String> attributeDefinitions;
+
+    /**
+     * <p>
+     * The attributes of every call when none of them is an expression, null until the first call
+     * </p>
+     */
+    private volatile AttributesState attributesState;
+
     public Object process(Object obj, Object[] args, MethodProxy proxy) throws Throwable {
 
         MuleEvent originalEvent = (MuleEvent) args[0];
-        MuleEvent event = DefaultMuleEvent.copy(originalEvent);
+        MockedMessageProcessorManager manager = getMockedMessageProcessorManager(originalEvent.getMuleContext());
+        if (manager.hasExecutionScopes()) {
+            manager = manager.forExecution(MunitExecution.idOf(originalEvent));
+        }
 
-        MockedMessageProcessorManager manager = getMockedMessageProcessorManager(event.getMuleContext());
+        if (isPassthrough(manager)) {
+            registerCall(manager, buildCall(manager, originalEvent));
+            return invokeSuper(obj, args, proxy);
+        }
 
-        MunitMessageProcessorCall messageProcessorCall = buildCall(event);
-        runSpyAssertion(manager.getBetterMatchingBeforeSpyAssertion(messageProcessorCall), event);
+        MuleEvent event = DefaultMuleEvent.copy(originalEvent);
+        MunitMessageProcessorCall messageProcessorCall = buildCall(manager, event);
+        runSpyAssertion(manager, manager.getBetterMatchingBeforeSpyAssertion(messageProcessorCall), "before", event);
 
         registerCall(manager, messageProcessorCall);
         MessageProcessorBehavior behavior = manager.getBetterMatchingBehavior(messageProcessorCall);
+        MunitMessageProcessorBehavior munitBehavior = behavior instanceof MunitMessageProcessorBehavior ? (MunitMessageProcessorBehavior) behavior : null;
+        if (munitBehavior != null && !munitBehavior.appliesToNextCall()) {
+            behavior = null;
+        }
+
         if (behavior != null) {
-            if (behavior.getExceptionToThrow() != null) {
-                runSpyAssertion(manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), event);
-                throw behavior.getExceptionToThrow();
+            if (munitBehavior != null) {
+                munitBehavior.begin();
             }
 
-            if (behavior.getMuleMessageTransformer() != null) {
-                event.setMessage(behavior.getMuleMessageTransformer().transform(event.getMessage()));
+            try {
+                if (behavior.getExceptionToThrow() != null) {
+                    runSpyAssertion(manager, manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), "after", event);
+                    throw behavior.getExceptionToThrow();
+                }
+
+                if (behavior.getMuleMessageTransformer() != null) {
+                    event.setMessage(behavior.getMuleMessageTransformer().transform(event.getMessage()));
+                }
+            } finally {
+                if (munitBehavior != null) {
+                    munitBehavior.end();
+                }
             }
 
-            runSpyAssertion(manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), event);
+            runSpyAssertion(manager, manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), "after", event);
 
             return handleInterceptingMessageProcessors(obj, event);
         }
 
         Object o = invokeSuper(obj, args, proxy);
-        runSpyAssertion(manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), (MuleEvent) o);
+        runSpyAssertion(manager, manager.getBetterMatchingAfterSpyAssertion(messageProcessorCall), "after", (MuleEvent) o);
         return o;
     }
 
+    /**
+     * <p>
+     * Checks if there is nothing registered that could match a call of this message processor. The answer is cached
+     * until the manager registers or removes a behavior or a spy assertion.
+     * </p>
+     */
+    private boolean isPassthrough(MockedMessageProcessorManager manager) {
+        long generation = manager.getGeneration();
+        PassthroughState state = passthroughState;
+        if (state == null || state.manager != manager || state.generation != generation) {
+            state = new PassthroughState(manager, generation, manager.isPassthrough(id));
+            passthroughState = state;
+        }
+        return state.passthrough;
+    }
+
     protected Object handleInterceptingMessageProcessors(Object obj, MuleEvent event) throws Throwable {
         if (AbstractInterceptingMessageProcessorBase.class.isAssignableFrom(obj.getClass())) {
             return processNext(obj, event);
@@ -73,23 +159,25 @@ public class MunitMessageProcessorInterceptor extends AbstractMessageProcessorIn
     }
 
     protected Object processNext(Object obj, MuleEvent event) throws Throwable {
+        return getDispatcher(obj).processNext(obj, event);
+    }
 
-        String methodName = "processNext";
-        Class returnType = MuleEvent.class;
-        Class argumentType = MuleEvent.class;
-
-        Type[] argumentTypes = {Type.getType(argumentType)};
-        Signature signature = new Signature(methodName, Type.getType(returnType), argumentTypes);
-        MethodProxy methodProxy = MethodProxy.find(obj.getClass(), signature);
-        if (methodProxy != null) {
-            Object[] args = {event};
-            return methodProxy.invoke(obj, args);
-        } else {
-            Method method = AbstractInterceptingMessageProcessorBase.class.getDeclaredMethod(methodName, argumentType);
-            method.setAccessible(true);
-            return method.invoke(obj, event);
+    /**
+     * <p>
+     * Gets the dispatcher of the proxy class. If the factory did not set it, it is created the first time it is needed.
+     * </p>
+     */
+    protected MessageProcessorDispatcher getDispatcher(Object obj) {
+        MessageProcessorDispatcher current = dispatcher;
+        if (current == null || current.getProxyClass() != obj.getClass()) {
+            current = new MessageProcessorDispatcher(obj.getClass());
+            dispatcher = current;
         }
+        return current;
+    }
 
+    public void setDispatcher(MessageProcessorDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
     }
 
     protected Object invokeSuper(Object obj, Object[] args, MethodProxy proxy) throws Throwable {
@@ -101,26 +189,93 @@ public class MunitMessageProcessorInterceptor extends AbstractMessageProcessorIn
         manager.addCall(messageProcessorCall);
     }
 
-    private void runSpyAssertion(SpyAssertion spyAssertion, MuleEvent event) {
+    /**
+     * <p>
+     * Runs a spy assertion. Asynchronous assertions get a snapshot of the event, so the flow can go on while they
+     * are evaluated. If the payload is not immutable, see {@link EventSnapshot}, the assertion runs on the flow thread.
+     * </p>
+     */
+    private void runSpyAssertion(MockedMessageProcessorManager manager, SpyAssertion spyAssertion, String moment, MuleEvent event) {
         if (spyAssertion == null) {
             return;
         }
 
+        if (spyAssertion.isAsync() && AsyncSpyEvaluator.canEvaluate(event)) {
+            manager.getAsyncSpyEvaluator().submit(describe(moment), spyAssertion.getMessageProcessors(), EventSnapshot.take(event));
+            return;
+        }
+
         MunitUtils.verifyAssertions(event, spyAssertion.getMessageProcessors());
     }
 
-    private MunitMessageProcessorCall buildCall(MuleEvent event) {
-        MunitMessageProcessorCall call = new MunitMessageProcessorCall(id);
-        call.setAttributes(getAttributes(event));
+    private String describe(String moment) {
+        MessageProcessorDescriptor current = getDescriptor();
+        MessageProcessorId messageProcessorId = current.getMessageProcessorId();
+        String name = messageProcessorId == null ? "unknown" : messageProcessorId.getNamespace() + ":" + messageProcessorId.getName();
+        return "Spy " + moment + " " + name + (current.getFileName() == null ? "" : " (" + current.getFileName() + ":" + current.getLineNumber() + ")");
+    }
+
+    /**
+     * <p>
+     * Builds the call with the attributes the message processor has at call time. The expressions are evaluated
+     * against a snapshot of the event the first time the attributes are read, so calls that are never verified by
+     * attributes, like the ones of message processors that pass through, do not evaluate them. If the payload can be
+     * changed by the flow after the call, see {@link EventSnapshot}, they are evaluated now. In
+     * {@link CallRecordingMode#COUNT_ONLY} mode the calls cannot be verified by attributes, so the expressions are
+     * kept as they are written.
+     * </p>
+     */
+    private MunitMessageProcessorCall buildCall(MockedMessageProcessorManager manager, MuleEvent event) {
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(getDescriptor());
+        AttributesState state = getAttributesState(event);
+        if (!state.hasExpressions || manager.getRecordingMode() == CallRecordingMode.COUNT_ONLY) {
+            call.setAttributes(state.definitions);
+        } else if (EventSnapshot.canTake(event)) {
+            call.setAttributesResolver(new SnapshotAttributesResolver(EventSnapshot.take(event)));
+        } else {
+            call.setAttributes(getAttributes(event));
+        }
         call.setFlowConstruct(event.getFlowConstruct());
-        call.setFileName(fileName);
-        call.setLineNumber(lineNumber);
         return call;
     }
 
+    private AttributesState getAttributesState(MuleEvent event) {
+        Map<String, String> definitions = attributeDefinitions;
+        AttributesState current = attributesState;
+        if (current == null || current.source != definitions) {
+            current = new AttributesState(definitions, event.getMuleContext().getExpressionManager());
+            attributesState = current;
+        }
+        return current;
+    }
+
+    /**
+     * <p>
+     * The descriptor shared by all the calls of this message processor. It is created again only if the message
+     * processor data changes.
+     * </p>
+     */
+    private MessageProcessorDescriptor getDescriptor() {
+        MessageProcessorDescriptor current = descriptor;
+        if (current == null || current.getMessageProcessorId() != id) {
+            current = MessageProcessorDescriptor.of(id, fileName, lineNumber);
+            descriptor = current;
+        }
+        return current;
+    }
+
 
     protected MockedMessageProcessorManager getMockedMessageProcessorManager(MuleContext muleContext) {
-        return ((MockedMessageProcessorManager) muleContext.getRegistry().lookupObject(MockedMessageProcessorManager.ID));
+        MunitRuntime current = runtime;
+        if (current == null || current.getMuleContext() != muleContext) {
+            current = MunitRuntime.of(muleContext);
+            runtime = current;
+        }
+        return current.getMessageProcessorManager();
+    }
+
+    public void setRuntime(MunitRuntime runtime) {
+        this.runtime = runtime;
     }
 
 
@@ -130,9 +285,75 @@ public class MunitMessageProcessorInterceptor extends AbstractMessageProcessorIn
 
     public void setFileName(String fileName) {
         this.fileName = fileName;
+        this.descriptor = null;
     }
 
     public void setLineNumber(String lineNumber) {
         this.lineNumber = lineNumber;
+        this.descriptor = null;
+    }
+
+    @Override
+    public void setAttributes(Map<String, String> attributes) {
+        super.setAttributes(attributes);
+        this.attributeDefinitions = attributes;
+    }
+
+    /**
+     * <p>
+     * The attribute definitions of the message processor and whether any of them is an expression
+     * </p>
+     */
+    private static class AttributesState {
+
+        private final Map<String, String> source;
+        private final Map<String, Object> definitions;
+        private final boolean hasExpressions;
+
+        private AttributesState(Map<String, String> source, ExpressionManager expressionManager) {
+            this.source = source;
+            boolean expressions = false;
+            Map<String, Object> attributes = new HashMap<String, Object>();
+            if (source != null) {
+                for (Map.Entry<String, String> attribute : source.entrySet()) {
+                    attributes.put(attribute.getKey(), attribute.getValue());
+                    expressions |= attribute.getValue() != null && expressionManager.isExpression(attribute.getValue());
+                }
+            }
+            this.definitions = Collections.unmodifiableMap(attributes);
+            this.hasExpressions = expressions;
+        }
+    }
+
+    /**
+     * <p>
+     * Evaluates the attributes of a call against the snapshot of its event
+     * </p>
+     */
+    private class SnapshotAttributesResolver implements MunitMessageProcessorCall.AttributesResolver {
+
+        private final MuleEvent snapshot;
+
+        private SnapshotAttributesResolver(MuleEvent snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Map<String, Object> resolve() {
+            return getAttributes(snapshot);
+        }
+    }
+
+    private static class PassthroughState {
+
+        private final MockedMessageProcessorManager manager;
+        private final long generation;
+        private final boolean passthrough;
+
+        private PassthroughState(MockedMessageProcessorManager manager, long generation, boolean passthrough) {
+            this.manager = manager;
+            this.generation = generation;
+            this.passthrough = passthrough;
+        }
     }
 }
@@ -12,12 +12,12 @@ import org.apache.commons.logging.LogFactory;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.modules.interceptor.spring.BeanFactoryMethodBuilder;
 import org.mule.modules.interceptor.spring.MethodInterceptorFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Map;
 
 
@@ -29,47 +29,23 @@ import java.util.Map;
  * @author Mulesoft Inc.
  * @since 3.3.2
  */
-public class MunitMessageProcessorInterceptorFactory extends MethodInterceptorFactory {
+public class MunitMessageProcessorInterceptorFactory extends MethodInterceptorFactory implements DisposableBean {
 
     protected transient Log logger = LogFactory.getLog(getClass());
 
     /**
      * <p>
-     * For operations that are not {@link org.mule.api.processor.MessageProcessor#process(org.mule.api.MuleEvent)} just do
-     * nothing
+     * The Id in the spring registry of Mule
      * </p>
      */
-    private static Callback NULL_METHOD_INTERCEPTOR = new NoOp() {
-    };
-
-    private static CallbackFilter FACTORY_BEAN_FILTER = new CallbackFilter() {
-
-        @Override
-        public int accept(Method method) {
-            if ("getObject".equals(method.getName())) {
-                return 0;
-            }
-            return 1;
-        }
-    };
-
-    private static CallbackFilter MESSAGE_PROCESSOR_FILTER = new CallbackFilter() {
-
-        @Override
-        public int accept(Method method) {
-            if ("process".equals(method.getName())) {
-                return 0;
-            }
-            return 1;
-        }
-    };
+    public static final String ID = "__messageProcessorEnhancerFactory";
 
     /**
      * <p>
-     * The Id in the spring registry of Mule
+     * The proxy classes, one for each message processor class
      * </p>
      */
-    public static final String ID = "__messageProcessorEnhancerFactory";
+    private final MunitProxyClassCache proxyClassCache = new MunitProxyClassCache();
 
     /**
      * <p>
@@ -144,8 +120,7 @@ public class MunitMessageProcessorInterceptorFactory extends MethodInterceptorFa
      */
     public Object create(Class realMpClass, MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber) {
         try {
-            Enhancer e = createEnhancer(realMpClass, id, attributes, fileName, lineNumber);
-            return e.create();
+            return createProxy(realMpClass, id, attributes, fileName, lineNumber, new Class[0], new Object[0]);
         } catch (Throwable e) {
             logger.warn("The message processor " + id.getFullName() + " could not be mocked");
             try {
@@ -172,17 +147,16 @@ public class MunitMessageProcessorInterceptorFactory extends MethodInterceptorFa
     public Object create(Class realMpClass, MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber,
                          Object[] constructorArguments) {
         try {
-            Enhancer e = createEnhancer(realMpClass, id, attributes, fileName, lineNumber);
             if (constructorArguments != null && constructorArguments.length != 0) {
                 Class[] classes = findConstructorArgumentTypes(realMpClass, constructorArguments);
                 if (classes != null) {
-                    return e.create(classes, constructorArguments);
+                    return createProxy(realMpClass, id, attributes, fileName, lineNumber, classes, constructorArguments);
                 } else {
                     throw new Error("The message processor " + id.getFullName() + " could not be created, because " +
                             "there is no matching constructor");
                 }
             } else {
-                return e.create();
+                return createProxy(realMpClass, id, attributes, fileName, lineNumber, new Class[0], new Object[0]);
             }
         } catch (Throwable e) {
             logger.warn("The message processor " + id.getFullName() + " could not be mocked");
@@ -273,42 +247,52 @@ public class MunitMessageProcessorInterceptorFactory extends MethodInterceptorFa
         return null;
     }
 
-    protected Enhancer createEnhancer(Class realMpClass, MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber) {
-
-        Enhancer e = new Enhancer();
-        e.setSuperclass(realMpClass);
-        e.setUseCache(false);
-        e.setAttemptLoad(true);
-        e.setInterceptDuringConstruction(true);
-        e.setNamingPolicy(new MunitNamingPolicy());
-
+    /**
+     * <p>
+     * Creates the proxy of a message processor. The proxy class is shared by every message processor of the same
+     * class, the message processor data is held by the callback of the new instance.
+     * </p>
+     */
+    protected Object createProxy(Class realMpClass, MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber,
+                                 Class[] constructorTypes, Object[] constructorArguments) {
         if (FactoryBean.class.isAssignableFrom(realMpClass)) {
-            createFactoryBeanCallback(id, attributes, fileName, lineNumber, e);
+            Class<?> proxyClass = proxyClassCache.getProxyClass(realMpClass, MunitProxyClassCache.ProxyKind.FACTORY_BEAN);
+            return proxyClassCache.newInstance(proxyClass, constructorTypes, constructorArguments,
+                    new Callback[]{createFactoryBeanCallback(id, attributes, fileName, lineNumber), NoOp.INSTANCE});
         } else {
-            createMessageProcessorCallback(id, attributes, fileName, lineNumber, e);
+            Class<?> proxyClass = proxyClassCache.getProxyClass(realMpClass, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+            return proxyClassCache.newInstance(proxyClass, constructorTypes, constructorArguments,
+                    new Callback[]{createMessageProcessorCallback(proxyClass, id, attributes, fileName, lineNumber), NoOp.INSTANCE});
         }
-        return e;
     }
 
-
-    private void createMessageProcessorCallback(MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber, Enhancer e) {
+    private Callback createMessageProcessorCallback(Class<?> proxyClass, MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber) {
         MunitMessageProcessorInterceptor callback = new MunitMessageProcessorInterceptor();
+        callback.setDispatcher(proxyClassCache.getDispatcher(proxyClass));
         callback.setId(id);
         callback.setAttributes(attributes);
         callback.setFileName(fileName);
         callback.setLineNumber(lineNumber);
-        e.setCallbacks(new Callback[]{callback, NULL_METHOD_INTERCEPTOR});
-        e.setCallbackFilter(MESSAGE_PROCESSOR_FILTER);
+        return callback;
     }
 
-    private void createFactoryBeanCallback(MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber, Enhancer e) {
-        MessageProcessorFactoryBeanInterceptor callback = new MessageProcessorFactoryBeanInterceptor();
+    private Callback createFactoryBeanCallback(MessageProcessorId id, Map<String, String> attributes, String fileName, String lineNumber) {
+        MessageProcessorFactoryBeanInterceptor callback = new MessageProcessorFactoryBeanInterceptor(proxyClassCache);
         callback.setId(id);
         callback.setAttributes(attributes);
         callback.setFileName(fileName);
         callback.setLineNumber(lineNumber);
-        e.setCallbacks(new Callback[]{callback, NULL_METHOD_INTERCEPTOR});
-        e.setCallbackFilter(FACTORY_BEAN_FILTER);
+        return callback;
+    }
+
+    /**
+     * <p>
+     * Releases the proxy classes generated for the Mule context of this factory
+     * </p>
+     */
+    @Override
+    public void destroy() {
+        proxyClassCache.dispose();
     }
 
     /**
@@ -20,6 +20,23 @@ import net.sf.cglib.core.Predicate;
 public class MunitNamingPolicy extends DefaultNamingPolicy
 {
 
+    /**
+     * <p>
+     * Added to the tag so different kinds of proxies of the same class do not share the class name
+     * </p>
+     */
+    private final String suffix;
+
+    public MunitNamingPolicy()
+    {
+        this("");
+    }
+
+    public MunitNamingPolicy(String suffix)
+    {
+        this.suffix = suffix;
+    }
+
     public String getClassName(String prefix, String source, Object key, Predicate names)
     {
         if (prefix == null)
@@ -41,6 +58,6 @@ public class MunitNamingPolicy extends DefaultNamingPolicy
     @Override
     protected String getTag()
     {
-        return "ByMUNIT";
+        return "ByMUNIT" + suffix;
     }
 }
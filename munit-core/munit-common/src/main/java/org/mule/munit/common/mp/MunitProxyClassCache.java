@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.cglib.core.DefaultGeneratorStrategy;
+import net.sf.cglib.core.GeneratorStrategy;
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import net.sf.cglib.proxy.NoOp;
+import org.objenesis.ObjenesisStd;
+
+/**
+ * <p>
+ * Cache of the CGLIB proxy classes created by Munit. There is one proxy class for each real class and
+ * {@link ProxyKind}, the interceptor state of each instance is given through its callbacks.
+ * </p>
+ * <p/>
+ * <p>
+ * This way the number of generated classes depends on the number of message processor types of the application and
+ * not on the number of message processors.
+ * </p>
+ * <p/>
+ * <p>
+ * The proxy classes are defined in a {@link MunitProxyClassLoader} owned by the cache, so they are released when the
+ * cache is disposed together with its Mule context. Classes that need package private access to the real class are
+ * defined in the class loader of the real class instead, and they are never released.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitProxyClassCache
+{
+
+    /**
+     * <p>
+     * The kind of proxies Munit creates. Each kind defines the callbacks of the proxy class.
+     * </p>
+     */
+    public enum ProxyKind
+    {
+        /**
+         * <p>
+         * Proxy of a message processor, intercepts the process method
+         * </p>
+         */
+        MESSAGE_PROCESSOR("", new Class[] {MunitMessageProcessorInterceptor.class, NoOp.class}, new MethodNameCallbackFilter("process")),
+
+        /**
+         * <p>
+         * Proxy of a factory bean that creates message processors, intercepts the getObject method
+         * </p>
+         */
+        FACTORY_BEAN("", new Class[] {MessageProcessorFactoryBeanInterceptor.class, NoOp.class}, new MethodNameCallbackFilter("getObject")),
+
+        /**
+         * <p>
+         * Proxy that wraps a message processor created by a factory bean, intercepts every method
+         * </p>
+         */
+        WRAPPER("Wrapper", new Class[] {WrapperMunitMessageProcessorInterceptor.class}, null);
+
+        private final String namingSuffix;
+        private final Class[] callbackTypes;
+        private final CallbackFilter callbackFilter;
+
+        ProxyKind(String namingSuffix, Class[] callbackTypes, CallbackFilter callbackFilter)
+        {
+            this.namingSuffix = namingSuffix;
+            this.callbackTypes = callbackTypes;
+            this.callbackFilter = callbackFilter;
+        }
+
+        public String getNamingSuffix()
+        {
+            return namingSuffix;
+        }
+    }
+
+    private final ConcurrentMap<ProxyClassKey, Class<?>> proxyClasses = new ConcurrentHashMap<ProxyClassKey, Class<?>>();
+
+    private final ConcurrentMap<Class<?>, MessageProcessorDispatcher> dispatchers = new ConcurrentHashMap<Class<?>, MessageProcessorDispatcher>();
+
+    private final ObjenesisStd objenesis = new ObjenesisStd();
+
+    private final MunitProxyClassRepository repository;
+
+    /**
+     * <p>
+     * Number of proxy classes defined in cache class loaders that were not disposed yet
+     * </p>
+     */
+    private static final AtomicInteger liveClasses = new AtomicInteger();
+
+    /**
+     * <p>
+     * Number of proxy classes defined in the class loaders of the real classes
+     * </p>
+     */
+    private static final AtomicInteger pinnedClasses = new AtomicInteger();
+
+    /**
+     * <p>
+     * The class loaders of this cache, one for each class loader of the proxied classes
+     * </p>
+     */
+    private final ConcurrentMap<ClassLoader, MunitProxyClassLoader> classLoaders = new ConcurrentHashMap<ClassLoader, MunitProxyClassLoader>();
+
+    /**
+     * <p>
+     * Class loader used for classes loaded by the bootstrap class loader
+     * </p>
+     */
+    private volatile MunitProxyClassLoader bootstrapClassLoader;
+
+    /**
+     * <p>
+     * Number of proxy classes defined in the class loaders of this cache
+     * </p>
+     */
+    private final AtomicInteger definedClasses = new AtomicInteger();
+
+    public MunitProxyClassCache()
+    {
+        this(new MunitProxyClassRepository());
+    }
+
+    public MunitProxyClassCache(MunitProxyClassRepository repository)
+    {
+        this.repository = repository;
+    }
+
+    /**
+     * <p>
+     * Gets the proxy class of a real class, it is created the first time it is needed.
+     * </p>
+     *
+     * @param realClass The class to proxy
+     * @param kind      The kind of proxy
+     * @return The proxy class
+     */
+    public Class<?> getProxyClass(Class<?> realClass, ProxyKind kind)
+    {
+        ProxyClassKey key = new ProxyClassKey(realClass, kind);
+        Class<?> proxyClass = proxyClasses.get(key);
+        if (proxyClass == null)
+        {
+            proxyClass = createProxyClass(realClass, kind);
+            Class<?> existing = proxyClasses.putIfAbsent(key, proxyClass);
+            if (existing != null)
+            {
+                proxyClass = existing;
+            }
+        }
+        return proxyClass;
+    }
+
+    /**
+     * <p>
+     * Gets the dispatcher of a proxy class, shared by all the interceptors of the class instances.
+     * </p>
+     *
+     * @param proxyClass The proxy class
+     * @return The dispatcher of the proxy class
+     */
+    public MessageProcessorDispatcher getDispatcher(Class<?> proxyClass)
+    {
+        MessageProcessorDispatcher dispatcher = dispatchers.get(proxyClass);
+        if (dispatcher == null)
+        {
+            dispatcher = new MessageProcessorDispatcher(proxyClass);
+            MessageProcessorDispatcher existing = dispatchers.putIfAbsent(proxyClass, dispatcher);
+            if (existing != null)
+            {
+                dispatcher = existing;
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * <p>
+     * Creates an instance of the proxy class calling its constructor. The callbacks are registered before calling the
+     * constructor so the calls done during construction are intercepted too.
+     * </p>
+     *
+     * @param proxyClass           The proxy class
+     * @param constructorTypes     The types of the constructor parameters
+     * @param constructorArguments The constructor arguments
+     * @param callbacks            The callbacks of the new instance
+     * @return The new proxy
+     */
+    public Object newInstance(Class<?> proxyClass, Class[] constructorTypes, Object[] constructorArguments, Callback[] callbacks)
+    {
+        Enhancer.registerCallbacks(proxyClass, callbacks);
+        try
+        {
+            return ReflectUtils.newInstance(proxyClass, constructorTypes, constructorArguments);
+        }
+        finally
+        {
+            Enhancer.registerCallbacks(proxyClass, null);
+        }
+    }
+
+    /**
+     * <p>
+     * Creates an instance of the proxy class without calling any constructor.
+     * </p>
+     *
+     * @param proxyClass The proxy class
+     * @param callbacks  The callbacks of the new instance
+     * @return The new proxy
+     */
+    public Object newInstanceWithoutConstructor(Class<?> proxyClass, Callback[] callbacks)
+    {
+        Factory proxy = (Factory) objenesis.newInstance(proxyClass);
+        proxy.setCallbacks(callbacks);
+        return proxy;
+    }
+
+    /**
+     * @return The number of proxy classes in the cache
+     */
+    public int size()
+    {
+        return proxyClasses.size();
+    }
+
+    /**
+     * <p>
+     * Releases the proxy classes of the cache. Proxies created before disposing the cache keep working, but the
+     * cache must not be used anymore.
+     * </p>
+     */
+    public void dispose()
+    {
+        proxyClasses.clear();
+        dispatchers.clear();
+        classLoaders.clear();
+        bootstrapClassLoader = null;
+        liveClasses.addAndGet(-definedClasses.getAndSet(0));
+    }
+
+    /**
+     * @return The number of proxy classes defined by the caches that were not disposed yet
+     */
+    public static int getLiveClassCount()
+    {
+        return liveClasses.get();
+    }
+
+    /**
+     * @return The number of proxy classes defined in the class loaders of the real classes, they can not be released
+     */
+    public static int getPinnedClassCount()
+    {
+        return pinnedClasses.get();
+    }
+
+    /**
+     * <p>
+     * Creates a proxy class. The class pregenerated at build time is used if there is one, otherwise it is generated
+     * and, if the repository has an output folder, saved there.
+     * </p>
+     */
+    protected Class<?> createProxyClass(Class<?> realClass, ProxyKind kind)
+    {
+        ClassLoader classLoader = classLoaderFor(realClass);
+        boolean saving = repository.getOutputFolder() != null;
+
+        if (!saving)
+        {
+            Class<?> pregenerated = repository.load(realClass, kind, classLoader);
+            if (pregenerated != null)
+            {
+                countDefinedClass(pregenerated);
+                return pregenerated;
+            }
+        }
+
+        ProxyGeneratorStrategy strategy = new ProxyGeneratorStrategy(realClass, kind, saving);
+        Class<?> proxyClass = generateProxyClass(realClass, kind, classLoader, strategy);
+        if (strategy.generated)
+        {
+            countDefinedClass(proxyClass);
+        }
+        return proxyClass;
+    }
+
+    /**
+     * <p>
+     * The class loader where the proxy class of a real class is defined.
+     * </p>
+     */
+    protected ClassLoader classLoaderFor(Class<?> realClass)
+    {
+        ClassLoader realClassLoader = realClass.getClassLoader();
+        if (realClassLoader != null && needsPackageAccess(realClass))
+        {
+            return realClassLoader;
+        }
+
+        if (realClassLoader == null)
+        {
+            MunitProxyClassLoader classLoader = bootstrapClassLoader;
+            if (classLoader == null)
+            {
+                classLoader = new MunitProxyClassLoader(null, MunitProxyClassCache.class.getClassLoader());
+                bootstrapClassLoader = classLoader;
+            }
+            return classLoader;
+        }
+
+        MunitProxyClassLoader classLoader = classLoaders.get(realClassLoader);
+        if (classLoader == null)
+        {
+            classLoader = new MunitProxyClassLoader(realClassLoader, MunitProxyClassCache.class.getClassLoader());
+            MunitProxyClassLoader existing = classLoaders.putIfAbsent(realClassLoader, classLoader);
+            if (existing != null)
+            {
+                classLoader = existing;
+            }
+        }
+        return classLoader;
+    }
+
+    /**
+     * <p>
+     * A proxy defined in another class loader belongs to another runtime package, so it can not extend a non public
+     * class nor override or call its package private members.
+     * </p>
+     */
+    private static boolean needsPackageAccess(Class<?> realClass)
+    {
+        for (Class<?> current = realClass; current != null && current != Object.class; current = current.getSuperclass())
+        {
+            if (!Modifier.isPublic(current.getModifiers()))
+            {
+                return true;
+            }
+            for (Method method : current.getDeclaredMethods())
+            {
+                if (isPackagePrivate(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()) && !Modifier.isFinal(method.getModifiers()))
+                {
+                    return true;
+                }
+            }
+        }
+
+        for (Constructor<?> constructor : realClass.getDeclaredConstructors())
+        {
+            if (isPackagePrivate(constructor.getModifiers()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPackagePrivate(int modifiers)
+    {
+        return !Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers) && !Modifier.isPrivate(modifiers);
+    }
+
+    private void countDefinedClass(Class<?> proxyClass)
+    {
+        if (proxyClass.getClassLoader() instanceof MunitProxyClassLoader)
+        {
+            definedClasses.incrementAndGet();
+            liveClasses.incrementAndGet();
+        }
+        else
+        {
+            pinnedClasses.incrementAndGet();
+        }
+    }
+
+    private Class<?> generateProxyClass(Class<?> realClass, ProxyKind kind, ClassLoader classLoader, GeneratorStrategy strategy)
+    {
+        Enhancer e = new Enhancer();
+        e.setSuperclass(realClass);
+        e.setClassLoader(classLoader);
+        e.setUseCache(false);
+        e.setAttemptLoad(true);
+        e.setInterceptDuringConstruction(true);
+        e.setNamingPolicy(new MunitNamingPolicy(kind.namingSuffix));
+        e.setCallbackTypes(kind.callbackTypes);
+        if (kind.callbackFilter != null)
+        {
+            e.setCallbackFilter(kind.callbackFilter);
+        }
+        e.setStrategy(strategy);
+        return e.createClass();
+    }
+
+    /**
+     * <p>
+     * Knows if the proxy class was generated or just loaded, and saves the bytecode of the generated classes in the
+     * repository when it is asked to
+     * </p>
+     */
+    private class ProxyGeneratorStrategy extends DefaultGeneratorStrategy
+    {
+
+        private final Class<?> realClass;
+        private final ProxyKind kind;
+        private final boolean saving;
+        private boolean generated;
+
+        private ProxyGeneratorStrategy(Class<?> realClass, ProxyKind kind, boolean saving)
+        {
+            this.realClass = realClass;
+            this.kind = kind;
+            this.saving = saving;
+        }
+
+        @Override
+        protected byte[] transform(byte[] b) throws Exception
+        {
+            generated = true;
+            if (saving)
+            {
+                repository.save(realClass, MunitProxyClassRepository.proxyClassNameOf(realClass, kind), b);
+            }
+            return b;
+        }
+    }
+
+    private static class MethodNameCallbackFilter implements CallbackFilter
+    {
+
+        private final String methodName;
+
+        private MethodNameCallbackFilter(String methodName)
+        {
+            this.methodName = methodName;
+        }
+
+        @Override
+        public int accept(Method method)
+        {
+            if (methodName.equals(method.getName()))
+            {
+                return 0;
+            }
+            return 1;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof MethodNameCallbackFilter && methodName.equals(((MethodNameCallbackFilter) o).methodName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return methodName.hashCode();
+        }
+    }
+
+    private static class ProxyClassKey
+    {
+
+        private final Class<?> realClass;
+        private final ProxyKind kind;
+
+        private ProxyClassKey(Class<?> realClass, ProxyKind kind)
+        {
+            this.realClass = realClass;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof ProxyClassKey))
+            {
+                return false;
+            }
+            ProxyClassKey that = (ProxyClassKey) o;
+            return realClass.equals(that.realClass) && kind == that.kind;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * realClass.hashCode() + kind.hashCode();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+/**
+ * <p>
+ * Class loader of the proxy classes generated for one Mule context. Its parent is the class loader of the proxied
+ * classes, and the classes its parent can not see (Munit and CGLIB classes) are loaded by the Munit class loader.
+ * </p>
+ * <p/>
+ * <p>
+ * Once the Mule context is disposed nothing references the class loader, so the proxy classes can be unloaded.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitProxyClassLoader extends ClassLoader
+{
+
+    private final ClassLoader munitClassLoader;
+
+    public MunitProxyClassLoader(ClassLoader parent, ClassLoader munitClassLoader)
+    {
+        super(parent);
+        this.munitClassLoader = munitClassLoader;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException
+    {
+        if (munitClassLoader == null)
+        {
+            throw new ClassNotFoundException(name);
+        }
+        return munitClassLoader.loadClass(name);
+    }
+}
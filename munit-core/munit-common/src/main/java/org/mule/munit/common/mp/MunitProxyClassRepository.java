@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.proxy.Enhancer;
+
+/**
+ * <p>
+ * Repository of the proxy classes generated at build time by the munit-maven-plugin. The class files are stored as
+ * classpath resources under {@link #PROXIES_FOLDER}, and {@link #INDEX_RESOURCE} holds the fingerprint of the real
+ * class each proxy was generated from.
+ * </p>
+ * <p/>
+ * <p>
+ * A pregenerated proxy is only used if the real class did not change since it was generated, otherwise the proxy
+ * class is generated as usual.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitProxyClassRepository
+{
+
+    /**
+     * <p>
+     * System property with the folder where the generated proxy classes must be written. Set by the
+     * munit-maven-plugin while it generates the proxies.
+     * </p>
+     */
+    public static final String OUTPUT_FOLDER_PROPERTY = "munit.proxies.outputFolder";
+
+    /**
+     * <p>
+     * Classpath folder of the pregenerated proxy classes
+     * </p>
+     */
+    public static final String PROXIES_FOLDER = "META-INF/munit/proxies/";
+
+    /**
+     * <p>
+     * Classpath resource with the fingerprint of each pregenerated proxy class
+     * </p>
+     */
+    public static final String INDEX_RESOURCE = "META-INF/munit/proxies.properties";
+
+    private static final Log logger = LogFactory.getLog(MunitProxyClassRepository.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private volatile Properties index;
+
+    /**
+     * <p>
+     * Loads the pregenerated proxy class of a real class.
+     * </p>
+     *
+     * @param realClass   The proxied class
+     * @param kind        The kind of proxy
+     * @param classLoader The class loader where the proxy class must be defined
+     * @return The proxy class, or null if there is no valid pregenerated class for it
+     */
+    public Class<?> load(Class<?> realClass, MunitProxyClassCache.ProxyKind kind, ClassLoader classLoader)
+    {
+        if (classLoader == null)
+        {
+            return null;
+        }
+
+        String className = proxyClassNameOf(realClass, kind);
+        String fingerprint = getIndex().getProperty(className);
+        if (fingerprint == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            if (!fingerprint.equals(fingerprintOf(realClass)))
+            {
+                logger.debug("The pregenerated proxy " + className + " is outdated, it will be generated again");
+                return null;
+            }
+
+            Class<?> proxyClass = findLoadedClass(className, classLoader);
+            if (proxyClass != null)
+            {
+                return proxyClass;
+            }
+
+            byte[] bytes = readResource(PROXIES_FOLDER + className.replace('.', '/') + ".class");
+            if (bytes == null)
+            {
+                return null;
+            }
+            return ReflectUtils.defineClass(className, bytes, classLoader);
+        }
+        catch (Throwable e)
+        {
+            logger.debug("The pregenerated proxy " + className + " could not be loaded", e);
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Writes a generated proxy class to the output folder, if the output folder is defined.
+     * </p>
+     *
+     * @param realClass  The proxied class
+     * @param className  The name of the proxy class
+     * @param classBytes The bytecode of the proxy class
+     */
+    public void save(Class<?> realClass, String className, byte[] classBytes)
+    {
+        String outputFolder = getOutputFolder();
+        if (outputFolder == null)
+        {
+            return;
+        }
+
+        try
+        {
+            File classFile = new File(outputFolder, PROXIES_FOLDER + className.replace('.', '/') + ".class");
+            FileUtils.writeByteArrayToFile(classFile, classBytes);
+            addToIndex(new File(outputFolder, INDEX_RESOURCE), className, fingerprintOf(realClass));
+        }
+        catch (Exception e)
+        {
+            logger.warn("The proxy class " + className + " could not be saved", e);
+        }
+    }
+
+    /**
+     * @return The folder where generated proxies must be written, null if they must not be written
+     */
+    public String getOutputFolder()
+    {
+        return System.getProperty(OUTPUT_FOLDER_PROPERTY);
+    }
+
+    /**
+     * <p>
+     * The name of the proxy class. It only depends on the real class and the kind of proxy, so proxy classes
+     * generated at build time have the same name they would have if they were generated at runtime.
+     * </p>
+     */
+    public static String proxyClassNameOf(Class<?> realClass, MunitProxyClassCache.ProxyKind kind)
+    {
+        return new MunitNamingPolicy(kind.getNamingSuffix()).getClassName(realClass.getName(), Enhancer.class.getName(), null, null);
+    }
+
+    /**
+     * <p>
+     * Digest of the members of the real class and its super classes. The proxy class overrides those members, so if
+     * any of them change the proxy must be generated again.
+     * </p>
+     */
+    public static String fingerprintOf(Class<?> realClass) throws Exception
+    {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        for (Class<?> current = realClass; current != null; current = current.getSuperclass())
+        {
+            List<String> members = new ArrayList<String>();
+            for (Method method : current.getDeclaredMethods())
+            {
+                members.add(method.toString());
+            }
+            for (Constructor<?> constructor : current.getDeclaredConstructors())
+            {
+                members.add(constructor.toString());
+            }
+            Collections.sort(members);
+
+            digest.update(current.getName().getBytes("UTF-8"));
+            for (String member : members)
+            {
+                digest.update(member.getBytes("UTF-8"));
+            }
+        }
+
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private Properties getIndex()
+    {
+        Properties current = index;
+        if (current == null)
+        {
+            current = new Properties();
+            if (getOutputFolder() == null)
+            {
+                loadIndexes(current);
+            }
+            index = current;
+        }
+        return current;
+    }
+
+    private void loadIndexes(Properties properties)
+    {
+        try
+        {
+            Enumeration<URL> resources = getClassLoader().getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements())
+            {
+                InputStream stream = resources.nextElement().openStream();
+                try
+                {
+                    properties.load(stream);
+                }
+                finally
+                {
+                    IOUtils.closeQuietly(stream);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            logger.debug("The pregenerated proxies index could not be read", e);
+        }
+    }
+
+    private byte[] readResource(String resource) throws IOException
+    {
+        InputStream stream = getClassLoader().getResourceAsStream(resource);
+        if (stream == null)
+        {
+            return null;
+        }
+        try
+        {
+            return IOUtils.toByteArray(stream);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private Class<?> findLoadedClass(String className, ClassLoader classLoader)
+    {
+        try
+        {
+            return Class.forName(className, false, classLoader);
+        }
+        catch (ClassNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    private ClassLoader getClassLoader()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : getClass().getClassLoader();
+    }
+
+    private static synchronized void addToIndex(File indexFile, String className, String fingerprint) throws IOException
+    {
+        Properties properties = new Properties();
+        if (indexFile.exists())
+        {
+            InputStream in = new FileInputStream(indexFile);
+            try
+            {
+                properties.load(in);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+
+        properties.setProperty(className, fingerprint);
+        indexFile.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(indexFile);
+        try
+        {
+            properties.store(out, "Munit pregenerated proxy classes");
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+        }
+    }
+}
@@ -33,10 +33,24 @@ public class SpyAssertion extends MessageProcessorCallAction
     private List<MessageProcessor> messageProcessors = new ArrayList<MessageProcessor>();
 
 
+    /**
+     * <p>
+     * If true the message processors are evaluated by the {@link AsyncSpyEvaluator}, off the message processor call
+     * </p>
+     */
+    private boolean async;
+
+
     public SpyAssertion(MessageProcessorCall messageProcessorCall, List<MessageProcessor> messageProcessors)
+    {
+        this(messageProcessorCall, messageProcessors, false);
+    }
+
+    public SpyAssertion(MessageProcessorCall messageProcessorCall, List<MessageProcessor> messageProcessors, boolean async)
     {
         super(messageProcessorCall);
         this.messageProcessors = messageProcessors;
+        this.async = async;
     }
 
     public List<MessageProcessor> getMessageProcessors()
@@ -49,4 +63,13 @@ public class SpyAssertion extends MessageProcessorCallAction
         this.messageProcessors = messageProcessors;
     }
 
+    public boolean isAsync()
+    {
+        return async;
+    }
+
+    public void setAsync(boolean async)
+    {
+        this.async = async;
+    }
 }
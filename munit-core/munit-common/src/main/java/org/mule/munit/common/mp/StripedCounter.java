@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Counter that spreads the increments of different threads over several cells, so threads do not contend
+ * on the same value.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class StripedCounter
+{
+
+    /**
+     * <p>
+     * Distance between two cells, so each cell lives in its own cache line
+     * </p>
+     */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment()
+    {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        cells.incrementAndGet(stripe * PADDING);
+    }
+
+    /**
+     * @return The sum of all the cells. It is not an atomic snapshot if there are concurrent increments.
+     */
+    public long get()
+    {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++)
+        {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private static int stripes()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors * 2)
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
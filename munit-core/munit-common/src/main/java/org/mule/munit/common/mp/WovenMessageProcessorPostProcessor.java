@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import org.mule.munit.common.agent.WovenMessageProcessor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * <p>
+ * Attaches the interception to the message processors woven by the Munit agent. The parser stores the interception
+ * of each message processor in the {@link #INTERCEPTION_ATTRIBUTE} attribute of its bean definition, instead of
+ * replacing the bean by a proxy.
+ * </p>
+ * <p/>
+ * <p>
+ * For factory beans the interception is attached to the object they create. The interceptions are kept until the
+ * context is destroyed, so every instance of a prototype message processor is intercepted.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class WovenMessageProcessorPostProcessor implements MergedBeanDefinitionPostProcessor, DisposableBean
+{
+
+    /**
+     * <p>
+     * The Id in the spring registry of Mule
+     * </p>
+     */
+    public static final String ID = "__munitWovenMessageProcessorPostProcessor";
+
+    /**
+     * <p>
+     * The bean definition attribute with the {@link WovenMunitMessageProcessorInterceptor} of the message processor
+     * </p>
+     */
+    public static final String INTERCEPTION_ATTRIBUTE = "munit.interception";
+
+    private static final Log logger = LogFactory.getLog(WovenMessageProcessorPostProcessor.class);
+
+    /**
+     * <p>
+     * The interceptions of the beans, by bean name. Spring post processes each merged bean definition only once,
+     * while a prototype bean creates an instance each time it is requested.
+     * </p>
+     */
+    private final ConcurrentMap<String, WovenMunitMessageProcessorInterceptor> interceptions = new ConcurrentHashMap<String, WovenMunitMessageProcessorInterceptor>();
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName)
+    {
+        Object interception = beanDefinition.getAttribute(INTERCEPTION_ATTRIBUTE);
+        if (interception instanceof WovenMunitMessageProcessorInterceptor)
+        {
+            interceptions.put(beanName, (WovenMunitMessageProcessorInterceptor) interception);
+        }
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException
+    {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException
+    {
+        if (bean instanceof FactoryBean)
+        {
+            // The interception is attached to the created object, post processed later with the same name
+            return bean;
+        }
+
+        WovenMunitMessageProcessorInterceptor interception = interceptions.get(beanName);
+        if (interception != null)
+        {
+            if (bean instanceof WovenMessageProcessor)
+            {
+                ((WovenMessageProcessor) bean).munit$setInterception(interception);
+            }
+            else
+            {
+                logger.debug("The message processor " + beanName + " was not woven, it can not be mocked");
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public void destroy()
+    {
+        interceptions.clear();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import net.sf.cglib.proxy.MethodProxy;
+import org.mule.munit.common.agent.MunitWeaving;
+
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * The interception of a message processor woven by the Munit agent. It behaves as the
+ * {@link MunitMessageProcessorInterceptor} of a proxy, but the real code is the original process method of the woven
+ * class.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class WovenMunitMessageProcessorInterceptor extends MunitMessageProcessorInterceptor implements MunitWeaving.Interception {
+
+    /**
+     * <p>
+     * The original process method of the last intercepted class
+     * </p>
+     */
+    private volatile OriginalProcess originalProcess;
+
+    @Override
+    public Object process(Object messageProcessor, Object event) throws Throwable {
+        return process(messageProcessor, new Object[]{event}, null);
+    }
+
+    @Override
+    protected Object invokeSuper(Object obj, Object[] args, MethodProxy proxy) throws Throwable {
+        return MunitWeaving.invokeOriginal(obj, args[0], getOriginalProcess(obj.getClass()));
+    }
+
+    private Method getOriginalProcess(Class<?> wovenClass) {
+        OriginalProcess current = originalProcess;
+        if (current == null || current.wovenClass != wovenClass) {
+            current = new OriginalProcess(wovenClass, MunitWeaving.originalProcessOf(wovenClass));
+            originalProcess = current;
+        }
+        return current.method;
+    }
+
+    private static class OriginalProcess {
+
+        private final Class<?> wovenClass;
+        private final Method method;
+
+        private OriginalProcess(Class<?> wovenClass, Method method) {
+            this.wovenClass = wovenClass;
+            this.method = method;
+        }
+    }
+}
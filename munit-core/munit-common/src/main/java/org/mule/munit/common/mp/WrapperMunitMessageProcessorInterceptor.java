@@ -8,7 +8,9 @@ package org.mule.munit.common.mp;
 
 import org.mule.api.processor.MessageProcessor;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import net.sf.cglib.proxy.MethodProxy;
 import org.mule.processor.AbstractInterceptingMessageProcessorBase;
@@ -49,20 +51,39 @@ public class WrapperMunitMessageProcessorInterceptor extends MunitMessageProcess
         return invokeSuper(obj, args, proxy, method);
     }
 
+    /**
+     * <p>
+     * Calls the method on the real message processor. Public methods go through the CGLIB method proxy, the others,
+     * that the method proxy can not call, through reflection.
+     * </p>
+     */
     private Object invokeSuper(Object obj, Object[] args, MethodProxy proxy, Method method) throws Throwable
     {
+        if (Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass().isInstance(realMp))
+        {
+            return invokeSuper(obj, args, proxy);
+        }
+
         try
         {
-            if(!method.isAccessible()) {
+            if (!method.isAccessible())
+            {
                 method.setAccessible(true);
             }
             return method.invoke(realMp, args);
         }
-        catch (Throwable e)
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return invokeSuper(obj, args, proxy);
+        }
+        catch (IllegalAccessException e)
         {
             return invokeSuper(obj, args, proxy);
         }
-
     }
 
     @Override
@@ -104,7 +104,7 @@ public class MunitCoreTest
     public void buildStackTrace()
     {
 
-        when(manager.getCalls()).thenReturn(executedCalls());
+        when(manager.getRecentCalls(MunitCore.DEFAULT_STACK_TRACE_DEPTH)).thenReturn(executedCalls());
         List<StackTraceElement> stackTraceElements = MunitCore.buildMuleStackTrace(muleContext);
 
         assertEquals(1, stackTraceElements.size());
@@ -114,6 +114,34 @@ public class MunitCoreTest
         assertEquals(20, stackTraceElements.get(0).getLineNumber());
     }
 
+    @Test
+    public void stackTraceIsBoundedAndStartsWithTheNewestCall()
+    {
+        MockedMessageProcessorManager realManager = new MockedMessageProcessorManager();
+        when(muleRegistry.lookupObject(MockedMessageProcessorManager.ID)).thenReturn(realManager);
+        for (int i = 0; i < 10; i++)
+        {
+            realManager.addCall(new MunitMessageProcessorCall(new MessageProcessorId("mp" + i, "nsp")));
+        }
+
+        List<StackTraceElement> stackTraceElements = MunitCore.buildMuleStackTrace(muleContext, 3);
+
+        assertEquals(3, stackTraceElements.size());
+        assertEquals("nsp:mp9{}", stackTraceElements.get(0).getMethodName());
+        assertEquals("nsp:mp7{}", stackTraceElements.get(2).getMethodName());
+    }
+
+    @Test
+    public void stackTraceDoesNotModifyTheCallAttributes()
+    {
+        List<MunitMessageProcessorCall> calls = executedCalls();
+        when(manager.getRecentCalls(MunitCore.DEFAULT_STACK_TRACE_DEPTH)).thenReturn(calls);
+
+        MunitCore.buildMuleStackTrace(muleContext);
+
+        assertEquals(3, calls.get(0).getAttributes().size());
+    }
+
     private List<MunitMessageProcessorCall> executedCalls()
     {
         ArrayList<MunitMessageProcessorCall> calls = new ArrayList<MunitMessageProcessorCall>();
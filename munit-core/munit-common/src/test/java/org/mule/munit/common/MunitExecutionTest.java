@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleSession;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+import org.mule.munit.common.endpoint.MockEndpointManager;
+import org.mule.munit.common.mp.MockedMessageProcessorManager;
+import org.mule.munit.common.mp.MunitMessageProcessorCall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitExecutionTest
+{
+
+    private MuleContext muleContext;
+    private MockedMessageProcessorManager manager;
+    private MockEndpointManager endpointManager;
+
+    @Before
+    public void setUp()
+    {
+        muleContext = mock(MuleContext.class);
+        MuleRegistry muleRegistry = mock(MuleRegistry.class);
+        manager = new MockedMessageProcessorManager();
+        endpointManager = new MockEndpointManager();
+
+        when(muleContext.getRegistry()).thenReturn(muleRegistry);
+        when(muleRegistry.lookupObject(MunitRuntime.ID)).thenReturn(new MunitRuntime(muleContext));
+        when(muleRegistry.lookupObject(MockedMessageProcessorManager.ID)).thenReturn(manager);
+        when(muleRegistry.lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY)).thenReturn(endpointManager);
+    }
+
+    @After
+    public void tearDown()
+    {
+        MunitExecution.end(muleContext);
+    }
+
+    @Test
+    public void beginOpensTheScopeOfTheThread()
+    {
+        String executionId = MunitExecution.begin(muleContext);
+
+        assertEquals(executionId, MunitExecution.current());
+        assertNotSame(manager, manager.forExecution(executionId));
+        assertNotSame(endpointManager, endpointManager.forExecution(executionId));
+        assertSame(manager.forExecution(executionId), MunitRuntime.of(muleContext).currentMessageProcessorManager());
+    }
+
+    @Test
+    public void endClosesTheScopeOfTheThread()
+    {
+        String executionId = MunitExecution.begin(muleContext);
+        MunitExecution.end(muleContext);
+
+        assertNull(MunitExecution.current());
+        assertFalse(manager.hasExecutionScopes());
+        assertSame(manager, manager.forExecution(executionId));
+    }
+
+    @Test
+    public void eventsCarryTheExecutionId()
+    {
+        MuleEvent event = mock(MuleEvent.class);
+        MuleSession session = mock(MuleSession.class);
+        when(event.getSession()).thenReturn(session);
+
+        String executionId = MunitExecution.begin(muleContext);
+        MunitExecution.bind(event);
+
+        verify(session).setProperty(MunitExecution.EXECUTION_ID_PROPERTY, executionId);
+    }
+
+    @Test
+    public void eventWithoutSessionHasNoExecutionId()
+    {
+        assertNull(MunitExecution.idOf(mock(MuleEvent.class)));
+        assertNull(MunitExecution.idOf(null));
+    }
+
+    @Test
+    public void resetOnlyClearsTheScopeOfTheThread()
+    {
+        manager.addCall(new MunitMessageProcessorCall(new MessageProcessorId("name", "ns")));
+        MunitExecution.begin(muleContext);
+
+        MunitCore.reset(muleContext);
+
+        assertEquals(1, manager.getCalls().size());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.api.registry.RegistrationException;
+import org.mule.munit.common.endpoint.MockEndpointManager;
+import org.mule.munit.common.mp.MockedMessageProcessorManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitRuntimeTest
+{
+
+    private MuleContext muleContext;
+    private MuleRegistry muleRegistry;
+    private MockedMessageProcessorManager manager;
+    private MockEndpointManager endpointManager;
+
+    @Before
+    public void setUp()
+    {
+        muleContext = mock(MuleContext.class);
+        muleRegistry = mock(MuleRegistry.class);
+        manager = mock(MockedMessageProcessorManager.class);
+        endpointManager = mock(MockEndpointManager.class);
+
+        when(muleContext.getRegistry()).thenReturn(muleRegistry);
+        when(muleRegistry.lookupObject(MockedMessageProcessorManager.ID)).thenReturn(manager);
+        when(muleRegistry.lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY)).thenReturn(endpointManager);
+    }
+
+    @Test
+    public void managersAreLookedUpOnce()
+    {
+        MunitRuntime runtime = MunitRuntime.of(muleContext);
+
+        assertEquals(manager, runtime.getMessageProcessorManager());
+        assertEquals(manager, runtime.getMessageProcessorManager());
+        assertEquals(endpointManager, runtime.getEndpointManager());
+        assertEquals(endpointManager, runtime.getEndpointManager());
+
+        verify(muleRegistry, times(1)).lookupObject(MockedMessageProcessorManager.ID);
+        verify(muleRegistry, times(1)).lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY);
+    }
+
+    @Test
+    public void theBoundRuntimeIsReturned()
+    {
+        MunitRuntime runtime = new MunitRuntime(muleContext);
+        when(muleRegistry.lookupObject(MunitRuntime.ID)).thenReturn(runtime);
+
+        assertSame(runtime, MunitRuntime.of(muleContext));
+        assertSame(runtime, MunitRuntime.bind(muleContext));
+    }
+
+    @Test
+    public void bindRegistersTheRuntime() throws RegistrationException
+    {
+        MunitRuntime runtime = MunitRuntime.bind(muleContext);
+
+        verify(muleRegistry).registerObject(eq(MunitRuntime.ID), isA(MunitRuntime.class));
+        assertSame(muleContext, runtime.getMuleContext());
+    }
+
+    @Test
+    public void resetBothManagers()
+    {
+        MunitRuntime.of(muleContext).reset();
+
+        verify(endpointManager).resetBehaviors();
+        verify(manager).reset();
+    }
+
+    @Test
+    public void endpointFactoryThatIsNotMockedIsIgnored()
+    {
+        when(muleRegistry.lookupObject(MuleProperties.OBJECT_MULE_ENDPOINT_FACTORY)).thenReturn(new Object());
+
+        assertNull(MunitRuntime.of(muleContext).getEndpointManager());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorWeaverTest
+{
+
+    private MessageProcessorWeaver weaver = new MessageProcessorWeaver();
+
+    @Test
+    public void classesWithoutProcessMethodAreNotWoven() throws Exception
+    {
+        assertNull(weaver.weave(bytesOf(NotAMessageProcessor.class)));
+        assertNull(weaver.transform(getClass().getClassLoader(), "org/mule/munit/common/agent/MessageProcessorWeaverTest$NotAMessageProcessor",
+                                    null, null, bytesOf(NotAMessageProcessor.class)));
+    }
+
+    @Test
+    public void wovenMessageProcessorWithoutInterceptionRunsItsCode() throws Throwable
+    {
+        MessageProcessor mp = newWovenInstance(EchoMessageProcessor.class);
+        MuleEvent event = mock(MuleEvent.class);
+
+        assertTrue(mp instanceof WovenMessageProcessor);
+        assertSame(event, mp.process(event));
+    }
+
+    @Test
+    public void wovenMessageProcessorCallsItsInterception() throws Throwable
+    {
+        MessageProcessor mp = newWovenInstance(EchoMessageProcessor.class);
+        MuleEvent event = mock(MuleEvent.class);
+        MuleEvent mockedEvent = mock(MuleEvent.class);
+        CountingInterception interception = new CountingInterception(mockedEvent);
+
+        ((WovenMessageProcessor) mp).munit$setInterception(interception);
+
+        assertSame(mockedEvent, mp.process(event));
+        assertEquals(1, interception.calls);
+    }
+
+    @Test
+    public void originalCodeIsCalledByTheInterception() throws Throwable
+    {
+        MessageProcessor mp = newWovenInstance(EchoMessageProcessor.class);
+        MuleEvent event = mock(MuleEvent.class);
+
+        assertSame(event, MunitWeaving.invokeOriginal(mp, event, MunitWeaving.originalProcessOf(mp.getClass())));
+    }
+
+    @Test
+    public void exceptionsOfTheOriginalCodeAreNotWrapped() throws Throwable
+    {
+        MessageProcessor mp = newWovenInstance(EchoMessageProcessor.class);
+
+        try
+        {
+            MunitWeaving.invokeOriginal(mp, null, MunitWeaving.originalProcessOf(mp.getClass()));
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("No event", e.getMessage());
+        }
+    }
+
+    @Test
+    public void superProcessCallIsNotInterceptedTwice() throws Throwable
+    {
+        MessageProcessor mp = newWovenInstance(SubEchoMessageProcessor.class, EchoMessageProcessor.class);
+        MuleEvent event = mock(MuleEvent.class);
+        CountingInterception interception = new CountingInterception(null);
+
+        ((WovenMessageProcessor) mp).munit$setInterception(interception);
+
+        assertSame(event, mp.process(event));
+        assertEquals(1, interception.calls);
+    }
+
+    private MessageProcessor newWovenInstance(Class<?> type, Class<?>... wovenSuperClasses) throws Exception
+    {
+        WeavingClassLoader classLoader = new WeavingClassLoader();
+        for (Class<?> superClass : wovenSuperClasses)
+        {
+            classLoader.define(superClass);
+        }
+        return (MessageProcessor) classLoader.define(type).newInstance();
+    }
+
+    private static byte[] bytesOf(Class<?> type) throws IOException
+    {
+        InputStream stream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        try
+        {
+            return IOUtils.toByteArray(stream);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private class WeavingClassLoader extends ClassLoader
+    {
+
+        private WeavingClassLoader()
+        {
+            super(MessageProcessorWeaverTest.class.getClassLoader());
+        }
+
+        private Class<?> define(Class<?> type) throws IOException
+        {
+            byte[] woven = weaver.weave(bytesOf(type));
+            assertNotNull(woven);
+            return defineClass(type.getName(), woven, 0, woven.length);
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            Class<?> loaded = findLoadedClass(name);
+            return loaded != null ? loaded : super.loadClass(name, resolve);
+        }
+    }
+
+    private static class CountingInterception implements MunitWeaving.Interception
+    {
+
+        private final Object result;
+        private int calls;
+
+        private CountingInterception(Object result)
+        {
+            this.result = result;
+        }
+
+        @Override
+        public Object process(Object messageProcessor, Object event) throws Throwable
+        {
+            calls++;
+            if (result != null)
+            {
+                return result;
+            }
+            return MunitWeaving.invokeOriginal(messageProcessor, event, MunitWeaving.originalProcessOf(messageProcessor.getClass()));
+        }
+    }
+
+    public static class EchoMessageProcessor implements MessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            if (event == null)
+            {
+                throw new IllegalArgumentException("No event");
+            }
+            return event;
+        }
+    }
+
+    public static class SubEchoMessageProcessor extends EchoMessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return super.process(event);
+        }
+    }
+
+    public static class NotAMessageProcessor
+    {
+
+        public String process(String value)
+        {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.endpoint;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.mule.api.DefaultMuleException;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class AddressPatternIndexTest
+{
+
+    private static final OutboundBehavior FIRST = new OutboundBehavior(new DefaultMuleException("first"), null);
+    private static final OutboundBehavior SECOND = new OutboundBehavior(new DefaultMuleException("second"), null);
+
+    @Test
+    public void globSingleStarDoesNotCrossSegments()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost:8080/users/*", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("http://localhost:8080/users/10"));
+        assertNull(index.getBehaviorFor("http://localhost:8080/users/10/orders"));
+        assertNull(index.getBehaviorFor("http://localhost:8080/accounts/10"));
+    }
+
+    @Test
+    public void globDoubleStarCrossesSegments()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost:8080/**", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("http://localhost:8080/users/10/orders?page=1"));
+    }
+
+    @Test
+    public void globLiteralCharactersAreNotRegex()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/search?q=*", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("http://localhost/search?q=munit"));
+        assertNull(index.getBehaviorFor("http://localhostXsearch?q=munit"));
+    }
+
+    @Test
+    public void regexMustMatchTheWholeAddress()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("regex:vm://queue-[0-9]+", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("vm://queue-12"));
+        assertNull(index.getBehaviorFor("vm://queue-12-dlq"));
+    }
+
+    @Test
+    public void regexWithAlternationIsMatched()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("regex:vm://in|jms://out", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("jms://out"));
+    }
+
+    @Test
+    public void regexWithOptionalCharacterAfterPrefixIsMatched()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("regex:https?://localhost", FIRST);
+
+        assertSame(FIRST, index.getBehaviorFor("http://localhost"));
+        assertSame(FIRST, index.getBehaviorFor("https://localhost"));
+    }
+
+    @Test
+    public void globWinsOverRegex()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/*", FIRST);
+        index.add("regex:http://localhost/users", SECOND);
+
+        assertSame(FIRST, index.getBehaviorFor("http://localhost/users"));
+    }
+
+    @Test
+    public void longestPrefixWins()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/users/*", SECOND);
+        index.add("glob:http://localhost/**", FIRST);
+
+        assertSame(SECOND, index.getBehaviorFor("http://localhost/users/10"));
+        assertSame(FIRST, index.getBehaviorFor("http://localhost/accounts/10"));
+    }
+
+    @Test
+    public void lastRegisteredWinsWithTheSamePrefix()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/*", FIRST);
+        index.add("glob:http://localhost/**", SECOND);
+
+        assertSame(SECOND, index.getBehaviorFor("http://localhost/users"));
+    }
+
+    @Test
+    public void samePatternReplacesTheBehavior()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/*", FIRST);
+        index.add("glob:http://localhost/*", SECOND);
+
+        assertSame(SECOND, index.getBehaviorFor("http://localhost/users"));
+    }
+
+    @Test
+    public void manyPatternsAreServedFromTheIndex()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        for (int i = 0; i < 5000; i++)
+        {
+            index.add("glob:http://localhost/service" + i + "/*", i == 4321 ? SECOND : FIRST);
+        }
+
+        assertSame(SECOND, index.getBehaviorFor("http://localhost/service4321/users"));
+        assertNull(index.getBehaviorFor("http://localhost/other/users"));
+    }
+
+    @Test
+    public void clear()
+    {
+        AddressPatternIndex index = new AddressPatternIndex();
+        index.add("glob:http://localhost/*", FIRST);
+        assertFalse(index.isEmpty());
+
+        index.clear();
+
+        assertTrue(index.isEmpty());
+        assertNull(index.getBehaviorFor("http://localhost/users"));
+    }
+}
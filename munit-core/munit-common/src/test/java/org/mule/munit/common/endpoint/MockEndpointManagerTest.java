@@ -7,14 +7,20 @@
 package org.mule.munit.common.endpoint;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.mule.api.DefaultMuleException;
 import org.mule.api.MuleException;
 import org.mule.api.endpoint.EndpointBuilder;
 import org.mule.api.endpoint.EndpointFactory;
 import org.mule.api.endpoint.EndpointURI;
+import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.munit.common.mocking.Bulkhead;
+import org.mule.munit.common.mocking.FaultSchedule;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -125,4 +131,71 @@ public class MockEndpointManagerTest
         assertTrue(manager.behaviors.isEmpty());
     }
 
+    @Test
+    public void exactAddressWinsOverPatterns()
+    {
+        OutboundBehavior patternBehavior = new OutboundBehavior(new DefaultMuleException("pattern"), null);
+        MockEndpointManager manager = new MockEndpointManager();
+        manager.addBehavior("glob:http://localhost/*", patternBehavior);
+        manager.addBehavior("http://localhost/any", OUTBOUND_BEHAVIOR);
+
+        assertEquals(OUTBOUND_BEHAVIOR, manager.getBehaviorFor("http://localhost/any"));
+        assertEquals(patternBehavior, manager.getBehaviorFor("http://localhost/other"));
+    }
+
+    @Test
+    public void testResetPatterns()
+    {
+        MockEndpointManager manager = new MockEndpointManager();
+        manager.addBehavior("regex:http://localhost/.*", OUTBOUND_BEHAVIOR);
+
+        manager.resetBehaviors();
+
+        assertTrue(manager.isEmpty());
+        assertNull(manager.getBehaviorFor("http://localhost/any"));
+    }
+
+    @Test
+    public void outboundEndpointWrapperIsReused() throws MuleException
+    {
+        OutboundEndpoint realEndpoint = mock(OutboundEndpoint.class);
+        when(realFactory.getOutboundEndpoint("uri")).thenReturn(realEndpoint);
+        MockEndpointManager manager = new MockEndpointManager();
+        manager.setDefaultFactory(realFactory);
+
+        OutboundEndpoint endpoint = manager.getOutboundEndpoint("uri");
+
+        assertSame(endpoint, manager.getOutboundEndpoint("uri"));
+        assertEquals(1, manager.getOutboundEndpointCache().getHits());
+    }
+
+    @Test
+    public void bulkheadStatisticsAreKeptUntilReset()
+    {
+        MockEndpointManager manager = new MockEndpointManager();
+        manager.addBehavior("any", new OutboundBehavior(new DefaultMuleException("error"), null, null, Bulkhead.queueing(2)));
+
+        assertEquals(1, manager.getBulkheadStatistics().size());
+        assertEquals(0, manager.getBulkheadStatistics().get("any").getCalls());
+
+        manager.resetBehaviors();
+
+        assertTrue(manager.getBulkheadStatistics().isEmpty());
+    }
+
+    @Test
+    public void faultCountersAreKeptUntilReset()
+    {
+        MockEndpointManager manager = new MockEndpointManager();
+        FaultSchedule faults = FaultSchedule.always();
+        manager.addBehavior("any", new OutboundBehavior(new DefaultMuleException("error"), null, null, null, faults));
+        faults.nextCallFails();
+
+        assertEquals(1, manager.countInjectedFaults("any"));
+        assertEquals(0, manager.countFaultPasses("any"));
+
+        manager.resetBehaviors();
+
+        assertEquals(0, manager.countInjectedFaults("any"));
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.endpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import org.mule.api.endpoint.OutboundEndpoint;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MockOutboundEndpointCacheTest
+{
+
+    private MockEndpointManager manager = new MockEndpointManager();
+
+    @Test
+    public void wrapperIsReusedForTheSameEndpoint()
+    {
+        MockOutboundEndpointCache cache = new MockOutboundEndpointCache(10);
+        OutboundEndpoint realEndpoint = mock(OutboundEndpoint.class);
+
+        MockOutboundEndpoint wrapper = cache.wrap(realEndpoint, manager);
+
+        assertSame(wrapper, cache.wrap(realEndpoint, manager));
+        assertNotSame(wrapper, cache.wrap(mock(OutboundEndpoint.class), manager));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1d / 3, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void leastRecentlyUsedWrapperIsDiscarded()
+    {
+        MockOutboundEndpointCache cache = new MockOutboundEndpointCache(2);
+        OutboundEndpoint first = mock(OutboundEndpoint.class);
+        OutboundEndpoint second = mock(OutboundEndpoint.class);
+
+        MockOutboundEndpoint firstWrapper = cache.wrap(first, manager);
+        MockOutboundEndpoint secondWrapper = cache.wrap(second, manager);
+        cache.wrap(first, manager);
+        cache.wrap(mock(OutboundEndpoint.class), manager);
+
+        assertEquals(2, cache.size());
+        assertSame(firstWrapper, cache.wrap(first, manager));
+        assertNotSame(secondWrapper, cache.wrap(second, manager));
+    }
+
+    @Test
+    public void disabledCacheAlwaysCreatesTheWrapper()
+    {
+        MockOutboundEndpointCache cache = new MockOutboundEndpointCache(0);
+        OutboundEndpoint realEndpoint = mock(OutboundEndpoint.class);
+
+        assertNotSame(cache.wrap(realEndpoint, manager), cache.wrap(realEndpoint, manager));
+        assertEquals(0, cache.size());
+        assertEquals(0d, cache.getHitRatio(), 0);
+    }
+
+    @Test
+    public void clearDiscardsWrappersAndStatistics()
+    {
+        MockOutboundEndpointCache cache = new MockOutboundEndpointCache(10);
+        OutboundEndpoint realEndpoint = mock(OutboundEndpoint.class);
+        cache.wrap(realEndpoint, manager);
+        cache.wrap(realEndpoint, manager);
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+}
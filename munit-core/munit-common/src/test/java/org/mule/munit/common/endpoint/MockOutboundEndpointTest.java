@@ -6,6 +6,8 @@
  */
 package org.mule.munit.common.endpoint;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -116,6 +118,52 @@ public class MockOutboundEndpointTest
         verify(messageProcessor, never()).process(event);
     }
 
+    @Test
+    public void staticAddressIsNotEvaluated() throws MuleException
+    {
+        when(endpointManager.getBehaviorFor(ADDRESS)).thenReturn(null);
+
+        MockOutboundEndpoint endpoint = new MockOutboundEndpoint(realEndpoint);
+        endpoint.process(event);
+        endpoint.process(event);
+
+        verify(expressionManager, never()).isValidExpression(anyString());
+        verify(expressionManager, never()).evaluate(anyString(), any(MuleEvent.class));
+        verify(realEndpoint, times(2)).process(event);
+    }
+
+    @Test
+    public void dynamicAddressIsEvaluatedForEachEvent() throws MuleException
+    {
+        String dynamicAddress = "http://localhost:8080/#[flowVars.path]";
+        String dynamicAddressExpression = "#[string:" + dynamicAddress + "]";
+        when(realEndpoint.getAddress()).thenReturn(dynamicAddress);
+        when(expressionManager.isValidExpression(dynamicAddressExpression)).thenReturn(true);
+        when(expressionManager.evaluate(dynamicAddressExpression, event)).thenReturn(ADDRESS);
+        when(endpointManager.getBehaviorFor(ADDRESS)).thenReturn(new OutboundBehavior(new CopyMessageTransformer((DefaultMuleMessage) muleMessage),
+                                                                                      buildMessageAssertions()));
+
+        MockOutboundEndpoint endpoint = new MockOutboundEndpoint(realEndpoint);
+        endpoint.process(event);
+        endpoint.process(event);
+
+        verify(expressionManager, times(1)).isValidExpression(dynamicAddressExpression);
+        verify(expressionManager, times(2)).evaluate(dynamicAddressExpression, event);
+        verify(realEndpoint, never()).process(event);
+    }
+
+    @Test
+    public void withoutBehaviorsTheRealEndpointIsCalled() throws MuleException
+    {
+        when(endpointManager.isEmpty()).thenReturn(true);
+
+        new MockOutboundEndpoint(realEndpoint).process(event);
+
+        verify(realEndpoint, times(1)).process(event);
+        verify(endpointManager, never()).getBehaviorFor(anyString());
+        verify(realEndpoint, never()).getAddress();
+    }
+
     @Test
     public void testNotDefinedMethods()
     {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.mule.api.MuleException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class BulkheadTest
+{
+
+    @Test
+    public void callsOverTheLimitAreRejected() throws MuleException
+    {
+        Bulkhead bulkhead = Bulkhead.parse("1,reject");
+        bulkhead.enter();
+
+        try
+        {
+            bulkhead.enter();
+            fail();
+        }
+        catch (MuleException e)
+        {
+            // expected
+        }
+
+        bulkhead.exit();
+        bulkhead.enter();
+
+        assertEquals(3, bulkhead.getStatistics().getCalls());
+        assertEquals(1, bulkhead.getStatistics().getRejected());
+        assertEquals(0, bulkhead.getStatistics().getQueued());
+    }
+
+    @Test
+    public void callsOverTheLimitTimeOut() throws MuleException
+    {
+        Bulkhead bulkhead = Bulkhead.parse("1,timeout:20");
+        bulkhead.enter();
+
+        try
+        {
+            bulkhead.enter();
+            fail();
+        }
+        catch (MuleException e)
+        {
+            // expected
+        }
+
+        Bulkhead.Statistics statistics = bulkhead.getStatistics();
+        assertEquals(1, statistics.getQueued());
+        assertEquals(1, statistics.getTimedOut());
+        assertTrue(statistics.getMaxWaitMillis() >= 20);
+    }
+
+    @Test
+    public void callsOverTheLimitWaitForAFreeSlot() throws Exception
+    {
+        final Bulkhead bulkhead = Bulkhead.parse("1");
+        final CountDownLatch entered = new CountDownLatch(1);
+        bulkhead.enter();
+
+        Thread waiting = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    bulkhead.enter();
+                    entered.countDown();
+                    bulkhead.exit();
+                }
+                catch (MuleException e)
+                {
+                    // the test fails on the latch
+                }
+            }
+        };
+        waiting.start();
+
+        assertTrue(!entered.await(50, TimeUnit.MILLISECONDS));
+        bulkhead.exit();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        Bulkhead.Statistics statistics = bulkhead.getStatistics();
+        assertEquals(2, statistics.getCalls());
+        assertEquals(1, statistics.getQueued());
+        assertEquals(1, statistics.getMaxQueueLength());
+        assertTrue(statistics.getAverageWaitMillis() >= 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPolicy()
+    {
+        Bulkhead.parse("4,drop");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limitMustBePositive()
+    {
+        Bulkhead.queueing(0);
+    }
+
+    @Test
+    public void registryReportsAndForgetsTheBulkheads()
+    {
+        BulkheadRegistry registry = new BulkheadRegistry();
+        registry.register("http://localhost", Bulkhead.rejecting(2));
+
+        assertEquals(1, registry.getStatistics().size());
+
+        registry.reportAndClear();
+
+        assertTrue(registry.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void registryAddsUpTheBulkheadsOfTheSameName() throws Exception
+    {
+        BulkheadRegistry registry = new BulkheadRegistry();
+        Bulkhead first = Bulkhead.rejecting(1);
+        Bulkhead second = Bulkhead.rejecting(1);
+        registry.register("http://localhost", first);
+        registry.register("http://localhost", second);
+        registry.register("http://localhost", second);
+
+        first.enter();
+        first.exit();
+        second.enter();
+        second.exit();
+
+        assertEquals(1, registry.getStatistics().size());
+        assertEquals(2, registry.getStatistics().get("http://localhost").getCalls());
+    }
+}
@@ -88,6 +88,17 @@ public class EndpointMockerTest
 
     }
 
+    @Test
+    public void testAddressPatternsAreSetCorrectly()
+    {
+        EndpointMocker endpointMocker = new MockEndpointMocker(muleContext);
+        endpointMocker.whenEndpointWithAddressLike("http://localhost/*").thenReturn(muleMessage);
+        endpointMocker.whenEndpointWithAddressMatching("http://localhost/.*").thenReturn(muleMessage);
+
+        verify(endpointManager).addBehavior(eq("glob:http://localhost/*"), any(OutboundBehavior.class));
+        verify(endpointManager).addBehavior(eq("regex:http://localhost/.*"), any(OutboundBehavior.class));
+    }
+
     private ArrayList<SpyProcess> createSpyProcess(SpyProcess spy)
     {
         ArrayList<SpyProcess> spyProcesses = new ArrayList<SpyProcess>();
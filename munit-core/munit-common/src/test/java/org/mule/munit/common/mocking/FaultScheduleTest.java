@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class FaultScheduleTest
+{
+
+    @Test
+    public void alwaysFails()
+    {
+        FaultSchedule schedule = FaultSchedule.parse("always");
+
+        assertTrue(schedule.nextCallFails());
+        assertTrue(schedule.nextCallFails());
+        assertEquals(2, schedule.getInjectedFaults());
+        assertEquals(0, schedule.getPasses());
+    }
+
+    @Test
+    public void everyNthCallFails()
+    {
+        FaultSchedule schedule = FaultSchedule.parse("every:3");
+
+        assertFalse(schedule.nextCallFails());
+        assertFalse(schedule.nextCallFails());
+        assertTrue(schedule.nextCallFails());
+        assertFalse(schedule.nextCallFails());
+        assertEquals(1, schedule.getInjectedFaults());
+        assertEquals(3, schedule.getPasses());
+    }
+
+    @Test
+    public void sameSeedFailsSameCalls()
+    {
+        FaultSchedule first = FaultSchedule.parse("probability:0.3,1234");
+        FaultSchedule second = FaultSchedule.probability(0.3, 1234);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(first.nextCallFails(), second.nextCallFails());
+        }
+        assertTrue(first.getInjectedFaults() > 200 && first.getInjectedFaults() < 400);
+        assertEquals(1000, first.getInjectedFaults() + first.getPasses());
+    }
+
+    @Test
+    public void callsInsideTheWindowFail() throws InterruptedException
+    {
+        FaultSchedule schedule = FaultSchedule.parse("windows:0-50,60000-70000");
+
+        assertTrue(schedule.nextCallFails());
+        Thread.sleep(60);
+        assertFalse(schedule.nextCallFails());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void probabilityMustBeAFraction()
+    {
+        FaultSchedule.parse("probability:20");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSchedule()
+    {
+        FaultSchedule.parse("sometimes");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWindow()
+    {
+        FaultSchedule.parse("windows:500-100");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class LatencyDistributionTest
+{
+
+    private static final int SAMPLES = 10000;
+
+    @Test
+    public void fixed()
+    {
+        assertEquals(100, LatencyDistribution.parse("100").sampleMillis(new Random(1)));
+        assertEquals(100, LatencyDistribution.parse("fixed:100").sampleMillis(new Random(1)));
+    }
+
+    @Test
+    public void uniformStaysInItsRange()
+    {
+        LatencyDistribution latency = LatencyDistribution.parse("uniform:50,60");
+        Random random = new Random(1);
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            long sample = latency.sampleMillis(random);
+            assertTrue(sample >= 50 && sample <= 60);
+        }
+    }
+
+    @Test
+    public void normalIsCenteredOnItsMean()
+    {
+        LatencyDistribution latency = LatencyDistribution.parse("normal:120,30");
+        Random random = new Random(1);
+        long total = 0;
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            long sample = latency.sampleMillis(random);
+            assertTrue(sample >= 0);
+            total += sample;
+        }
+        assertEquals(120, total / SAMPLES, 3);
+    }
+
+    @Test
+    public void percentilesAreReplayed()
+    {
+        LatencyDistribution latency = LatencyDistribution.parse("percentiles:p50=80,p90=200,p100=800");
+        Random random = new Random(1);
+        int belowMedian = 0;
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            long sample = latency.sampleMillis(random);
+            assertTrue(sample >= 80 && sample <= 800);
+            if (sample <= 80)
+            {
+                belowMedian++;
+            }
+        }
+        assertEquals(0.5, (double) belowMedian / SAMPLES, 0.02);
+    }
+
+    @Test
+    public void delayBlocksTheThread()
+    {
+        long start = System.nanoTime();
+
+        LatencyDistribution.fixed(20).delay();
+
+        assertTrue(System.nanoTime() - start >= 20 * 1000000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDistribution()
+    {
+        LatencyDistribution.parse("gamma:1,2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void uniformMaximumLowerThanMinimum()
+    {
+        LatencyDistribution.uniform(20, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentilesMustGrow()
+    {
+        LatencyDistribution.parse("percentiles:50=100,90=20");
+    }
+}
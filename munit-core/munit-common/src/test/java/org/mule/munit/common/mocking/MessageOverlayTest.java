@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageOverlayTest
+{
+
+    private MuleContext muleContext;
+
+    @Before
+    public void setUp()
+    {
+        muleContext = mock(MuleContext.class);
+    }
+
+    @Test
+    public void overlayWritesPayloadAndProperties()
+    {
+        DefaultMuleMessage response = new DefaultMuleMessage("mocked", muleContext);
+        response.setInvocationProperty("invocation", "value");
+        response.setOutboundProperty("outbound", "value");
+        DefaultMuleMessage message = new DefaultMuleMessage("original", muleContext);
+        message.setInvocationProperty("other", "kept");
+
+        MessageOverlay.of(response).applyTo(message);
+
+        assertEquals("mocked", message.getPayload());
+        assertEquals("value", message.getInvocationProperty("invocation"));
+        assertEquals("value", message.getOutboundProperty("outbound"));
+        assertEquals("kept", message.getInvocationProperty("other"));
+    }
+
+    @Test
+    public void overlayIsTakenWhenItIsCreated()
+    {
+        DefaultMuleMessage response = new DefaultMuleMessage("mocked", muleContext);
+        MessageOverlay overlay = MessageOverlay.of(response);
+        response.setInvocationProperty("late", "value");
+        DefaultMuleMessage message = new DefaultMuleMessage("original", muleContext);
+
+        overlay.applyTo(message);
+
+        assertNull(message.getInvocationProperty("late"));
+    }
+
+    @Test
+    public void notDefinedPayloadIsNotWritten()
+    {
+        MessageOverlay overlay = MessageOverlay.of(new DefaultMuleMessage(NotDefinedPayload.getInstance(), muleContext));
+        DefaultMuleMessage message = new DefaultMuleMessage("original", muleContext);
+
+        overlay.applyTo(message);
+
+        assertTrue(overlay.isEmpty());
+        assertEquals("original", message.getPayload());
+    }
+
+    @Test
+    public void overlayWithPayloadIsNotEmpty()
+    {
+        assertFalse(MessageOverlay.of(new DefaultMuleMessage("mocked", muleContext)).isEmpty());
+    }
+}
@@ -15,6 +15,7 @@ import org.mule.api.MuleContext;
 import org.mule.api.registry.MuleRegistry;
 import org.mule.modules.interceptor.processors.MessageProcessorBehavior;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
+import org.mule.munit.common.mp.MunitMessageProcessorBehavior;
 
 import java.util.HashMap;
 
@@ -68,6 +69,17 @@ public class MessageProcessorMockerTest
         verify(manager).addBehavior(any(MessageProcessorBehavior.class));
     }
 
+    @Test
+    public void addBehaviorWithLatency()
+    {
+        mocker().when("testMp")
+                .ofNamespace("testNamespace")
+                .withLatency(LatencyDistribution.fixed(10))
+                .thenThrow(new RuntimeException());
+
+        verify(manager).addBehavior(any(MunitMessageProcessorBehavior.class));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void failIfNoMessageProcessorNameNotSet()
     {
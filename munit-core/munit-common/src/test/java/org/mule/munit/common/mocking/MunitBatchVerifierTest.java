@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleContext;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.munit.common.mp.MockedMessageProcessorManager;
+
+import junit.framework.AssertionFailedError;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitBatchVerifierTest
+{
+
+    private MuleContext muleContext;
+    private MuleRegistry muleRegistry;
+    private MockedMessageProcessorManager manager;
+
+    @Before
+    public void setUp()
+    {
+        muleContext = mock(MuleContext.class);
+        muleRegistry = mock(MuleRegistry.class);
+        manager = mock(MockedMessageProcessorManager.class);
+
+        when(muleContext.getRegistry()).thenReturn(muleRegistry);
+        when(muleRegistry.lookupObject(MockedMessageProcessorManager.ID)).thenReturn(manager);
+    }
+
+    @Test
+    public void expectationsAreCountedTogether()
+    {
+        when(manager.countCallsFor(anyList())).thenReturn(new long[] {2, 5, 0});
+
+        new MunitVerifier(muleContext).inBatch()
+                .verifyCallOfMessageProcessor("create-group").ofNamespace("jira").times(2)
+                .verifyCallOfMessageProcessor("logger").atLeast(3)
+                .verifyCallOfMessageProcessor("flow").withAttributes(Attribute.attribute("name").withValue("other")).atMost(0)
+                .verify();
+
+        verify(manager, times(1)).countCallsFor(anyList());
+    }
+
+    @Test
+    public void everyFailedExpectationIsReported()
+    {
+        when(manager.countCallsFor(anyList())).thenReturn(new long[] {1, 0, 4});
+
+        try
+        {
+            new MunitBatchVerifier(muleContext)
+                    .verifyCallOfMessageProcessor("create-group").ofNamespace("jira").times(2)
+                    .verifyCallOfMessageProcessor("logger").atLeastOnce()
+                    .verifyCallOfMessageProcessor("flow").atMost(4)
+                    .verify();
+        }
+        catch (AssertionFailedError e)
+        {
+            String[] failures = e.getMessage().split("\n");
+            assertEquals(2, failures.length);
+            assertTrue(failures[0].startsWith("On jira:create-group.Expected 2 but got 1 calls"));
+            assertTrue(failures[1].startsWith("On mule:logger.Expected at least 1 but got 0 calls"));
+            return;
+        }
+        fail();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void expectationsNeedAMessageProcessorName()
+    {
+        new MunitBatchVerifier(muleContext).times(1);
+    }
+}
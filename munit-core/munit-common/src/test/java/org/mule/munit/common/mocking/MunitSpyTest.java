@@ -7,6 +7,7 @@
 package org.mule.munit.common.mocking;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -116,6 +117,17 @@ public class MunitSpyTest
         verify(manager, times(0)).addBeforeCallSpyAssertion(any(SpyAssertion.class));
     }
 
+    @Test
+    public void testAsyncSpyAssertion()
+    {
+        SpyAssertion spyAssertion = new MunitSpy(muleContext).spyMessageProcessor("test")
+                .ofNamespace("testNamespace")
+                .async(true)
+                .createSpyAssertion(new MessageProcessorCall(new MessageProcessorId("test", "testNamespace")), Arrays.asList(mock(SpyProcess.class)));
+
+        assertTrue(spyAssertion.isAsync());
+    }
+
     @Test
     public void testRunSpyProcess() throws MuleException
     {
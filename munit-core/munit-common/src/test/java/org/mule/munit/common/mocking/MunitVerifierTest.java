@@ -11,11 +11,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import org.mule.api.MuleContext;
 import org.mule.api.registry.MuleRegistry;
-import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
 
-import java.util.ArrayList;
 import java.util.Map;
 
 import junit.framework.AssertionFailedError;
@@ -49,8 +47,8 @@ public class MunitVerifierTest
     public void withNoCallFailAtLeast()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(new ArrayList<MessageProcessorCall>());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(0L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -62,8 +60,8 @@ public class MunitVerifierTest
     public void withNoCallFailAtLeastOne()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(new ArrayList<MessageProcessorCall>());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(0L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -75,8 +73,8 @@ public class MunitVerifierTest
     public void withNoCallFailTimes()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(new ArrayList<MessageProcessorCall>());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(0L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -88,8 +86,8 @@ public class MunitVerifierTest
     public void withCallsFailAtMost()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -102,8 +100,8 @@ public class MunitVerifierTest
     public void withCallsOkTimes()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -115,8 +113,8 @@ public class MunitVerifierTest
     public void withCallsOkAtLeastOnce()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -129,8 +127,8 @@ public class MunitVerifierTest
     public void withCallsOkAtLeast()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -142,8 +140,8 @@ public class MunitVerifierTest
     public void withCallsOkAtMost()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -155,8 +153,8 @@ public class MunitVerifierTest
     public void verifyWithAttributes()
     {
 
-        when(manager.findCallsFor(any(MessageProcessorId.class), any(Map.class)))
-                .thenReturn(createCalls());
+        when(manager.countCallsFor(any(MessageProcessorId.class), any(Map.class)))
+                .thenReturn(3L);
 
         new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
                 .ofNamespace("testNamespace")
@@ -165,12 +163,29 @@ public class MunitVerifierTest
 
     }
 
-    private ArrayList<MessageProcessorCall> createCalls()
+    @Test
+    public void withInjectedFaultsOk()
     {
-        ArrayList<MessageProcessorCall> calls = new ArrayList<MessageProcessorCall>();
-        calls.add(new MessageProcessorCall(null));
-        calls.add(new MessageProcessorCall(null));
-        calls.add(new MessageProcessorCall(null));
-        return calls;
+
+        when(manager.countInjectedFaults(any(MessageProcessorId.class)))
+                .thenReturn(2L);
+
+        new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
+                .ofNamespace("testNamespace")
+                .injectedFaults(2);
+
+    }
+
+    @Test(expected = AssertionFailedError.class)
+    public void withInjectedFaultsFail()
+    {
+
+        when(manager.countInjectedFaults(any(MessageProcessorId.class)))
+                .thenReturn(1L);
+
+        new MunitVerifier(muleContext).verifyCallOfMessageProcessor("testName")
+                .ofNamespace("testNamespace")
+                .injectedFaults(2);
+
     }
 }
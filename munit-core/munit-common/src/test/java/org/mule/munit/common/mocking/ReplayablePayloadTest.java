@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class ReplayablePayloadTest
+{
+
+    private static final String CONTENT = "a big payload";
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = File.createTempFile("munit", ".payload");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, CONTENT);
+    }
+
+    @Test
+    public void filePayloadIsReadOnEachHit() throws Exception
+    {
+        assertReplayed(ReplayablePayload.from(ReplayablePayload.FILE_PREFIX + file.getAbsolutePath()));
+    }
+
+    @Test
+    public void mappedFilePayloadIsReadOnEachHit() throws Exception
+    {
+        assertReplayed(ReplayablePayload.from(ReplayablePayload.MAPPED_FILE_PREFIX + file.getAbsolutePath()));
+    }
+
+    @Test
+    public void locationWithoutPrefixIsAFile() throws Exception
+    {
+        assertReplayed(ReplayablePayload.from(file.getAbsolutePath()));
+    }
+
+    @Test
+    public void classpathPayload() throws Exception
+    {
+        ReplayablePayload payload = ReplayablePayload.from(ReplayablePayload.CLASSPATH_PREFIX + "/" + getClass().getName().replace('.', '/') + ".class");
+
+        assertTrue(IOUtils.toByteArray(payload.open()).length > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingClasspathResourceFails()
+    {
+        ReplayablePayload.fromClasspath("does/not/exist.json");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFileFails()
+    {
+        ReplayablePayload.fromFile(new File(file.getParentFile(), "does-not-exist.json"));
+    }
+
+    @Test
+    public void overlayOpensANewStreamForEachMessage() throws Exception
+    {
+        MuleContext muleContext = mock(MuleContext.class);
+        MessageOverlay overlay = MessageOverlay.of(new DefaultMuleMessage(ReplayablePayload.fromFile(file), muleContext));
+        DefaultMuleMessage first = new DefaultMuleMessage("original", muleContext);
+        DefaultMuleMessage second = new DefaultMuleMessage("original", muleContext);
+
+        overlay.applyTo(first);
+        overlay.applyTo(second);
+
+        assertNotSame(first.getPayload(), second.getPayload());
+        assertEquals(CONTENT, IOUtils.toString((InputStream) first.getPayload()));
+        assertEquals(CONTENT, IOUtils.toString((InputStream) second.getPayload()));
+    }
+
+    private void assertReplayed(ReplayablePayload payload) throws Exception
+    {
+        assertEquals(CONTENT, IOUtils.toString(payload.open()));
+        assertEquals(CONTENT, IOUtils.toString(payload.open()));
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.processor.MessageProcessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class AsyncSpyEvaluatorTest
+{
+
+    private static final MuleEvent EVENT = mock(MuleEvent.class);
+
+    @Test
+    public void assertionsRunOffTheCallingThread()
+    {
+        final List<Thread> threads = new ArrayList<Thread>();
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(Executors.newSingleThreadExecutor(), 5000);
+
+        evaluator.submit("Spy before test:mp", Arrays.<MessageProcessor>asList(new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                threads.add(Thread.currentThread());
+                return event;
+            }
+        }), EVENT);
+        evaluator.verify();
+
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0) != Thread.currentThread());
+    }
+
+    @Test
+    public void failuresAreReportedOnVerify()
+    {
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(Executors.newSingleThreadExecutor(), 5000);
+        evaluator.submit("Spy before test:mp", Arrays.asList(failing("payload was null")), EVENT);
+
+        try
+        {
+            evaluator.verify();
+            fail();
+        }
+        catch (AssertionError e)
+        {
+            assertTrue(e.getMessage().contains("Spy before test:mp: payload was null"));
+        }
+
+        // Once reported the failures are forgotten
+        evaluator.verify();
+    }
+
+    @Test
+    public void unfinishedAssertionsFailOnVerify()
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(Executors.newSingleThreadExecutor(), 50);
+        evaluator.submit("Spy after test:mp", Arrays.<MessageProcessor>asList(new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return event;
+            }
+        }), EVENT);
+
+        try
+        {
+            evaluator.verify();
+            fail();
+        }
+        catch (AssertionError e)
+        {
+            assertTrue(e.getMessage().contains("1 asynchronous spy assertions did not finish"));
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void assertionsThatDoNotFitInTheQueueAreReported()
+    {
+        final List<Thread> threads = new ArrayList<Thread>();
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        }, 5000);
+        evaluator.submit("Spy after test:mp", Arrays.<MessageProcessor>asList(new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                threads.add(Thread.currentThread());
+                return event;
+            }
+        }), EVENT);
+
+        assertTrue(threads.isEmpty());
+        assertEquals(0, evaluator.getPending());
+        try
+        {
+            evaluator.verify();
+            fail();
+        }
+        catch (AssertionError e)
+        {
+            assertTrue(e.getMessage().contains("Spy after test:mp: the assertion was not evaluated"));
+        }
+    }
+
+    @Test
+    public void streamedPayloadsCanNotBeEvaluatedAsynchronously()
+    {
+        assertFalse(AsyncSpyEvaluator.canEvaluate(eventWith(new ByteArrayInputStream(new byte[0]))));
+        assertFalse(AsyncSpyEvaluator.canEvaluate(eventWith(new StringReader(""))));
+        assertTrue(AsyncSpyEvaluator.canEvaluate(eventWith("payload")));
+        assertTrue(AsyncSpyEvaluator.canEvaluate(eventWith(null)));
+    }
+
+    @Test
+    public void mutablePayloadsCanNotBeEvaluatedAsynchronously()
+    {
+        assertFalse(AsyncSpyEvaluator.canEvaluate(eventWith(new HashMap<String, String>())));
+        assertFalse(AsyncSpyEvaluator.canEvaluate(eventWith(new ArrayList<String>())));
+        assertFalse(AsyncSpyEvaluator.canEvaluate(eventWith(new Object())));
+        assertTrue(AsyncSpyEvaluator.canEvaluate(eventWith(new byte[] {1})));
+        assertTrue(AsyncSpyEvaluator.canEvaluate(eventWith(42)));
+    }
+
+    @Test
+    public void clearDiscardsTheFailures()
+    {
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        }, 5000);
+        evaluator.submit("Spy before test:mp", Arrays.asList(failing("error")), EVENT);
+
+        evaluator.clear();
+
+        assertEquals(0, evaluator.getPending());
+        evaluator.verify();
+    }
+
+    private MessageProcessor failing(final String message)
+    {
+        return new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                throw new AssertionError(message);
+            }
+        };
+    }
+
+    private MuleEvent eventWith(Object payload)
+    {
+        MuleEvent event = mock(MuleEvent.class);
+        MuleMessage message = mock(MuleMessage.class);
+        when(event.getMessage()).thenReturn(message);
+        when(message.getPayload()).thenReturn(payload);
+        return event;
+    }
+}
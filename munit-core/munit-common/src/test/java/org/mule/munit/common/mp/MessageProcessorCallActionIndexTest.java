@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.mule.modules.interceptor.matchers.AnyClassMatcher;
+import org.mule.modules.interceptor.processors.MessageProcessorCall;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallActionIndexTest
+{
+
+    private static final MessageProcessorId MESSAGE_PROCESSOR_ID = new MessageProcessorId("testName", "testNamespace");
+
+    private MessageProcessorCallActionIndex<SpyAssertion> index;
+
+    @Before
+    public void setUp()
+    {
+        index = new MessageProcessorCallActionIndex<SpyAssertion>();
+    }
+
+    @Test
+    public void actionsWithoutCallAreNotIndexed()
+    {
+        index.add(new SpyAssertion(null, null));
+
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void theHeaviestActionWins()
+    {
+        SpyAssertion any = new SpyAssertion(createCall(new HashMap<String, Object>()), null);
+        SpyAssertion specific = new SpyAssertion(createCall(attributes("attr", "attrValue")), null);
+        index.add(specific);
+        index.add(any);
+
+        assertEquals(specific, index.getBetterMatchingAction(createCall(attributes("attr", "attrValue"))));
+        assertEquals(any, index.getBetterMatchingAction(createCall(attributes("attr", "another"))));
+    }
+
+    @Test
+    public void onEqualWeightTheLastRegisteredWins()
+    {
+        SpyAssertion first = new SpyAssertion(createCall(new HashMap<String, Object>()), null);
+        SpyAssertion last = new SpyAssertion(createCall(new HashMap<String, Object>()), null);
+        index.add(first);
+        index.add(last);
+
+        assertEquals(last, index.getBetterMatchingAction(createCall(attributes("attr", "attrValue"))));
+    }
+
+    @Test
+    public void matchersAreEvaluated()
+    {
+        SpyAssertion spyAssertion = new SpyAssertion(createCall(attributes("attr", new AnyClassMatcher(String.class))), null);
+        index.add(spyAssertion);
+
+        assertEquals(spyAssertion, index.getBetterMatchingAction(createCall(attributes("attr", "attrValue"))));
+        assertNull(index.getBetterMatchingAction(createCall(attributes("attr", 1))));
+    }
+
+    @Test
+    public void onlyTheCalledMessageProcessorIsMatched()
+    {
+        index.add(new SpyAssertion(createCall(new HashMap<String, Object>()), null));
+
+        assertTrue(index.contains(MESSAGE_PROCESSOR_ID));
+        assertFalse(index.contains(new MessageProcessorId("another", "another")));
+        assertNull(index.getBetterMatchingAction(new MessageProcessorCall(new MessageProcessorId("another", "another"))));
+    }
+
+    @Test
+    public void clearRemovesAll()
+    {
+        index.add(new SpyAssertion(createCall(new HashMap<String, Object>()), null));
+
+        index.clear();
+
+        assertTrue(index.isEmpty());
+        assertNull(index.getBetterMatchingAction(createCall(new HashMap<String, Object>())));
+    }
+
+    private Map<String, Object> attributes(String name, Object value)
+    {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put(name, value);
+        return attributes;
+    }
+
+    private MessageProcessorCall createCall(Map<String, Object> attributes)
+    {
+        MessageProcessorCall call = new MessageProcessorCall(MESSAGE_PROCESSOR_ID);
+        call.setAttributes(attributes);
+        return call;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorCallJournalTest
+{
+
+    @Test
+    public void callsAreKeptInOrderAcrossChunks()
+    {
+        MessageProcessorCallJournal<Integer> journal = new MessageProcessorCallJournal<Integer>();
+        for (int i = 0; i < 1000; i++)
+        {
+            journal.add(i);
+        }
+
+        List<Integer> snapshot = journal.snapshot();
+
+        assertEquals(1000, snapshot.size());
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(Integer.valueOf(i), snapshot.get(i));
+        }
+    }
+
+    @Test
+    public void snapshotIsNotModifiedByNewCalls()
+    {
+        MessageProcessorCallJournal<String> journal = new MessageProcessorCallJournal<String>();
+        journal.add("first");
+
+        List<String> snapshot = journal.snapshot();
+        journal.add("second");
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, journal.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsReadOnly()
+    {
+        new MessageProcessorCallJournal<String>().snapshot().add("call");
+    }
+
+    @Test
+    public void clearKeepsOldSnapshots()
+    {
+        MessageProcessorCallJournal<String> journal = new MessageProcessorCallJournal<String>();
+        journal.add("call");
+        List<String> snapshot = journal.snapshot();
+
+        journal.clear();
+
+        assertTrue(journal.isEmpty());
+        assertTrue(journal.snapshot().isEmpty());
+        assertEquals("call", snapshot.get(0));
+    }
+
+    @Test
+    public void concurrentCallsAreAllRecorded() throws InterruptedException
+    {
+        final MessageProcessorCallJournal<Integer> journal = new MessageProcessorCallJournal<Integer>();
+        final int threads = 8;
+        final int callsPerThread = 5000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++)
+        {
+            final int base = t * callsPerThread;
+            new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        for (int i = 0; i < callsPerThread; i++)
+                        {
+                            journal.add(base + i);
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally
+                    {
+                        end.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        end.await();
+
+        Set<Integer> recorded = new HashSet<Integer>(journal.snapshot());
+        assertEquals(threads * callsPerThread, recorded.size());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.processor.AbstractInterceptingMessageProcessor;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MessageProcessorDispatcherTest
+{
+
+    @Test
+    public void processNextOfAnInterceptingMessageProcessor() throws Throwable
+    {
+        InterceptingMessageProcessor mp = new InterceptingMessageProcessor();
+        MuleEvent event = mock(MuleEvent.class);
+
+        MessageProcessorDispatcher dispatcher = new MessageProcessorDispatcher(mp.getClass());
+
+        assertSame(event, dispatcher.processNext(mp, event));
+        assertSame(event, dispatcher.processNext(mp, event));
+    }
+
+    @Test
+    public void dispatcherIsSharedByTheProxyClass()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache();
+
+        MessageProcessorDispatcher dispatcher = cache.getDispatcher(Target.class);
+
+        assertSame(dispatcher, cache.getDispatcher(Target.class));
+        assertSame(Target.class, dispatcher.getProxyClass());
+    }
+
+    private static class InterceptingMessageProcessor extends AbstractInterceptingMessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return event;
+        }
+    }
+
+    private static class Target
+    {
+
+    }
+}
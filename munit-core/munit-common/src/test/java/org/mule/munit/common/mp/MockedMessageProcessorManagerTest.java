@@ -8,6 +8,8 @@ package org.mule.munit.common.mp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import org.mule.DefaultMuleMessage;
@@ -18,6 +20,7 @@ import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.munit.common.mocking.CopyMessageTransformer;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -109,6 +112,31 @@ public class MockedMessageProcessorManagerTest
         assertTrue(manager.beforeCallSpyAssertions.isEmpty());
         assertTrue(manager.afterCallSpyAssertions.isEmpty());
         assertTrue(manager.calls.isEmpty());
+        assertTrue(manager.behaviorIndex.isEmpty());
+        assertTrue(manager.beforeCallSpyAssertionIndex.isEmpty());
+        assertTrue(manager.afterCallSpyAssertionIndex.isEmpty());
+    }
+
+    @Test
+    public void getTheBestMatchingSpyAssertions()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        SpyAssertion before = new SpyAssertion(createCall(), null);
+        SpyAssertion after = new SpyAssertion(createCall(), null);
+        manager.addBeforeCallSpyAssertion(before);
+        manager.addAfterCallSpyAssertion(after);
+
+        assertEquals(before, manager.getBetterMatchingBeforeSpyAssertion(createCall()));
+        assertEquals(after, manager.getBetterMatchingAfterSpyAssertion(createCall()));
+    }
+
+    @Test
+    public void behaviorsOfOtherMessageProcessorsAreNotMatched()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.addBehavior(new MessageProcessorBehavior(createCall(), new CopyMessageTransformer((DefaultMuleMessage) muleMessage)));
+
+        assertNull(manager.getBetterMatchingBehavior(new MessageProcessorCall(new MessageProcessorId("another", "another"))));
     }
 
     @Test
@@ -128,6 +156,134 @@ public class MockedMessageProcessorManagerTest
 
     }
 
+    @Test
+    public void countCallsWithoutAttributes()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.addCall(createCall());
+        manager.addCall(createCall());
+
+        assertEquals(2, manager.countCallsFor(MESSAGE_PROCESSOR_ID, new HashMap<String, Object>()));
+        assertEquals(0, manager.countCallsFor(new MessageProcessorId("another", "another"), new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void countManyExpectationsAtOnce()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.addCall(createCall());
+        manager.addCall(createCall());
+        manager.addCall(new MunitMessageProcessorCall(new MessageProcessorId("another", "another")));
+
+        Map<String, Object> matching = new HashMap<String, Object>();
+        matching.put("attr", new EqMatcher("attrValue"));
+        Map<String, Object> notMatching = new HashMap<String, Object>();
+        notMatching.put("attr", new EqMatcher("other"));
+
+        long[] counts = manager.countCallsFor(Arrays.asList(MessageProcessorCallMatcher.compile(MESSAGE_PROCESSOR_ID, null),
+                                                            MessageProcessorCallMatcher.compile(MESSAGE_PROCESSOR_ID, matching),
+                                                            MessageProcessorCallMatcher.compile(MESSAGE_PROCESSOR_ID, notMatching),
+                                                            MessageProcessorCallMatcher.compile(new MessageProcessorId("another", "another"), null),
+                                                            MessageProcessorCallMatcher.compile(new MessageProcessorId("none", "none"), matching)));
+
+        assertEquals(2, counts[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(0, counts[2]);
+        assertEquals(1, counts[3]);
+        assertEquals(0, counts[4]);
+    }
+
+    @Test
+    public void resetRemovesTheIndexedCalls()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.addCall(createCall());
+
+        manager.reset();
+
+        assertTrue(manager.callsById.isEmpty());
+        assertTrue(manager.findCallsFor(MESSAGE_PROCESSOR_ID, null).isEmpty());
+    }
+
+    @Test
+    public void countOnlyModeKeepsABoundedSample()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.setRecordingMode(CallRecordingMode.COUNT_ONLY);
+        for (int i = 0; i < MockedMessageProcessorManager.CALL_SAMPLE_SIZE * 3; i++)
+        {
+            manager.addCall(createCall());
+        }
+
+        assertEquals(MockedMessageProcessorManager.CALL_SAMPLE_SIZE * 3, manager.countCallsFor(MESSAGE_PROCESSOR_ID, null));
+        assertEquals(MockedMessageProcessorManager.CALL_SAMPLE_SIZE, manager.getCalls().size());
+        assertTrue(manager.calls.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void countOnlyModeCannotVerifyAttributes()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.setRecordingMode(CallRecordingMode.COUNT_ONLY);
+        manager.addCall(createCall());
+
+        HashMap<String, Object> attributesMatchers = new HashMap<String, Object>();
+        attributesMatchers.put("attr", new EqMatcher("attrValue"));
+        manager.countCallsFor(MESSAGE_PROCESSOR_ID, attributesMatchers);
+    }
+
+    @Test
+    public void resetRestoresTheDefaultRecordingMode()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.setDefaultRecordingMode(CallRecordingMode.COUNT_ONLY);
+        manager.setRecordingMode(CallRecordingMode.FULL);
+        manager.addCall(createCall());
+
+        manager.reset();
+
+        assertEquals(CallRecordingMode.COUNT_ONLY, manager.getRecordingMode());
+        assertEquals(0, manager.countCallsFor(MESSAGE_PROCESSOR_ID, null));
+    }
+
+    @Test
+    public void messageProcessorsWithoutActionsArePassthrough()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        long generation = manager.getGeneration();
+        assertTrue(manager.isPassthrough(MESSAGE_PROCESSOR_ID));
+
+        manager.addAfterCallSpyAssertion(new SpyAssertion(createCall(), null));
+
+        assertFalse(manager.isPassthrough(MESSAGE_PROCESSOR_ID));
+        assertTrue(manager.isPassthrough(new MessageProcessorId("another", "another")));
+        assertTrue(manager.getGeneration() > generation);
+    }
+
+    @Test
+    public void executionScopesKeepTheirOwnCalls()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        MockedMessageProcessorManager scope = manager.openExecutionScope("execution");
+
+        manager.forExecution("execution").addCall(createCall());
+
+        assertTrue(manager.hasExecutionScopes());
+        assertEquals(1, scope.getCalls().size());
+        assertTrue(manager.getCalls().isEmpty());
+    }
+
+    @Test
+    public void closedExecutionScopeUsesTheManagerState()
+    {
+        MockedMessageProcessorManager manager = new MockedMessageProcessorManager();
+        manager.openExecutionScope("execution");
+        manager.closeExecutionScope("execution");
+
+        assertFalse(manager.hasExecutionScopes());
+        assertSame(manager, manager.forExecution("execution"));
+        assertSame(manager, manager.forExecution(null));
+    }
 
     private MunitMessageProcessorCall createCall()
     {
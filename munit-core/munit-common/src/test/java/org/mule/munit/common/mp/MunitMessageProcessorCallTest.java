@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitMessageProcessorCallTest
+{
+
+    @Test
+    public void attributesAreNotEvaluatedUntilRead()
+    {
+        CountingResolver resolver = new CountingResolver();
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(new MessageProcessorId("set-variable", "mule"));
+        call.setAttributesResolver(resolver);
+
+        assertTrue(call.hasPendingAttributes());
+        assertEquals(0, resolver.evaluations);
+    }
+
+    @Test
+    public void attributesAreEvaluatedOnce()
+    {
+        CountingResolver resolver = new CountingResolver();
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(new MessageProcessorId("set-variable", "mule"));
+        call.setAttributesResolver(resolver);
+
+        assertEquals("value", call.getAttributes().get("variableName"));
+        assertEquals("value", call.getAttributes().get("variableName"));
+        assertEquals(1, resolver.evaluations);
+        assertFalse(call.hasPendingAttributes());
+    }
+
+    @Test
+    public void setAttributesDiscardsThePendingEvaluation()
+    {
+        CountingResolver resolver = new CountingResolver();
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(new MessageProcessorId("set-variable", "mule"));
+        call.setAttributesResolver(resolver);
+
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        call.setAttributes(attributes);
+
+        assertEquals(attributes, call.getAttributes());
+        assertEquals(0, resolver.evaluations);
+    }
+
+    @Test
+    public void callsShareTheDescriptor()
+    {
+        MessageProcessorDescriptor descriptor = MessageProcessorDescriptor.of(new MessageProcessorId("set-variable", "mule"), "mule-config.xml", "20");
+
+        MunitMessageProcessorCall first = new MunitMessageProcessorCall(descriptor);
+        MunitMessageProcessorCall second = new MunitMessageProcessorCall(descriptor);
+
+        assertSame(first.getMessageProcessorId(), second.getMessageProcessorId());
+        assertEquals(20, first.getLine());
+        assertEquals("20", first.getLineNumber());
+        assertEquals("mule-config.xml", second.getFileName());
+    }
+
+    @Test
+    public void changingTheLineNumberDoesNotChangeTheSharedDescriptor()
+    {
+        MessageProcessorDescriptor descriptor = MessageProcessorDescriptor.of(new MessageProcessorId("set-variable", "mule"), "mule-config.xml", "20");
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(descriptor);
+
+        call.setLineNumber("30");
+
+        assertEquals(30, call.getLine());
+        assertEquals(20, descriptor.getLineNumber());
+    }
+
+    @Test
+    public void invalidLineNumbersAreUnknown()
+    {
+        MunitMessageProcessorCall call = new MunitMessageProcessorCall(new MessageProcessorId("set-variable", "mule"));
+        call.setLineNumber("not a number");
+
+        assertEquals(0, call.getLine());
+        assertNull(call.getLineNumber());
+    }
+
+    private static class CountingResolver implements MunitMessageProcessorCall.AttributesResolver
+    {
+
+        private int evaluations;
+
+        @Override
+        public Map<String, Object> resolve()
+        {
+            evaluations++;
+            Map<String, Object> attributes = new HashMap<String, Object>();
+            attributes.put("variableName", "value");
+            return attributes;
+        }
+    }
+}
@@ -9,6 +9,9 @@ package org.mule.munit.common.mp;
 import net.sf.cglib.proxy.MethodProxy;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
 import org.mule.MessageExchangePattern;
@@ -25,14 +28,18 @@ import org.mule.modules.interceptor.processors.MessageProcessorBehavior;
 import org.mule.modules.interceptor.processors.MessageProcessorCall;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.munit.common.mocking.CopyMessageTransformer;
+import org.mule.munit.common.mocking.FaultSchedule;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static junit.framework.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -196,6 +203,113 @@ public class MunitMessageProcessorInterceptorTest {
     }
 
 
+    /**
+     * <p>
+     * Scenario:
+     * With asynchronous Spy before assertion.
+     * Return Event.
+     * No attributes.
+     * </p>
+     */
+    @Test
+    public void interceptWithAsyncSpyBeforeAssertion() throws Throwable {
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        }, 1000);
+        when(manager.getAsyncSpyEvaluator()).thenReturn(evaluator);
+        when(manager.getBetterMatchingBeforeSpyAssertion(any(MessageProcessorCall.class)))
+                .thenReturn(new SpyAssertion(new MessageProcessorCall(MESSAGE_PROCESSOR_ID), createAssertions(beforeAssertionMp), true));
+        when(manager.getBetterMatchingBehavior(any(MessageProcessorCall.class))).thenReturn(returnValueBehavior());
+
+        MuleMessage testMessage = new DefaultMuleMessage(muleMessage(), muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        interceptor.process(new Object(), new Object[]{testEvent}, proxy);
+
+        assertFalse(beforeAssertionMp.called);
+        assertEquals(1, evaluator.getPending());
+
+        queued.get(0).run();
+        evaluator.verify();
+
+        assertTrue(beforeAssertionMp.called);
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * With asynchronous Spy before assertion.
+     * Streamed payload, the assertion runs on the flow thread.
+     * </p>
+     */
+    @Test
+    public void interceptWithAsyncSpyOnStreamedPayload() throws Throwable {
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        }, 1000);
+        when(manager.getAsyncSpyEvaluator()).thenReturn(evaluator);
+        when(manager.getBetterMatchingBeforeSpyAssertion(any(MessageProcessorCall.class)))
+                .thenReturn(new SpyAssertion(new MessageProcessorCall(MESSAGE_PROCESSOR_ID), createAssertions(beforeAssertionMp), true));
+        when(manager.getBetterMatchingBehavior(any(MessageProcessorCall.class))).thenReturn(returnValueBehavior());
+
+        MuleMessage testMessage = new DefaultMuleMessage(new ByteArrayInputStream(PAYLOAD.getBytes()), muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        interceptor.process(new Object(), new Object[]{testEvent}, proxy);
+
+        assertTrue(beforeAssertionMp.called);
+        assertTrue(queued.isEmpty());
+        assertEquals(0, evaluator.getPending());
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * With asynchronous Spy before assertion.
+     * Map payload the flow can change, the assertion runs on the flow thread.
+     * </p>
+     */
+    @Test
+    public void interceptWithAsyncSpyOnMutablePayload() throws Throwable {
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        AsyncSpyEvaluator evaluator = new AsyncSpyEvaluator(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        }, 1000);
+        when(manager.getAsyncSpyEvaluator()).thenReturn(evaluator);
+        when(manager.getBetterMatchingBeforeSpyAssertion(any(MessageProcessorCall.class)))
+                .thenReturn(new SpyAssertion(new MessageProcessorCall(MESSAGE_PROCESSOR_ID), createAssertions(beforeAssertionMp), true));
+        when(manager.getBetterMatchingBehavior(any(MessageProcessorCall.class))).thenReturn(returnValueBehavior());
+
+        MuleMessage testMessage = new DefaultMuleMessage(new HashMap<String, String>(), muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        interceptor.process(new Object(), new Object[]{testEvent}, proxy);
+
+        assertTrue(beforeAssertionMp.called);
+        assertTrue(queued.isEmpty());
+        assertEquals(0, evaluator.getPending());
+    }
+
     /**
      * <p>
      * Scenario:
@@ -234,6 +348,206 @@ public class MunitMessageProcessorInterceptorTest {
         assertTrue(afterAssertionMp.called);
     }
 
+    /**
+     * <p>
+     * Scenario:
+     * Nothing registered for the message processor, the real message processor is called with the original event.
+     * </p>
+     */
+    @Test
+    public void interceptWithPassthroughMessageProcessor() throws Throwable {
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(true);
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        MuleMessage testMessage = new DefaultMuleMessage("", muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenReturn(testEvent);
+
+        Object processed = interceptor.process(OBJECT, args, proxy);
+
+        assertSame(testEvent, processed);
+        verify(manager).addCall(any(MunitMessageProcessorCall.class));
+        verify(manager, never()).getBetterMatchingBehavior(any(MessageProcessorCall.class));
+        verify(manager, never()).getBetterMatchingBeforeSpyAssertion(any(MessageProcessorCall.class));
+        verify(manager, never()).getBetterMatchingAfterSpyAssertion(any(MessageProcessorCall.class));
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * Nothing registered for the message processor, the flow changes the event after the call.
+     * The recorded attributes keep the value they had at call time.
+     * </p>
+     */
+    @Test
+    public void interceptRecordsTheAttributesOfTheCallTime() throws Throwable {
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(true);
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        HashMap<String, String> attributes = new HashMap<String, String>();
+        attributes.put("message", "#[payload]");
+        attributes.put("level", "INFO");
+        interceptor.setAttributes(attributes);
+
+        when(muleContext.getExpressionManager()).thenReturn(expressionManager);
+        when(expressionManager.isExpression("#[payload]")).thenReturn(true);
+        when(expressionManager.parse(eq("#[payload]"), any(MuleEvent.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return ((MuleEvent) invocation.getArguments()[1]).getMessage().getPayload();
+            }
+        });
+
+        final MuleEvent testEvent = new DefaultMuleEvent(new DefaultMuleMessage("original", muleContext), MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                testEvent.setMessage(new DefaultMuleMessage("changed", muleContext));
+                return testEvent;
+            }
+        });
+
+        interceptor.process(OBJECT, args, proxy);
+
+        ArgumentCaptor<MunitMessageProcessorCall> call = ArgumentCaptor.forClass(MunitMessageProcessorCall.class);
+        verify(manager).addCall(call.capture());
+        assertTrue(call.getValue().hasPendingAttributes());
+        assertEquals("original", call.getValue().getAttributes().get("message"));
+        assertEquals("INFO", call.getValue().getAttributes().get("level"));
+        assertFalse(call.getValue().hasPendingAttributes());
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * Nothing registered for the message processor, it has an expression attribute.
+     * The expression is not evaluated unless the attributes of the call are read.
+     * </p>
+     */
+    @Test
+    public void interceptPassesThroughWithoutEvaluatingAttributes() throws Throwable {
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(true);
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        HashMap<String, String> attributes = new HashMap<String, String>();
+        attributes.put("message", "#[payload]");
+        interceptor.setAttributes(attributes);
+
+        when(muleContext.getExpressionManager()).thenReturn(expressionManager);
+        when(expressionManager.isExpression("#[payload]")).thenReturn(true);
+
+        MuleEvent testEvent = new DefaultMuleEvent(new DefaultMuleMessage("original", muleContext), MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenReturn(testEvent);
+
+        interceptor.process(OBJECT, args, proxy);
+
+        verify(manager).addCall(any(MunitMessageProcessorCall.class));
+        verify(expressionManager, never()).parse(anyString(), any(MuleEvent.class));
+        verify(expressionManager, never()).evaluate(anyString(), any(MuleEvent.class));
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * Nothing registered for the message processor, the payload is a map the flow can change after the call.
+     * The attributes are evaluated at call time.
+     * </p>
+     */
+    @Test
+    public void interceptEvaluatesTheAttributesOfMutablePayloadsAtCallTime() throws Throwable {
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(true);
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        HashMap<String, String> attributes = new HashMap<String, String>();
+        attributes.put("message", "#[payload]");
+        interceptor.setAttributes(attributes);
+
+        when(muleContext.getExpressionManager()).thenReturn(expressionManager);
+        when(expressionManager.isExpression("#[payload]")).thenReturn(true);
+        when(expressionManager.parse(eq("#[payload]"), any(MuleEvent.class))).thenReturn("evaluated");
+
+        MuleEvent testEvent = new DefaultMuleEvent(new DefaultMuleMessage(new HashMap<String, String>(), muleContext), MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenReturn(testEvent);
+
+        interceptor.process(OBJECT, args, proxy);
+
+        ArgumentCaptor<MunitMessageProcessorCall> call = ArgumentCaptor.forClass(MunitMessageProcessorCall.class);
+        verify(manager).addCall(call.capture());
+        assertFalse(call.getValue().hasPendingAttributes());
+        assertEquals("evaluated", call.getValue().getAttributes().get("message"));
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * Throw exception on every second call, the other calls go to the real message processor.
+     * </p>
+     */
+    @Test
+    public void interceptWithScheduledFaults() throws Throwable {
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        FaultSchedule faults = FaultSchedule.everyNth(2);
+        when(manager.getBetterMatchingBehavior(any(MessageProcessorCall.class)))
+                .thenReturn(new MunitMessageProcessorBehavior(MESSAGE_PROCESSOR_CALL, EXCEPTION_TO_THROW, null, null, faults));
+
+        MuleMessage testMessage = new DefaultMuleMessage("", muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenReturn(testEvent);
+
+        assertSame(testEvent, interceptor.process(OBJECT, args, proxy));
+
+        try {
+            interceptor.process(OBJECT, args, proxy);
+            fail();
+        } catch (Exception e) {
+            assertEquals(EXCEPTION_TO_THROW, e);
+        }
+
+        verify(proxy, times(1)).invokeSuper(OBJECT, args);
+        assertEquals(1, faults.getInjectedFaults());
+        assertEquals(1, faults.getPasses());
+    }
+
+    /**
+     * <p>
+     * Scenario:
+     * The passthrough result is recalculated when a behavior is registered.
+     * </p>
+     */
+    @Test
+    public void passthroughIsRecalculatedOnNewGeneration() throws Throwable {
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(true);
+        MunitMessageProcessorInterceptor interceptor = interceptor();
+        interceptor.setAttributes(new HashMap<String, String>());
+
+        MuleMessage testMessage = new DefaultMuleMessage("", muleContext);
+        MuleEvent testEvent = new DefaultMuleEvent(testMessage, MessageExchangePattern.REQUEST_RESPONSE, getTestFlow("aa", muleContext, false));
+        Object[] args = {testEvent};
+        when(proxy.invokeSuper(OBJECT, args)).thenReturn(testEvent);
+
+        interceptor.process(OBJECT, args, proxy);
+
+        when(manager.getGeneration()).thenReturn(1L);
+        when(manager.isPassthrough(MESSAGE_PROCESSOR_ID)).thenReturn(false);
+        when(manager.getBetterMatchingBehavior(any(MessageProcessorCall.class))).thenReturn(EXCEPTION_BEHAVIOR);
+
+        try {
+            interceptor.process(OBJECT, args, proxy);
+        } catch (Exception e) {
+            assertEquals(EXCEPTION_TO_THROW, e);
+            return;
+        }
+        fail();
+    }
+
     /**
      * <p>
      * Scenario:
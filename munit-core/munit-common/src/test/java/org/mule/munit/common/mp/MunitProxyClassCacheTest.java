@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.mule.component.simple.EchoComponent;
+import org.mule.modules.interceptor.processors.MessageProcessorId;
+
+import java.util.HashMap;
+
+import net.sf.cglib.proxy.Enhancer;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitProxyClassCacheTest
+{
+
+    @Test
+    public void proxyClassIsCreatedOncePerClass()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache();
+
+        Class<?> proxyClass = cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        assertTrue(Enhancer.isEnhanced(proxyClass));
+        assertSame(proxyClass, cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void eachKindHasItsOwnProxyClass()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache();
+
+        Class<?> proxyClass = cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+        Class<?> wrapperClass = cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.WRAPPER);
+
+        assertNotSame(proxyClass, wrapperClass);
+    }
+
+    @Test
+    public void messageProcessorsOfTheSameClassShareTheProxyClass()
+    {
+        MunitMessageProcessorInterceptorFactory factory = new MunitMessageProcessorInterceptorFactory();
+
+        Object first = factory.create(EchoComponent.class, new MessageProcessorId("name", "namespace"), new HashMap<String, String>(), "fileName", "2");
+        Object second = factory.create(EchoComponent.class, new MessageProcessorId("name", "namespace"), new HashMap<String, String>(), "fileName", "3");
+
+        assertTrue(Enhancer.isEnhanced(first.getClass()));
+        assertNotSame(first, second);
+        assertSame(first.getClass(), second.getClass());
+    }
+
+    @Test
+    public void proxyClassesAreDefinedInTheCacheClassLoader()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache();
+
+        Class<?> proxyClass = cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        assertTrue(proxyClass.getClassLoader() instanceof MunitProxyClassLoader);
+    }
+
+    @Test
+    public void eachCacheHasItsOwnProxyClasses()
+    {
+        Class<?> first = new MunitProxyClassCache().getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+        Class<?> second = new MunitProxyClassCache().getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        assertEquals(first.getName(), second.getName());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void disposeReleasesTheLiveClasses()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache();
+        int liveClasses = MunitProxyClassCache.getLiveClassCount();
+
+        cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+        cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.WRAPPER);
+        assertEquals(liveClasses + 2, MunitProxyClassCache.getLiveClassCount());
+
+        cache.dispose();
+        assertEquals(liveClasses, MunitProxyClassCache.getLiveClassCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void nonPublicClassesAreDefinedInTheirClassLoader()
+    {
+        Class<?> proxyClass = new MunitProxyClassCache().getProxyClass(PackagePrivateComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        assertSame(PackagePrivateComponent.class.getClassLoader(), proxyClass.getClassLoader());
+    }
+
+    static class PackagePrivateComponent extends EchoComponent
+    {
+
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.mule.component.simple.EchoComponent;
+import org.mule.component.simple.LogComponent;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class MunitProxyClassRepositoryTest
+{
+
+    @After
+    public void clearOutputFolder()
+    {
+        System.clearProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY);
+    }
+
+    @Test
+    public void proxyClassNameIsTheGeneratedOne()
+    {
+        Class<?> proxyClass = new MunitProxyClassCache().getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.WRAPPER);
+
+        assertEquals(proxyClass.getName(), MunitProxyClassRepository.proxyClassNameOf(EchoComponent.class, MunitProxyClassCache.ProxyKind.WRAPPER));
+    }
+
+    @Test
+    public void fingerprintDependsOnTheClass() throws Exception
+    {
+        assertEquals(MunitProxyClassRepository.fingerprintOf(EchoComponent.class), MunitProxyClassRepository.fingerprintOf(EchoComponent.class));
+        assertFalse(MunitProxyClassRepository.fingerprintOf(EchoComponent.class).equals(MunitProxyClassRepository.fingerprintOf(LogComponent.class)));
+    }
+
+    @Test
+    public void generatedClassesAreSavedWhenThereIsAnOutputFolder() throws Exception
+    {
+        File outputFolder = new File(System.getProperty("java.io.tmpdir"), "munit-proxies-" + System.nanoTime());
+        System.setProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY, outputFolder.getAbsolutePath());
+
+        Class<?> proxyClass = new MunitProxyClassCache().getProxyClass(SavedComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        File classFile = new File(outputFolder, MunitProxyClassRepository.PROXIES_FOLDER + proxyClass.getName().replace('.', '/') + ".class");
+        assertTrue(classFile.exists());
+
+        Properties index = new Properties();
+        FileInputStream in = new FileInputStream(new File(outputFolder, MunitProxyClassRepository.INDEX_RESOURCE));
+        try
+        {
+            index.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+        assertEquals(MunitProxyClassRepository.fingerprintOf(SavedComponent.class), index.getProperty(proxyClass.getName()));
+    }
+
+    @Test
+    public void classesWithoutPregeneratedProxyAreNotLoaded()
+    {
+        assertNull(new MunitProxyClassRepository().load(EchoComponent.class, MunitProxyClassCache.ProxyKind.FACTORY_BEAN, EchoComponent.class.getClassLoader()));
+    }
+
+    @Test
+    public void cacheGeneratesTheClassWhenThereIsNoPregeneratedOne()
+    {
+        MunitProxyClassCache cache = new MunitProxyClassCache(new MunitProxyClassRepository());
+
+        Class<?> proxyClass = cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR);
+
+        assertSame(proxyClass, cache.getProxyClass(EchoComponent.class, MunitProxyClassCache.ProxyKind.MESSAGE_PROCESSOR));
+    }
+
+    public static class SavedComponent extends EchoComponent
+    {
+
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.common.mp;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.mule.munit.common.agent.WovenMessageProcessor;
+
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class WovenMessageProcessorPostProcessorTest
+{
+
+    private static final String BEAN_NAME = "logger";
+
+    @Test
+    public void everyInstanceOfAPrototypeIsIntercepted()
+    {
+        WovenMunitMessageProcessorInterceptor interception = new WovenMunitMessageProcessorInterceptor();
+        WovenMessageProcessorPostProcessor postProcessor = postProcessorWith(interception);
+
+        TestWovenMessageProcessor first = (TestWovenMessageProcessor) postProcessor.postProcessAfterInitialization(new TestWovenMessageProcessor(), BEAN_NAME);
+        TestWovenMessageProcessor second = (TestWovenMessageProcessor) postProcessor.postProcessAfterInitialization(new TestWovenMessageProcessor(), BEAN_NAME);
+
+        assertSame(interception, first.munit$getInterception());
+        assertSame(interception, second.munit$getInterception());
+    }
+
+    @Test
+    public void destroyForgetsTheInterceptions()
+    {
+        WovenMessageProcessorPostProcessor postProcessor = postProcessorWith(new WovenMunitMessageProcessorInterceptor());
+
+        postProcessor.destroy();
+        TestWovenMessageProcessor messageProcessor = (TestWovenMessageProcessor) postProcessor.postProcessAfterInitialization(new TestWovenMessageProcessor(), BEAN_NAME);
+
+        assertNull(messageProcessor.munit$getInterception());
+    }
+
+    private WovenMessageProcessorPostProcessor postProcessorWith(WovenMunitMessageProcessorInterceptor interception)
+    {
+        RootBeanDefinition beanDefinition = new RootBeanDefinition(TestWovenMessageProcessor.class);
+        beanDefinition.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+        beanDefinition.setAttribute(WovenMessageProcessorPostProcessor.INTERCEPTION_ATTRIBUTE, interception);
+
+        WovenMessageProcessorPostProcessor postProcessor = new WovenMessageProcessorPostProcessor();
+        postProcessor.postProcessMergedBeanDefinition(beanDefinition, TestWovenMessageProcessor.class, BEAN_NAME);
+        return postProcessor;
+    }
+
+    private static class TestWovenMessageProcessor implements WovenMessageProcessor
+    {
+
+        private Object interception;
+
+        @Override
+        public Object munit$getInterception()
+        {
+            return interception;
+        }
+
+        @Override
+        public void munit$setInterception(Object interception)
+        {
+            this.interception = interception;
+        }
+    }
+}
@@ -7,9 +7,12 @@
 package org.mule.munit.common.mp;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
 import org.mule.api.processor.LoggerMessageProcessor;
 import org.mule.api.processor.MessageProcessor;
 
@@ -43,9 +46,25 @@ public class WrapperMunitMessageProcessorInterceptorTest
         WrapperMunitMessageProcessorInterceptor interceptor = new MockedInterceptor(realMessageProcessor);
 
         LoggerMessageProcessor obj = new LoggerMessageProcessor();
-        interceptor.intercept(obj, LoggerMessageProcessor.class.getMethod("initialise"), new Object[0], proxy);
+        Object[] args = new Object[0];
+        interceptor.intercept(obj, LoggerMessageProcessor.class.getMethod("initialise"), args, proxy);
+
+        verify(proxy).invoke(realMessageProcessor, args);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nonPublicMethodThatFailsIsNotCalledAgain() throws Throwable
+    {
+        WrapperMunitMessageProcessorInterceptor interceptor = new MockedInterceptor(new FailingMessageProcessor());
 
-        verify(realMessageProcessor).initialise();
+        try
+        {
+            interceptor.intercept(new FailingMessageProcessor(), FailingMessageProcessor.class.getDeclaredMethod("fail"), new Object[0], proxy);
+        }
+        finally
+        {
+            verify(proxy, never()).invoke(any(), any(Object[].class));
+        }
     }
 
     @Test
@@ -82,4 +101,19 @@ public class WrapperMunitMessageProcessorInterceptorTest
             return "anything";
         }
     }
+
+    private static class FailingMessageProcessor implements MessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return event;
+        }
+
+        protected void fail()
+        {
+            throw new IllegalStateException("failed");
+        }
+    }
 }
@@ -58,16 +58,24 @@ public class MockModule implements MuleContextAware {
      * @param thenReturn           Expected return value.
      * @param withAttributes       Message processor parameters.
      * @param thenApplyTransformer Custom transformer to apply to the message
+     * @param latency              Time the message processor takes to respond, for example 100, uniform:50,200,
+     *                             normal:120,30 or percentiles:50=80,99=800 (milliseconds)
+     * @param bulkhead             Calls the message processor serves at a time, and what happens to the others, for
+     *                             example 4, 4,reject or 4,timeout:500
      */
     @Processor
     public void when(String messageProcessor,
                      @Optional List<Attribute> withAttributes,
                      @Optional MunitMuleMessage thenReturn,
-                     @Optional final Object thenApplyTransformer) {
+                     @Optional final Object thenApplyTransformer,
+                     @Optional String latency,
+                     @Optional String bulkhead) {
         if (thenApplyTransformer != null && thenApplyTransformer instanceof AbstractMessageTransformer) {
             mocker().when(getName(messageProcessor))
                     .ofNamespace(getNamespace(messageProcessor))
                     .withAttributes(createAttributes(withAttributes))
+                    .withLatency(latencyOf(latency))
+                    .withBulkhead(bulkheadOf(bulkhead))
                     .thenApply(new MunitMuleMessageTransformer((AbstractMessageTransformer) thenApplyTransformer));
         } else {
             MunitMuleMessage munitMuleMessage = thenReturn == null ? new MunitMuleMessage() : thenReturn;
@@ -75,7 +83,9 @@ public class MockModule implements MuleContextAware {
             mocker().when(getName(messageProcessor))
                     .ofNamespace(getNamespace(messageProcessor))
                     .withAttributes(createAttributes(withAttributes))
-                    .thenReturn(createMuleMessageFrom(munitMuleMessage.getPayload(),
+                    .withLatency(latencyOf(latency))
+                    .withBulkhead(bulkheadOf(bulkhead))
+                    .thenReturn(createMuleMessageFrom(payloadOf(munitMuleMessage.getPayload(), munitMuleMessage.getPayloadFrom()),
                             munitMuleMessage.getInboundProperties(),
                             munitMuleMessage.getOutboundProperties(),
                             munitMuleMessage.getSessionProperties(),
@@ -97,15 +107,20 @@ public class MockModule implements MuleContextAware {
      * @param withAttributes       Sets of attributes to narrow-down a specific message processor
      * @param assertionsBeforeCall Expected return value.
      * @param assertionsAfterCall  Message processor parameters.
+     * @param async                If true the assertions run on a copy of the event, off the flow, and their failures
+     *                             are reported when the test finishes. Only calls with an immutable payload, like a
+     *                             string, a number or a byte array, are spied off the flow.
      */
     @Processor
     public void spy(String messageProcessor,
                     @Optional List<Attribute> withAttributes,
                     @Optional List<NestedProcessor> assertionsBeforeCall,
-                    @Optional List<NestedProcessor> assertionsAfterCall) {
+                    @Optional List<NestedProcessor> assertionsAfterCall,
+                    @Optional Boolean async) {
         spy().spyMessageProcessor(getName(messageProcessor))
                 .ofNamespace(getNamespace(messageProcessor))
                 .withAttributes(createAttributes(withAttributes))
+                .async(Boolean.TRUE.equals(async))
                 .before(createSpyAssertion(createMessageProcessorsFrom(assertionsBeforeCall)))
                 .after(createSpyAssertion(createMessageProcessorsFrom(assertionsAfterCall)));
     }
@@ -118,14 +133,22 @@ public class MockModule implements MuleContextAware {
      * @param exception      Java Exception full qualified name.
      * @param whenCalling    Message processor name.
      * @param withAttributes list of expected attributes
+     * @param latency        Time the message processor takes to fail, same format as the one of when
+     * @param faults         Calls that fail, the others go to the real message processor: always, probability:0.2,
+     *                       probability:0.2,1234 (with a seed), every:3 or windows:0-500,2000-2500 (milliseconds since
+     *                       the first call)
      */
     @Processor
     public void throwAn(Throwable exception, String whenCalling,
-                        @Optional List<Attribute> withAttributes) {
+                        @Optional List<Attribute> withAttributes,
+                        @Optional String latency,
+                        @Optional String faults) {
 
         mocker().when(getName(whenCalling))
                 .ofNamespace(getNamespace(whenCalling))
                 .withAttributes(createAttributes(withAttributes))
+                .withLatency(latencyOf(latency))
+                .withFaults(faultsOf(faults))
                 .thenThrow(exception);
 
     }
@@ -141,11 +164,13 @@ public class MockModule implements MuleContextAware {
      * @param times            Number of times the message processor has to be called
      * @param atLeast          Number of time the message processor has to be called at least.
      * @param atMost           Number of times the message processor has to be called at most.
+     * @param injectedFaults   Number of times the mocks of the message processor had to throw their exception.
      */
     @Processor
     public void verifyCall(String messageProcessor, @Optional List<Attribute> attributes,
                            @Optional Integer times,
-                           @Optional Integer atLeast, @Optional Integer atMost) {
+                           @Optional Integer atLeast, @Optional Integer atMost,
+                           @Optional Integer injectedFaults) {
 
         try {
             MunitVerifier mockVerifier =
@@ -160,10 +185,14 @@ public class MockModule implements MuleContextAware {
                 mockVerifier.atLeast(atLeast);
             } else if (atMost != null) {
                 mockVerifier.atMost(atMost);
-            } else {
+            } else if (injectedFaults == null) {
                 mockVerifier.atLeastOnce();
             }
 
+            if (injectedFaults != null) {
+                mockVerifier.injectedFaults(injectedFaults);
+            }
+
         } catch (AssertionError error) {
             AssertionError assertionException = new AssertionError(getMessage(error, "Verify Processor Failed"));
             assertionException.setStackTrace(buildMuleStackTrace(muleContext).toArray(new StackTraceElement[]{}));
@@ -179,7 +208,7 @@ public class MockModule implements MuleContextAware {
      * <p/>
      * {@sample.xml ../../../doc/mock-connector.xml.sample mock:outboundEndpoint}
      *
-     * @param address                    the address
+     * @param address                    the address, or an address pattern prefixed with glob: or regex:
      * @param exception                  in case it fails
      * @param returnPayload              the Return Payload
      * @param thenApplyTransformer       custom transformer to be applied to the message
@@ -188,6 +217,12 @@ public class MockModule implements MuleContextAware {
      * @param returnSessionProperties    invocation session properties
      * @param returnOutboundProperties   oubound properties
      * @param assertions                 assertions
+     * @param returnPayloadFrom          location of a payload read on each call: classpath:, file: or mapped: followed
+     *                                   by the path
+     * @param latency                    time the endpoint takes to respond, same format as the one of when
+     * @param bulkhead                   calls the endpoint serves at a time, same format as the one of when
+     * @param faults                     calls that throw the exception, the others go to the real endpoint, same
+     *                                   format as the one of throw-an
      */
     @Processor
     public void outboundEndpoint(String address,
@@ -198,9 +233,15 @@ public class MockModule implements MuleContextAware {
                                  @Optional Map<String, Object> returnInboundProperties,
                                  @Optional Map<String, Object> returnSessionProperties,
                                  @Optional Map<String, Object> returnOutboundProperties,
-                                 @Optional List<NestedProcessor> assertions) {
+                                 @Optional List<NestedProcessor> assertions,
+                                 @Optional String returnPayloadFrom,
+                                 @Optional String latency,
+                                 @Optional String bulkhead,
+                                 @Optional String faults) {
         if (thenApplyTransformer != null && thenApplyTransformer instanceof AbstractMessageTransformer) {
             endpointMocker().whenEndpointWithAddress(address)
+                    .withLatency(latencyOf(latency))
+                    .withBulkhead(bulkheadOf(bulkhead))
                     .withIncomingMessageSatisfying(createSpyAssertion(createMessageProcessorsFrom(assertions)))
                     .thenApply(new MunitMuleMessageTransformer((AbstractMessageTransformer) thenApplyTransformer));
         } else {
@@ -208,12 +249,17 @@ public class MockModule implements MuleContextAware {
             if (exception != null) {
 
                 endpointMocker().whenEndpointWithAddress(address)
+                        .withLatency(latencyOf(latency))
+                        .withBulkhead(bulkheadOf(bulkhead))
+                        .withFaults(faultsOf(faults))
                         .withIncomingMessageSatisfying(createSpyAssertion(createMessageProcessorsFrom(assertions)))
                         .thenThrow(exception);
             } else {
                 endpointMocker().whenEndpointWithAddress(address)
+                        .withLatency(latencyOf(latency))
+                        .withBulkhead(bulkheadOf(bulkhead))
                         .withIncomingMessageSatisfying(createSpyAssertion(createMessageProcessorsFrom(assertions)))
-                        .thenReturn(createMuleMessageFrom(returnPayload,
+                        .thenReturn(createMuleMessageFrom(payloadOf(returnPayload, returnPayloadFrom),
                                 returnInboundProperties,
                                 returnOutboundProperties,
                                 returnSessionProperties,
@@ -229,6 +275,29 @@ public class MockModule implements MuleContextAware {
     }
 
 
+    /**
+     * The payload of a mocked response. A payload location wins over the payload, its content is not loaded in
+     * memory but read each time the mock is hit.
+     */
+    private Object payloadOf(Object payload, String payloadFrom) {
+        if (StringUtils.isNotBlank(payloadFrom)) {
+            return ReplayablePayload.from(payloadFrom.trim());
+        }
+        return payload;
+    }
+
+    private LatencyDistribution latencyOf(String latency) {
+        return StringUtils.isBlank(latency) ? null : LatencyDistribution.parse(latency);
+    }
+
+    private Bulkhead bulkheadOf(String bulkhead) {
+        return StringUtils.isBlank(bulkhead) ? null : Bulkhead.parse(bulkhead);
+    }
+
+    private FaultSchedule faultsOf(String faults) {
+        return StringUtils.isBlank(faults) ? null : FaultSchedule.parse(faults);
+    }
+
     private MuleMessage createMuleMessageFrom(Object payload,
                                               Map<String, Object> inboundProperties,
                                               Map<String, Object> outboundProperties,
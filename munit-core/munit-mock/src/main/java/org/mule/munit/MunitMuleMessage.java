@@ -18,8 +18,16 @@ public class MunitMuleMessage
      * <p>The Mule Payload</p>
      */
     @Configurable
+    @Optional
     private Object payload;
 
+    /**
+     * <p>Location of a payload read on each mock hit: classpath:, file: or mapped: followed by the path</p>
+     */
+    @Configurable
+    @Optional
+    private String payloadFrom;
+
     /**
      * <p>The Mule InvocationProperties</p>
      */
@@ -58,6 +66,16 @@ public class MunitMuleMessage
         this.payload = payload;
     }
 
+    public String getPayloadFrom()
+    {
+        return payloadFrom;
+    }
+
+    public void setPayloadFrom(String payloadFrom)
+    {
+        this.payloadFrom = payloadFrom;
+    }
+
     public Map<String, Object> getInvocationProperties()
     {
         return invocationProperties;
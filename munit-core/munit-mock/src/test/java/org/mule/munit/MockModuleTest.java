@@ -6,7 +6,9 @@
  */
 package org.mule.munit;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
@@ -23,19 +25,25 @@ import org.mule.api.MuleMessage;
 import org.mule.api.NestedProcessor;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.modules.interceptor.processors.MuleMessageTransformer;
+import org.mule.munit.common.mocking.Bulkhead;
 import org.mule.munit.common.mocking.EndpointMocker;
+import org.mule.munit.common.mocking.FaultSchedule;
+import org.mule.munit.common.mocking.LatencyDistribution;
 import org.mule.munit.common.mocking.MessageProcessorMocker;
 import org.mule.munit.common.mocking.MunitSpy;
 import org.mule.munit.common.mocking.MunitVerifier;
+import org.mule.munit.common.mocking.ReplayablePayload;
 import org.mule.munit.common.mocking.SpyProcess;
 import org.mule.transformer.AbstractMessageTransformer;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 /**
  * @author Mulesoft Inc.
@@ -73,7 +81,7 @@ public class MockModuleTest
     {
         defineMockerBehavior();
 
-        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, null, null, null);
+        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, null, null, null, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -86,7 +94,7 @@ public class MockModuleTest
     {
         defineMockerBehavior();
 
-        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, null);
+        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, null, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -99,7 +107,7 @@ public class MockModuleTest
     {
         defineMockerBehavior();
 
-        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, muleTransformer);
+        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, muleTransformer, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -112,7 +120,7 @@ public class MockModuleTest
     {
         defineMockerBehavior();
 
-        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, new Object());
+        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, new Object(), null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -126,7 +134,7 @@ public class MockModuleTest
     {
         defineMockerMuleNamespaceBehavior();
 
-        module().when(MESSAGE_PROCESSOR, createAttributes(), null, null);
+        module().when(MESSAGE_PROCESSOR, createAttributes(), null, null, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace("mule");
@@ -139,7 +147,7 @@ public class MockModuleTest
     {
         defineMockerBehavior();
 
-        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), createMuleMessage(), null);
+        module().when(NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), createMuleMessage(), null, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -151,7 +159,7 @@ public class MockModuleTest
     public void throwExceptionMustSupportNullOptionals()
     {
         defineMockerBehavior();
-        module().throwAn(EXCEPTION, FULL_NAME, null);
+        module().throwAn(EXCEPTION, FULL_NAME, null, null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -159,11 +167,21 @@ public class MockModuleTest
         verify(mocker, times(1)).thenThrow(EXCEPTION);
     }
 
+    @Test
+    public void throwExceptionOnScheduledCalls()
+    {
+        defineMockerBehavior();
+        module().throwAn(EXCEPTION, FULL_NAME, null, null, "every:3");
+
+        verify(mocker, times(1)).withFaults((FaultSchedule) notNull());
+        verify(mocker, times(1)).thenThrow(EXCEPTION);
+    }
+
     @Test
     public void throwExceptionMustSupportAttributes()
     {
         defineMockerBehavior();
-        module().throwAn(EXCEPTION, NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes());
+        module().throwAn(EXCEPTION, NAMESPACE + ":" + MESSAGE_PROCESSOR, createAttributes(), null, null);
 
         verify(mocker, times(1)).when(MESSAGE_PROCESSOR);
         verify(mocker, times(1)).ofNamespace(NAMESPACE);
@@ -176,7 +194,7 @@ public class MockModuleTest
     {
         endpointMockerBehavior();
 
-        module().outboundEndpoint(ADDRESS, null, null, null, null, null, null, null, null);
+        module().outboundEndpoint(ADDRESS, null, null, null, null, null, null, null, null, null, null, null, null);
 
         verify(endpointMocker, times(1)).whenEndpointWithAddress(ADDRESS);
         verify(endpointMocker, times(1)).withIncomingMessageSatisfying((List<SpyProcess>) notNull());
@@ -196,13 +214,44 @@ public class MockModuleTest
                                   props(entry(INBOUND_KEY, INBOUND_VALUE)),
                                   props(entry(SESSION_KEY, SESSION_VALUE)),
                                   props(entry(OUTBOUND_KEY, OUTBOUND_VALUE)),
-                                  createAssertions());
+                                  createAssertions(),
+                                  null,
+                                  null,
+                                  null,
+                                  null);
 
         verify(endpointMocker, times(1)).whenEndpointWithAddress(ADDRESS);
         verify(endpointMocker, times(1)).withIncomingMessageSatisfying((List<SpyProcess>) notNull());
         verify(endpointMocker, times(1)).thenReturn((MuleMessage) notNull());
     }
 
+    @Test
+    public void endpointPayloadCanBeReadFromAResource() throws Exception
+    {
+        endpointMockerBehavior();
+        File payloadFile = File.createTempFile("munit", ".payload");
+        payloadFile.deleteOnExit();
+
+        module().outboundEndpoint(ADDRESS, PAYLOAD, null, null, null, null, null, null, null,
+                                  ReplayablePayload.FILE_PREFIX + payloadFile.getAbsolutePath(), null, null, null);
+
+        ArgumentCaptor<MuleMessage> message = ArgumentCaptor.forClass(MuleMessage.class);
+        verify(endpointMocker, times(1)).thenReturn(message.capture());
+        assertTrue(message.getValue().getPayload() instanceof ReplayablePayload);
+    }
+
+    @Test
+    public void endpointWithLatencyAndBulkhead()
+    {
+        endpointMockerBehavior();
+
+        module().outboundEndpoint(ADDRESS, PAYLOAD, null, null, null, null, null, null, null, null, "uniform:10,20", "4,reject", null);
+
+        verify(endpointMocker, times(1)).withLatency((LatencyDistribution) notNull());
+        verify(endpointMocker, times(1)).withBulkhead((Bulkhead) notNull());
+        verify(endpointMocker, times(1)).thenReturn((MuleMessage) notNull());
+    }
+
     @Test
     public void endpointThatThrowsException()
     {
@@ -214,7 +263,11 @@ public class MockModuleTest
                                   props(entry(INBOUND_KEY, INBOUND_VALUE)),
                                   props(entry(SESSION_KEY, SESSION_VALUE)),
                                   props(entry(OUTBOUND_KEY, OUTBOUND_VALUE)),
-                                  createAssertions());
+                                  createAssertions(),
+                                  null,
+                                  null,
+                                  null,
+                                  null);
 
         verify(endpointMocker, times(1)).whenEndpointWithAddress(ADDRESS);
         verify(endpointMocker, times(1)).withIncomingMessageSatisfying((List<SpyProcess>) notNull());
@@ -232,7 +285,11 @@ public class MockModuleTest
                                   props(entry(INBOUND_KEY, INBOUND_VALUE)),
                                   props(entry(SESSION_KEY, SESSION_VALUE)),
                                   props(entry(OUTBOUND_KEY, OUTBOUND_VALUE)),
-                                  createAssertions());
+                                  createAssertions(),
+                                  null,
+                                  null,
+                                  null,
+                                  null);
 
         verify(endpointMocker, times(1)).whenEndpointWithAddress(ADDRESS);
         verify(endpointMocker, times(1)).withIncomingMessageSatisfying((List<SpyProcess>) notNull());
@@ -244,7 +301,7 @@ public class MockModuleTest
     {
         spyBehavior();
 
-        module().spy(FULL_NAME, null, null, null);
+        module().spy(FULL_NAME, null, null, null, null);
 
         verify(spy, times(1)).spyMessageProcessor(MESSAGE_PROCESSOR);
         verify(spy, times(1)).ofNamespace(NAMESPACE);
@@ -257,10 +314,11 @@ public class MockModuleTest
     {
         spyBehavior();
 
-        module().spy(FULL_NAME, null, createAssertions(), createAssertions());
+        module().spy(FULL_NAME, null, createAssertions(), createAssertions(), true);
 
         verify(spy, times(1)).spyMessageProcessor(MESSAGE_PROCESSOR);
         verify(spy, times(1)).ofNamespace(NAMESPACE);
+        verify(spy, times(1)).async(true);
         verify(spy, times(1)).before((List<SpyProcess>) notNull());
         verify(spy, times(1)).before((List<SpyProcess>) notNull());
     }
@@ -282,7 +340,7 @@ public class MockModuleTest
 
         verifierBehavior();
 
-        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, 3, null,null);
+        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, 3, null,null, null);
 
         verify(verifier, times(1)).times(3);
     }
@@ -293,7 +351,7 @@ public class MockModuleTest
 
         verifierBehavior();
 
-        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, 3,null);
+        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, 3,null, null);
 
         verify(verifier, times(1)).atLeast(3);
     }
@@ -304,7 +362,7 @@ public class MockModuleTest
 
         verifierBehavior();
 
-        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, null,3);
+        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, null,3, null);
 
         verify(verifier,times(1)).atMost(3);
     }
@@ -316,11 +374,23 @@ public class MockModuleTest
 
         verifierBehavior();
 
-        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, null,null);
+        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, null,null, null);
 
         verify(verifier,times(1)).atLeastOnce();
     }
 
+    @Test
+    public void verifyInjectedFaults()
+    {
+
+        verifierBehavior();
+
+        module().verifyCall(NAMESPACE + ":" + MESSAGE_PROCESSOR, VERIFY_ATTRIBUTES, null, null, null, 2);
+
+        verify(verifier, times(1)).injectedFaults(2);
+        verify(verifier, times(0)).atLeastOnce();
+    }
+
     private List<MessageProcessor> createMessageProcessors()
     {
         ArrayList<MessageProcessor> messageProcessors = new ArrayList<MessageProcessor>();
@@ -334,6 +404,7 @@ public class MockModuleTest
         when(spy.ofNamespace(NAMESPACE)).thenReturn(spy);
         when(spy.spyMessageProcessor(MESSAGE_PROCESSOR)).thenReturn(spy);
         when(spy.withAttributes(anyMap())).thenReturn(spy);
+        when(spy.async(anyBoolean())).thenReturn(spy);
         when(spy.before(anyList())).thenReturn(spy);
         when(spy.after(anyList())).thenReturn(spy);
     }
@@ -392,6 +463,9 @@ public class MockModuleTest
         when(mocker.when(MESSAGE_PROCESSOR)).thenReturn(mocker);
         when(mocker.withAttributes(anyMap())).thenReturn(mocker);
         when(mocker.ofNamespace(NAMESPACE)).thenReturn(mocker);
+        when(mocker.withLatency(any(LatencyDistribution.class))).thenReturn(mocker);
+        when(mocker.withBulkhead(any(Bulkhead.class))).thenReturn(mocker);
+        when(mocker.withFaults(any(FaultSchedule.class))).thenReturn(mocker);
     }
 
     private void defineMockerMuleNamespaceBehavior()
@@ -399,6 +473,9 @@ public class MockModuleTest
         when(mocker.when(MESSAGE_PROCESSOR)).thenReturn(mocker);
         when(mocker.withAttributes(anyMap())).thenReturn(mocker);
         when(mocker.ofNamespace("mule")).thenReturn(mocker);
+        when(mocker.withLatency(any(LatencyDistribution.class))).thenReturn(mocker);
+        when(mocker.withBulkhead(any(Bulkhead.class))).thenReturn(mocker);
+        when(mocker.withFaults(any(FaultSchedule.class))).thenReturn(mocker);
     }
 
     private MockMockModule module()
@@ -412,5 +489,8 @@ public class MockModuleTest
     {
         when(endpointMocker.whenEndpointWithAddress(anyString())).thenReturn(endpointMocker);
         when(endpointMocker.withIncomingMessageSatisfying(anyList())).thenReturn(endpointMocker);
+        when(endpointMocker.withLatency(any(LatencyDistribution.class))).thenReturn(endpointMocker);
+        when(endpointMocker.withBulkhead(any(Bulkhead.class))).thenReturn(endpointMocker);
+        when(endpointMocker.withFaults(any(FaultSchedule.class))).thenReturn(endpointMocker);
     }
 }
@@ -21,11 +21,15 @@ import org.mule.modules.interceptor.matchers.Matcher;
 import org.mule.modules.interceptor.matchers.NotNullMatcher;
 import org.mule.modules.interceptor.matchers.NullMatcher;
 import org.mule.munit.common.MunitCore;
+import org.mule.munit.common.MunitExecution;
 import org.mule.munit.common.mocking.EndpointMocker;
 import org.mule.munit.common.mocking.MessageProcessorMocker;
+import org.mule.munit.common.mocking.MunitBatchVerifier;
 import org.mule.munit.common.mocking.MunitSpy;
 import org.mule.munit.common.mocking.MunitVerifier;
+import org.mule.munit.common.mp.CallRecordingMode;
 import org.mule.munit.runner.MuleContextManager;
+import org.mule.munit.runner.mule.context.InterceptionRules;
 import org.mule.munit.runner.mule.context.MockingConfiguration;
 import org.mule.processor.chain.SubflowInterceptingChainLifecycleWrapper;
 import org.mule.tck.MuleTestUtils;
@@ -38,6 +42,8 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -45,6 +51,8 @@ import org.junit.Before;
 public abstract class FunctionalMunitSuite
 {
 
+    private static final Log logger = LogFactory.getLog(FunctionalMunitSuite.class);
+
     protected static MuleContext muleContext;
 
     private static MuleContextManager muleContextManager;
@@ -103,7 +111,47 @@ public abstract class FunctionalMunitSuite
 
     private MockingConfiguration createConfiguration()
     {
-        return new MockingConfiguration(haveToDisableInboundEndpoints(), getFlowsExcludedOfInboundDisabling(), haveToMockMuleConnectors(), getStartUpProperties());
+        MockingConfiguration configuration = new MockingConfiguration(haveToDisableInboundEndpoints(), getFlowsExcludedOfInboundDisabling(), haveToMockMuleConnectors(), getStartUpProperties());
+        configuration.setInterceptionRules(interceptMocksWrittenInJava(getInterceptionRules()));
+        return configuration;
+    }
+
+    /**
+     * <p>
+     * The mocks, spies and verifications of a functional suite are written in Java, so {@link InterceptionRules.Mode#AUTO}
+     * mode can not find them in the configuration files. In that mode every message processor that is not excluded is
+     * intercepted, use the include rules to limit the interception.
+     * </p>
+     */
+    private InterceptionRules interceptMocksWrittenInJava(InterceptionRules rules)
+    {
+        if (rules != null && rules.getMode() == InterceptionRules.Mode.AUTO)
+        {
+            logger.warn("The " + InterceptionRules.Mode.AUTO + " interception mode can not find the mocks of a " + FunctionalMunitSuite.class.getSimpleName()
+                        + ", every message processor that is not excluded will be intercepted. Use the include rules to limit the interception");
+            rules.interceptUnknownReferences();
+        }
+        return rules;
+    }
+
+    /**
+     * <p>
+     * Defines which message processors of the application can be mocked, spied or verified. By default every
+     * message processor can be, unless the munit.interception system properties say otherwise.
+     * </p>
+     * <p/>
+     * <p>
+     * Suites that only mock a few message processors can include just those ones, so the rest of them run without
+     * the Munit interception.
+     * </p>
+     *
+     * @return <p>
+     *         The interception rules of the suite
+     *         </p>
+     */
+    protected InterceptionRules getInterceptionRules()
+    {
+        return InterceptionRules.fromSystemProperties();
     }
 
     /**
@@ -159,16 +207,79 @@ public abstract class FunctionalMunitSuite
         return true;
     }
 
+    /**
+     * <p>
+     * Determines how the message processor calls of the suite tests are recorded. Long running tests that only verify
+     * the number of calls can use {@link CallRecordingMode#COUNT_ONLY} to keep the memory bounded.
+     * </p>
+     *
+     * @return <p>
+     *         The recording mode of the suite, {@link CallRecordingMode#FULL} by default
+     *         </p>
+     */
+    protected CallRecordingMode getCallRecordingMode()
+    {
+        return CallRecordingMode.FULL;
+    }
+
+    /**
+     * <p>
+     * Changes how the message processor calls of the running test are recorded.
+     * </p>
+     *
+     * @param mode <p>
+     *             The recording mode of the test
+     *             </p>
+     */
+    protected final void recordCallsAs(CallRecordingMode mode)
+    {
+        MunitCore.setCallRecordingMode(muleContext, mode);
+    }
+
+    /**
+     * <p>
+     * Defines if each test runs in its own execution scope. Tests that run in their own scope do not see the mocks,
+     * spies and calls of the other tests, so they can run concurrently against the same Mule context.
+     * </p>
+     *
+     * @return <p>
+     *         True if the system property {@link MunitExecution#ENABLED_PROPERTY} is true
+     *         </p>
+     */
+    protected boolean useExecutionScopes()
+    {
+        return MunitExecution.isEnabled();
+    }
+
     @Before
     public final void __setUpMunit()
     {
         MunitCore.registerManager(muleContext);
+        MunitCore.setDefaultCallRecordingMode(muleContext, getCallRecordingMode());
+        if (useExecutionScopes())
+        {
+            MunitExecution.begin(muleContext);
+        }
     }
 
     @After
     public final void __restartMunit()
     {
-        MunitCore.reset(muleContext);
+        try
+        {
+            MunitCore.verifyAsyncSpyAssertions(muleContext);
+        }
+        finally
+        {
+            try
+            {
+                MunitCore.reset(muleContext);
+            }
+            finally
+            {
+                MunitExecution.end(muleContext);
+            }
+        }
     }
 
     /**
@@ -217,7 +328,7 @@ public abstract class FunctionalMunitSuite
      */
     protected final MuleEvent testEvent(Object payload) throws Exception
     {
-        return new DefaultMuleEvent(muleMessageWithPayload(payload), MessageExchangePattern.REQUEST_RESPONSE, MuleTestUtils.getTestFlow(muleContext));
+        return MunitExecution.bind(new DefaultMuleEvent(muleMessageWithPayload(payload), MessageExchangePattern.REQUEST_RESPONSE, MuleTestUtils.getTestFlow(muleContext)));
     }
 
     /**
@@ -243,6 +354,16 @@ public abstract class FunctionalMunitSuite
         return new MunitVerifier(muleContext).verifyCallOfMessageProcessor(name);
     }
 
+    /**
+     * @return <p>
+     *         A verifier that checks many message processor calls with a single read of the recorded calls
+     *         </p>
+     */
+    protected final MunitBatchVerifier verifyCalls()
+    {
+        return new MunitBatchVerifier(muleContext);
+    }
+
     protected final MunitSpy spyMessageProcessor(String name)
     {
         return new MunitSpy(muleContext).spyMessageProcessor(name);
@@ -258,7 +379,7 @@ public abstract class FunctionalMunitSuite
 
         initialiseSubFlow(flow);
 
-        return flow.process(event);
+        return flow.process(MunitExecution.bind(event));
     }
 
     private void initialiseSubFlow(MessageProcessor flow) throws InitialisationException
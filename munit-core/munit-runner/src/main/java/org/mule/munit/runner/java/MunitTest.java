@@ -107,6 +107,20 @@ public class MunitTest extends TestCase
 
         showDescription();
 
+        try
+        {
+            process(event);
+            MunitCore.verifyAsyncSpyAssertions(muleContext);
+        }
+        finally
+        {
+            MunitCore.reset(muleContext);
+            run(event, after);
+        }
+    }
+
+    private void process(MuleEvent event) throws Throwable
+    {
         try
         {
             flow.process(event);
@@ -121,11 +135,6 @@ public class MunitTest extends TestCase
             }
 
         }
-        finally
-        {
-            MunitCore.reset(muleContext);
-            run(event, after);
-        }
     }
 
     private void run(MuleEvent event, List<MunitFlow> flows) throws MuleException
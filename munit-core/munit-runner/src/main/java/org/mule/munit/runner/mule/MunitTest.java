@@ -15,6 +15,7 @@ import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.munit.common.MunitCore;
+import org.mule.munit.common.MunitExecution;
 import org.mule.munit.config.MunitFlow;
 import org.mule.munit.config.MunitTestFlow;
 import org.mule.munit.runner.mule.result.TestResult;
@@ -102,10 +103,33 @@ public class MunitTest
         }
 
         long start = System.currentTimeMillis();
-        MuleEvent event = muleEvent();
+        if (MunitExecution.isEnabled())
+        {
+            MunitExecution.begin(muleContext);
+        }
 
         try
         {
+            runTest(result);
+        }
+        finally
+        {
+            MunitExecution.end(muleContext);
+        }
+
+        long end = System.currentTimeMillis();
+        result.setTime(new Float(end - start) / 1000);
+        return result;
+
+    }
+
+    private void runTest(TestResult result)
+    {
+        MuleEvent event = MunitExecution.bind(muleEvent());
+
+        try
+        {
+            MunitCore.setCallRecordingMode(muleContext, test.getCallRecordingMode());
             run(event, before);
             showDescription();
             test.process(event);
@@ -138,14 +162,16 @@ public class MunitTest
         }
         finally
         {
-            MunitCore.reset(event.getMuleContext());
-            runAfter(result, event);
+            try
+            {
+                verifyAsyncSpyAssertions(result, event);
+            }
+            finally
+            {
+                MunitCore.reset(event.getMuleContext());
+                runAfter(result, event);
+            }
         }
-
-        long end = System.currentTimeMillis();
-        result.setTime(new Float(end - start) / 1000);
-        return result;
-
     }
 
 
@@ -154,6 +180,26 @@ public class MunitTest
         return new Notification(t.getMessage(), stack2string(t));
     }
 
+    /**
+     * <p>
+     * Reports the failures of the asynchronous spy assertions, unless the test already failed.
+     * </p>
+     */
+    private void verifyAsyncSpyAssertions(TestResult result, MuleEvent event)
+    {
+        try
+        {
+            MunitCore.verifyAsyncSpyAssertions(event.getMuleContext());
+        }
+        catch (final AssertionError t)
+        {
+            if (result.getFailure() == null && result.getError() == null)
+            {
+                result.setFailure(buildNotifcationFrom(t));
+            }
+        }
+    }
+
     private void runAfter(TestResult result, MuleEvent event)
     {
         try
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.runner.mule.context;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * <p>
+ * Defines which message processors are intercepted by Munit. Message processors that are not intercepted can not be
+ * mocked, spied nor verified, but they do not pay the cost of the proxy.
+ * </p>
+ * <p/>
+ * <p>
+ * Rules are written as <code>namespace:name</code>. The name or the namespace can be <code>*</code>, and a rule
+ * without namespace refers to the mule namespace. Excludes have precedence over includes.
+ * </p>
+ * <p/>
+ * <p>
+ * In {@link Mode#AUTO} mode only the message processors referenced by the mock elements of the suite, the includes
+ * and the ones needed to build the Mule stack trace are intercepted.
+ * </p>
+ *
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class InterceptionRules
+{
+
+    /**
+     * <p>
+     * System property with the interception mode, ALL or AUTO
+     * </p>
+     */
+    public static final String MODE_PROPERTY = "munit.interception";
+
+    /**
+     * <p>
+     * System property with the comma separated include rules
+     * </p>
+     */
+    public static final String INCLUDES_PROPERTY = "munit.interception.includes";
+
+    /**
+     * <p>
+     * System property with the comma separated exclude rules
+     * </p>
+     */
+    public static final String EXCLUDES_PROPERTY = "munit.interception.excludes";
+
+    private static final String MOCK_NAMESPACE = "http://www.mulesoft.org/schema/mule/mock";
+
+    /**
+     * <p>
+     * The mock elements that reference message processors, and the attribute with the message processor name
+     * </p>
+     */
+    private static final String[][] MOCK_ELEMENTS = {
+            {"when", "messageProcessor"},
+            {"spy", "messageProcessor"},
+            {"verify-call", "messageProcessor"},
+            {"throw-an", "whenCalling"}
+    };
+
+    /**
+     * <p>
+     * Message processors that are always intercepted in {@link Mode#AUTO} mode, so the Mule stack trace shows how the
+     * flows call each other
+     * </p>
+     */
+    private static final String[] STACK_TRACE_RULES = {"mule:flow-ref"};
+
+    private static final Log logger = LogFactory.getLog(InterceptionRules.class);
+
+    public enum Mode
+    {
+        /**
+         * <p>
+         * Every message processor that is not excluded is intercepted
+         * </p>
+         */
+        ALL,
+
+        /**
+         * <p>
+         * Only the message processors the suite references are intercepted
+         * </p>
+         */
+        AUTO
+    }
+
+    private final Mode mode;
+    private final List<String[]> includes = new ArrayList<String[]>();
+    private final List<String[]> excludes = new ArrayList<String[]>();
+    private final Set<String> referenced = new HashSet<String>();
+
+    /**
+     * <p>
+     * The message processors that were parsed and left out by the rules
+     * </p>
+     */
+    private final Set<String> notIntercepted = new HashSet<String>();
+
+    /**
+     * <p>
+     * Set when a mock element references a message processor that can not be known before running the suite, in that
+     * case every message processor must be intercepted.
+     * </p>
+     */
+    private boolean unknownReferences;
+
+    public InterceptionRules(Mode mode)
+    {
+        this.mode = mode == null ? Mode.ALL : mode;
+        if (this.mode == Mode.AUTO)
+        {
+            for (String rule : STACK_TRACE_RULES)
+            {
+                include(rule);
+            }
+        }
+    }
+
+    /**
+     * @return The rules that intercept every message processor, what Munit does by default
+     */
+    public static InterceptionRules all()
+    {
+        return new InterceptionRules(Mode.ALL);
+    }
+
+    /**
+     * <p>
+     * Builds the rules defined by the system properties {@link #MODE_PROPERTY}, {@link #INCLUDES_PROPERTY} and
+     * {@link #EXCLUDES_PROPERTY}.
+     * </p>
+     */
+    public static InterceptionRules fromSystemProperties()
+    {
+        String mode = System.getProperty(MODE_PROPERTY);
+        InterceptionRules rules = new InterceptionRules(StringUtils.isBlank(mode) ? Mode.ALL : Mode.valueOf(mode.trim().toUpperCase()));
+        for (String rule : split(System.getProperty(INCLUDES_PROPERTY)))
+        {
+            rules.include(rule);
+        }
+        for (String rule : split(System.getProperty(EXCLUDES_PROPERTY)))
+        {
+            rules.exclude(rule);
+        }
+        return rules;
+    }
+
+    public InterceptionRules include(String rule)
+    {
+        includes.add(parse(rule));
+        return this;
+    }
+
+    public InterceptionRules exclude(String rule)
+    {
+        excludes.add(parse(rule));
+        return this;
+    }
+
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * <p>
+     * Makes {@link Mode#AUTO} mode intercept every message processor that is not excluded. Used when the suite can
+     * reference message processors that the configuration files do not show, like the mocks written in Java.
+     * </p>
+     *
+     * @return The rules
+     */
+    public InterceptionRules interceptUnknownReferences()
+    {
+        unknownReferences = true;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Adds the message processors referenced by the mock elements of the configuration files. Only used in
+     * {@link Mode#AUTO} mode.
+     * </p>
+     *
+     * @param resources The configuration files of the suite
+     */
+    public void scan(Resource[] resources)
+    {
+        if (mode != Mode.AUTO || resources == null)
+        {
+            return;
+        }
+
+        for (Resource resource : resources)
+        {
+            try
+            {
+                scan(parse(resource));
+            }
+            catch (Exception e)
+            {
+                logger.warn("The mock elements of " + resource.getDescription() + " could not be read, every message processor will be intercepted", e);
+                unknownReferences = true;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Adds the message processors referenced by the mock elements of a configuration document.
+     * </p>
+     *
+     * @param document The configuration document
+     */
+    public void scan(Document document)
+    {
+        for (String[] mockElement : MOCK_ELEMENTS)
+        {
+            NodeList elements = document.getElementsByTagNameNS(MOCK_NAMESPACE, mockElement[0]);
+            for (int i = 0; i < elements.getLength(); i++)
+            {
+                String messageProcessor = ((Element) elements.item(i)).getAttribute(mockElement[1]);
+                if (isDynamic(messageProcessor))
+                {
+                    unknownReferences = true;
+                }
+                else
+                {
+                    String[] id = parse(messageProcessor);
+                    referenced.add(id[0] + ":" + id[1]);
+                    if (matches(excludes, id[0], id[1]))
+                    {
+                        logger.warn("The message processor " + id[0] + ":" + id[1] + " is referenced by a mock:" + mockElement[0]
+                                    + " element but the interception rules exclude it, it can not be mocked, spied nor verified");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Checks if a message processor must be intercepted.
+     * </p>
+     *
+     * @param namespace The namespace of the message processor element
+     * @param name      The name of the message processor element
+     * @return True if the message processor must be intercepted
+     */
+    public boolean shouldIntercept(String namespace, String name)
+    {
+        boolean intercept = isIntercepted(namespace, name);
+        if (!intercept)
+        {
+            notIntercepted.add(namespace + ":" + name);
+        }
+        return intercept;
+    }
+
+    private boolean isIntercepted(String namespace, String name)
+    {
+        if (matches(excludes, namespace, name))
+        {
+            return false;
+        }
+
+        if (mode == Mode.AUTO)
+        {
+            return unknownReferences
+                   || referenced.contains(namespace + ":" + name)
+                   || matches(includes, namespace, name);
+        }
+
+        return includes.isEmpty() || matches(includes, namespace, name);
+    }
+
+    public Set<String> getReferencedMessageProcessors()
+    {
+        return Collections.unmodifiableSet(referenced);
+    }
+
+    /**
+     * @return The parsed message processors, as <code>namespace:name</code>, that are not intercepted
+     */
+    public Set<String> getNotInterceptedMessageProcessors()
+    {
+        return Collections.unmodifiableSet(notIntercepted);
+    }
+
+    private static boolean matches(List<String[]> rules, String namespace, String name)
+    {
+        for (String[] rule : rules)
+        {
+            if (("*".equals(rule[0]) || rule[0].equals(namespace)) && ("*".equals(rule[1]) || rule[1].equals(name)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDynamic(String messageProcessor)
+    {
+        return StringUtils.isBlank(messageProcessor) || messageProcessor.contains("#[") || messageProcessor.contains("${");
+    }
+
+    private static String[] parse(String rule)
+    {
+        String trimmed = rule.trim();
+        int separator = trimmed.indexOf(':');
+        if (separator < 0)
+        {
+            return new String[] {"mule", trimmed};
+        }
+        return new String[] {trimmed.substring(0, separator), trimmed.substring(separator + 1)};
+    }
+
+    private static List<String> split(String rules)
+    {
+        List<String> result = new ArrayList<String>();
+        if (rules != null)
+        {
+            for (String rule : rules.split(","))
+            {
+                if (!StringUtils.isBlank(rule))
+                {
+                    result.add(rule.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Document parse(Resource resource) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        InputStream stream = resource.getInputStream();
+        try
+        {
+            return builder.parse(stream);
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+}
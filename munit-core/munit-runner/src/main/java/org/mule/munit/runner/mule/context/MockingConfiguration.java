@@ -24,6 +24,7 @@ public class MockingConfiguration
     private List<String> mockingExcludedFlows;
     private boolean mockConnectors;
     private Properties startUpProperties;
+    private InterceptionRules interceptionRules;
 
     public MockingConfiguration(boolean mockInbounds, List<String> mockingExcludedFlows, boolean mockConnectors, Properties startUpProperties)
     {
@@ -52,4 +53,17 @@ public class MockingConfiguration
     {
         return startUpProperties;
     }
+
+    /**
+     * @return The rules that define which message processors are intercepted, null to use the system properties
+     */
+    public InterceptionRules getInterceptionRules()
+    {
+        return interceptionRules;
+    }
+
+    public void setInterceptionRules(InterceptionRules interceptionRules)
+    {
+        this.interceptionRules = interceptionRules;
+    }
 }
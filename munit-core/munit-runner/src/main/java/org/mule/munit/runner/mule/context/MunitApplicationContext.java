@@ -11,8 +11,10 @@ import org.mule.config.ConfigResource;
 import org.mule.config.spring.MissingParserProblemReporter;
 import org.mule.config.spring.MuleArtifactContext;
 import org.mule.modules.interceptor.connectors.ConnectorMethodInterceptorFactory;
+import org.mule.munit.common.agent.MunitAgent;
 import org.mule.munit.common.endpoint.MunitSpringFactoryPostProcessor;
 import org.mule.munit.common.mp.MunitMessageProcessorInterceptorFactory;
+import org.mule.munit.common.mp.WovenMessageProcessorPostProcessor;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -22,6 +24,7 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +54,7 @@ public class MunitApplicationContext extends MuleArtifactContext {
     public static final String MOCK_INBOUNDS_PROPERTY_NAME = "mockInbounds";
     public static final String MOCK_CONNECTORS_PROPERTY_NAME = "mockConnectors";
     public static final String MOCKING_EXCLUDED_FLOWS_PROPERTY_NAME = "mockingExcludedFlows";
+    public static final String NOT_INTERCEPTED_PROPERTY_NAME = "notInterceptedMessageProcessors";
 
     /**
      * <p>
@@ -73,6 +77,9 @@ public class MunitApplicationContext extends MuleArtifactContext {
 
         beanFactory.registerBeanDefinition(MunitMessageProcessorInterceptorFactory.ID, new RootBeanDefinition(MunitMessageProcessorInterceptorFactory.class));
         beanFactory.registerBeanDefinition(ConnectorMethodInterceptorFactory.ID, new RootBeanDefinition(ConnectorMethodInterceptorFactory.class));
+        if (MunitAgent.isActive()) {
+            beanFactory.registerBeanDefinition(WovenMessageProcessorPostProcessor.ID, new RootBeanDefinition(WovenMessageProcessorPostProcessor.class));
+        }
         beanDefinitionReader.setProblemReporter(new MissingParserProblemReporter());
 
 
@@ -89,10 +96,37 @@ public class MunitApplicationContext extends MuleArtifactContext {
         }
         // Communicate mule context to parsers
 
+        InterceptionRules interceptionRules = null;
+        if (beanDefinitionReader instanceof MunitXmlBeanDefinitionReader) {
+            interceptionRules = createInterceptionRules();
+            ((MunitXmlBeanDefinitionReader) beanDefinitionReader).setInterceptionRules(interceptionRules);
+        }
+
         getCurrentMuleContext().set(this.getMuleContext());
         beanDefinitionReader.loadBeanDefinitions(getConfigResources());
 
         getCurrentMuleContext().remove();
+
+        if (interceptionRules != null && beanFactory.containsBeanDefinition(MUNIT_FACTORY_POST_PROCESSOR)) {
+            beanFactory.getBeanDefinition(MUNIT_FACTORY_POST_PROCESSOR).getPropertyValues()
+                    .add(NOT_INTERCEPTED_PROPERTY_NAME, new ArrayList<String>(interceptionRules.getNotInterceptedMessageProcessors()));
+        }
+    }
+
+    /**
+     * <p>
+     * The interception rules of the {@link MockingConfiguration}, or the ones defined by system properties. In auto
+     * mode the suite files are scanned before parsing them so the application message processors that the suite
+     * references are known when they are parsed.
+     * </p>
+     */
+    private InterceptionRules createInterceptionRules() {
+        InterceptionRules rules = configuration == null ? null : configuration.getInterceptionRules();
+        if (rules == null) {
+            rules = InterceptionRules.fromSystemProperties();
+        }
+        rules.scan(getConfigResources());
+        return rules;
     }
 
     protected MunitXmlBeanDefinitionReader getMunitXmlBeanDefinitionReader(DefaultListableBeanFactory beanFactory) {
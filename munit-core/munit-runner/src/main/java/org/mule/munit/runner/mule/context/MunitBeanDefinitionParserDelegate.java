@@ -59,7 +59,7 @@ public class MunitBeanDefinitionParserDelegate extends MuleHierarchicalBeanDefin
             do
             {
                 ParserContext parserContext = new ParserContext(getReaderContext(), this, parent);
-                finalChild = new MunitHandlerWrapper(handler).parse(element, parserContext);
+                finalChild = new MunitHandlerWrapper(handler, getInterceptionRules()).parse(element, parserContext);
                 registerBean(element, finalChild);
                 noRecurse = noRecurse || testFlag(finalChild, MULE_NO_RECURSE);
                 forceRecurse = forceRecurse || testFlag(finalChild, MULE_FORCE_RECURSE);
@@ -110,4 +110,14 @@ public class MunitBeanDefinitionParserDelegate extends MuleHierarchicalBeanDefin
         }
     }
 
+    private InterceptionRules getInterceptionRules()
+    {
+        Object reader = getReaderContext().getReader();
+        if (reader instanceof MunitXmlBeanDefinitionReader)
+        {
+            return ((MunitXmlBeanDefinitionReader) reader).getInterceptionRules();
+        }
+        return InterceptionRules.all();
+    }
+
 }
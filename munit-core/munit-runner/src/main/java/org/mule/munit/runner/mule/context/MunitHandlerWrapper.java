@@ -9,7 +9,10 @@ package org.mule.munit.runner.mule.context;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.munit.common.MunitCore;
+import org.mule.munit.common.agent.MunitAgent;
 import org.mule.munit.common.mp.MunitMessageProcessorInterceptorFactory;
+import org.mule.munit.common.mp.WovenMessageProcessorPostProcessor;
+import org.mule.munit.common.mp.WovenMunitMessageProcessorInterceptor;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,9 +33,22 @@ public class MunitHandlerWrapper implements NamespaceHandler
 
     private NamespaceHandler realHandler;
 
+    /**
+     * <p>
+     * The rules that define which message processors are intercepted
+     * </p>
+     */
+    private InterceptionRules interceptionRules;
+
     public MunitHandlerWrapper(NamespaceHandler realHandler)
+    {
+        this(realHandler, InterceptionRules.all());
+    }
+
+    public MunitHandlerWrapper(NamespaceHandler realHandler, InterceptionRules interceptionRules)
     {
         this.realHandler = realHandler;
+        this.interceptionRules = interceptionRules;
     }
 
     @Override
@@ -52,13 +68,20 @@ public class MunitHandlerWrapper implements NamespaceHandler
         try
         {
             Class<?> beanType = Class.forName(beanDefinition.getBeanClassName());
+            if (MunitAgent.isActive())
+            {
+                addInterception(beanDefinition, beanType, element, parserContext);
+                return beanDefinition;
+            }
+
             if (isMessageProcessor(beanType)
                 && AbstractBeanDefinition.class.isAssignableFrom(beanDefinition.getClass())
                 && StringUtils.isEmpty(beanDefinition.getFactoryMethodName()))
             {
                 String tagName = element.getTagName();
 
-                if (!StringUtils.isEmpty(tagName) && beanDefinition.getConstructorArgumentValues().getArgumentCount() <= 5)
+                if (!StringUtils.isEmpty(tagName) && beanDefinition.getConstructorArgumentValues().getArgumentCount() <= 5
+                    && interceptionRules.shouldIntercept(getNamespaceFrom(tagName), getNameFrom(tagName)))
                 {
                     String filename = parserContext.getReaderContext().getResource().getFilename();
                     MunitMessageProcessorInterceptorFactory.addFactoryDefinitionTo((AbstractBeanDefinition) beanDefinition)
@@ -78,6 +101,30 @@ public class MunitHandlerWrapper implements NamespaceHandler
         return beanDefinition;
     }
 
+    /**
+     * <p>
+     * When the message processor classes are woven by the {@link MunitAgent} the bean is not replaced by a proxy, the
+     * interception is stored in the bean definition and attached to the message processor once it is created. Every
+     * message processor can be intercepted this way, whatever its constructor or factory method.
+     * </p>
+     */
+    private void addInterception(BeanDefinition beanDefinition, Class<?> beanType, Element element, ParserContext parserContext)
+    {
+        String tagName = element.getTagName();
+        if (!isMessageProcessor(beanType) || StringUtils.isEmpty(tagName)
+            || !interceptionRules.shouldIntercept(getNamespaceFrom(tagName), getNameFrom(tagName)))
+        {
+            return;
+        }
+
+        WovenMunitMessageProcessorInterceptor interception = new WovenMunitMessageProcessorInterceptor();
+        interception.setId(new MessageProcessorId(getNameFrom(tagName), getNamespaceFrom(tagName)));
+        interception.setAttributes(getAttributes(element));
+        interception.setFileName(parserContext.getReaderContext().getResource().getFilename());
+        interception.setLineNumber(element.getAttribute(MunitCore.LINE_NUMBER_ELEMENT_ATTRIBUTE));
+        beanDefinition.setAttribute(WovenMessageProcessorPostProcessor.INTERCEPTION_ATTRIBUTE, interception);
+    }
+
     private Map<String, String> getAttributes(Element element)
     {
         Map<String, String> attrs = new HashMap<String, String>();
@@ -12,6 +12,13 @@ import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 public class MunitXmlBeanDefinitionReader extends XmlBeanDefinitionReader
 {
 
+    /**
+     * <p>
+     * The rules that define which message processors are intercepted
+     * </p>
+     */
+    private InterceptionRules interceptionRules = InterceptionRules.all();
+
     /**
      * Create new XmlBeanDefinitionReader for the given bean factory.
      *
@@ -23,4 +30,14 @@ public class MunitXmlBeanDefinitionReader extends XmlBeanDefinitionReader
         super(registry);
         setDocumentLoader(new MunitDocumentLoader());
     }
+
+    public InterceptionRules getInterceptionRules()
+    {
+        return interceptionRules;
+    }
+
+    public void setInterceptionRules(InterceptionRules interceptionRules)
+    {
+        this.interceptionRules = interceptionRules;
+    }
 }
@@ -9,7 +9,11 @@ package org.mule.munit.runner.mule;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -20,6 +24,7 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.config.MuleProperties;
 import org.mule.api.registry.MuleRegistry;
+import org.mule.munit.common.MunitExecution;
 import org.mule.modules.interceptor.processors.MessageProcessorId;
 import org.mule.munit.common.endpoint.MockEndpointManager;
 import org.mule.munit.common.mp.MockedMessageProcessorManager;
@@ -95,6 +100,53 @@ public class MunitTestTest
         assertEquals("Error", testResult.getFailure().getShortMessage());
     }
 
+    /**
+     * If an asynchronous spy assertion failed, add it to the result
+     */
+    @org.junit.Test
+    public void testRunWithAsyncSpyFailure() throws MuleException
+    {
+        MunitTest test = new MockedTest(buildList(before), testFlow, buildList(after), handler);
+
+        doThrow(new AssertionError("Spy failed")).when(processorManager).verifyAsyncSpyAssertions();
+        TestResult testResult = test.run();
+
+        verify(processorManager, times(1)).verifyAsyncSpyAssertions();
+        verify(after, times(1)).process(muleEvent);
+
+        assertFalse(testResult.hasSucceeded());
+        assertEquals("Spy failed", testResult.getFailure().getShortMessage());
+    }
+
+    /**
+     * If an after flow fails with an unexpected exception, the execution scope must be closed anyway
+     */
+    @org.junit.Test
+    public void testRunWithAfterFailureClosesTheExecutionScope() throws MuleException
+    {
+        MunitTest test = new MockedTest(buildList(before), testFlow, buildList(after), handler);
+        when(after.process(muleEvent)).thenThrow(new IllegalStateException("After failed"));
+
+        System.setProperty(MunitExecution.ENABLED_PROPERTY, "true");
+        try
+        {
+            test.run();
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("After failed", e.getMessage());
+        }
+        finally
+        {
+            System.clearProperty(MunitExecution.ENABLED_PROPERTY);
+        }
+
+        assertNull(MunitExecution.current());
+        verify(processorManager, times(1)).closeExecutionScope(anyString());
+        verify(endpointManager, times(1)).closeExecutionScope(anyString());
+    }
+
     /**
      * If Test has an error, add it to the result
      */
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.munit.runner.mule.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * @author Mulesoft Inc.
+ * @since 3.5
+ */
+public class InterceptionRulesTest
+{
+
+    private static final String SUITE = "<mule xmlns=\"http://www.mulesoft.org/schema/mule/core\" " +
+                                        "xmlns:mock=\"http://www.mulesoft.org/schema/mule/mock\">" +
+                                        "<mock:when messageProcessor=\"http:request\"/>" +
+                                        "<mock:verify-call messageProcessor=\"set-payload\"/>" +
+                                        "<mock:throw-an whenCalling=\"db:select\"/>" +
+                                        "</mule>";
+
+    @Test
+    public void everythingIsInterceptedByDefault()
+    {
+        InterceptionRules rules = InterceptionRules.all();
+
+        assertTrue(rules.shouldIntercept("mule", "logger"));
+        assertTrue(rules.shouldIntercept("http", "request"));
+    }
+
+    @Test
+    public void excludesHavePrecedence()
+    {
+        InterceptionRules rules = InterceptionRules.all().include("mule:*").exclude("logger");
+
+        assertFalse(rules.shouldIntercept("mule", "logger"));
+        assertTrue(rules.shouldIntercept("mule", "set-payload"));
+        assertFalse(rules.shouldIntercept("http", "request"));
+    }
+
+    @Test
+    public void autoModeInterceptsTheReferencedMessageProcessors()
+    {
+        InterceptionRules rules = new InterceptionRules(InterceptionRules.Mode.AUTO);
+        rules.scan(new Resource[] {new ByteArrayResource(SUITE.getBytes())});
+
+        assertTrue(rules.shouldIntercept("http", "request"));
+        assertTrue(rules.shouldIntercept("mule", "set-payload"));
+        assertTrue(rules.shouldIntercept("db", "select"));
+        assertTrue(rules.shouldIntercept("mule", "flow-ref"));
+        assertFalse(rules.shouldIntercept("mule", "logger"));
+    }
+
+    @Test
+    public void autoModeInterceptsEverythingWhenAReferenceIsDynamic()
+    {
+        String suite = "<mule xmlns:mock=\"http://www.mulesoft.org/schema/mule/mock\">" +
+                       "<mock:when messageProcessor=\"${processor}\"/></mule>";
+        InterceptionRules rules = new InterceptionRules(InterceptionRules.Mode.AUTO);
+        rules.scan(new Resource[] {new ByteArrayResource(suite.getBytes())});
+
+        assertTrue(rules.shouldIntercept("mule", "logger"));
+    }
+
+    @Test
+    public void autoModeInterceptsEverythingWhenTheMocksAreUnknown()
+    {
+        InterceptionRules rules = new InterceptionRules(InterceptionRules.Mode.AUTO).exclude("logger").interceptUnknownReferences();
+
+        assertTrue(rules.shouldIntercept("http", "request"));
+        assertFalse(rules.shouldIntercept("mule", "logger"));
+    }
+
+    @Test
+    public void theMessageProcessorsLeftOutAreKept()
+    {
+        InterceptionRules rules = InterceptionRules.all().exclude("logger");
+
+        rules.shouldIntercept("mule", "logger");
+        rules.shouldIntercept("http", "request");
+
+        assertEquals(1, rules.getNotInterceptedMessageProcessors().size());
+        assertTrue(rules.getNotInterceptedMessageProcessors().contains("mule:logger"));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Base of the MUnit goals, it knows where the MUnit suites are and how to build the test classpath.
+ */
+public abstract class AbstractMUnitMojo
+        extends AbstractMojo {
+
+    /**
+     * @parameter expression="${project}"
+     * @required
+     */
+    protected MavenProject project;
+
+    /**
+     * The classpath elements of the project being tested.
+     *
+     * @parameter expression="${project.testClasspathElements}"
+     * @required
+     * @readonly
+     */
+    protected List<String> classpathElements;
+
+    protected File getMunitTestFolder() {
+        return new File(project.getBasedir(), "src/test/munit");
+    }
+
+    protected Collection<File> getMunitTestSuiteFileList(File munitTestFolder) throws FileNotFoundException {
+        Collection<File> munitTestSuiteFiles = new ArrayList<File>();
+
+        Collection<File> allFiles = FileUtils.listFiles(munitTestFolder, null, true);
+        for (File file : allFiles) {
+            if (isValidMunitTestSuiteFile(file)) {
+                munitTestSuiteFiles.add(file);
+            }
+        }
+        return munitTestSuiteFiles;
+    }
+
+    private boolean isValidMunitTestSuiteFile(File file) throws FileNotFoundException {
+        String MUNIT_TEST_SUITE_FILE_MARKER = "munit:config";
+        Scanner scanner = new Scanner(file);
+
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            if (line.contains(MUNIT_TEST_SUITE_FILE_MARKER)) {
+                scanner.close();
+                return true;
+            }
+        }
+
+        scanner.close();
+        return false;
+    }
+
+    public URLClassLoader getClassPath(List<URL> classpath) {
+        return new URLClassLoader(classpath.toArray(new URL[classpath.size()]), getClass().getClassLoader());
+    }
+
+    /**
+     * Creates a classloader for loading tests.
+     * <p/>
+     * <p/>
+     * We need to be able to see the same JUnit classes between this code and the mtest code,
+     * but everything else should be isolated.
+     */
+    protected List<URL> makeClassPath() throws MalformedURLException {
+
+        List<URL> urls = new ArrayList<URL>(classpathElements.size());
+
+        for (String e : classpathElements) {
+            urls.add(new File(e).toURL());
+        }
+        return urls;
+    }
+
+    protected void addUrlsToClassPath(List<URL> urls) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        ClassLoader sysCl = Thread.currentThread().getContextClassLoader();
+        Class refClass = URLClassLoader.class;
+        Method methodAddUrl = refClass.getDeclaredMethod("addURL", new Class[]{URL.class});
+        methodAddUrl.setAccessible(true);
+        for (Iterator it = urls.iterator(); it.hasNext(); ) {
+            URL url = (URL) it.next();
+            methodAddUrl.invoke(sysCl, url);
+        }
+    }
+}
@@ -6,12 +6,10 @@
  */
 package org.mule;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.model.Resource;
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.project.MavenProject;
+import org.mule.munit.common.mp.MunitProxyClassCache;
 import org.mule.munit.runner.mule.MunitSuiteRunner;
 import org.mule.munit.runner.mule.result.MunitResult;
 import org.mule.munit.runner.mule.result.SuiteResult;
@@ -25,10 +23,7 @@ import org.mule.properties.MUnitUserPropertiesManager;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.*;
 
 /**
@@ -41,16 +36,10 @@ import java.util.*;
  */
 
 public class MUnitMojo
-        extends AbstractMojo {
+        extends AbstractMUnitMojo {
 
     public static final String TARGET_SUREFIRE_REPORTS_MUNIT_TXT = "/target/surefire-reports/munit.";
     public static final String TARGET_SUREFIRE_REPORTS_TEST_MUNIT_XML = "/target/surefire-reports/TEST-munit.";
-    /**
-     * @parameter expression="${project}"
-     * @required
-     */
-    protected MavenProject project;
-
     /**
      * @parameter expression="${munit.test}"
      */
@@ -68,15 +57,6 @@ public class MUnitMojo
      */
     protected Map<String, String> systemPropertyVariables;
 
-    /**
-     * The classpath elements of the project being tested.
-     *
-     * @parameter expression="${project.testClasspathElements}"
-     * @required
-     * @readonly
-     */
-    protected List<String> classpathElements;
-
     /**
      * Manager for setting and restoring the user properties defined in the configuration
      */
@@ -112,7 +92,7 @@ public class MUnitMojo
         try {
             List<SuiteResult> results = new ArrayList<SuiteResult>();
             addUrlsToClassPath(makeClassPath());
-            File testFolder = new File(project.getBasedir(), "src/test/munit");
+            File testFolder = getMunitTestFolder();
             if (testFolder == null || !testFolder.exists()) {
                 return;
             }
@@ -126,6 +106,8 @@ public class MUnitMojo
 
             }
 
+            getLog().info("Munit proxy classes alive: " + MunitProxyClassCache.getLiveClassCount()
+                    + ", pinned to application class loaders: " + MunitProxyClassCache.getPinnedClassCount());
             show(results);
 
         } catch (MalformedURLException e) {
@@ -143,34 +125,6 @@ public class MUnitMojo
     }
 
 
-    private Collection<File> getMunitTestSuiteFileList(File munitTestFolder) throws FileNotFoundException {
-        Collection<File> munitTestSuiteFiles = new ArrayList<File>();
-
-        Collection<File> allFiles = FileUtils.listFiles(munitTestFolder, null, true);
-        for (File file : allFiles) {
-            if (isValidMunitTestSuiteFile(file)) {
-                munitTestSuiteFiles.add(file);
-            }
-        }
-        return munitTestSuiteFiles;
-    }
-
-    private boolean isValidMunitTestSuiteFile(File file) throws FileNotFoundException {
-        String MUNIT_TEST_SUITE_FILE_MARKER = "munit:config";
-        Scanner scanner = new Scanner(file);
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (line.contains(MUNIT_TEST_SUITE_FILE_MARKER)) {
-                scanner.close();
-                return true;
-            }
-        }
-
-        scanner.close();
-        return false;
-    }
-
     private void show(List<SuiteResult> results) throws MojoExecutionException {
 //>>>>>>> 4355666... fix MU-178, XML Files in munit folder fails maven test
         boolean success = true;
@@ -259,38 +213,6 @@ public class MUnitMojo
         return fileName.matches(munittest);
     }
 
-    public URLClassLoader getClassPath(List<URL> classpath) {
-        return new URLClassLoader(classpath.toArray(new URL[classpath.size()]), getClass().getClassLoader());
-    }
-
-    /**
-     * Creates a classloader for loading tests.
-     * <p/>
-     * <p/>
-     * We need to be able to see the same JUnit classes between this code and the mtest code,
-     * but everything else should be isolated.
-     */
-    private List<URL> makeClassPath() throws MalformedURLException {
-
-        List<URL> urls = new ArrayList<URL>(classpathElements.size());
-
-        for (String e : classpathElements) {
-            urls.add(new File(e).toURL());
-        }
-        return urls;
-    }
-
-    private void addUrlsToClassPath(List<URL> urls) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        ClassLoader sysCl = Thread.currentThread().getContextClassLoader();
-        Class refClass = URLClassLoader.class;
-        Method methodAddUrl = refClass.getDeclaredMethod("addURL", new Class[]{URL.class});
-        methodAddUrl.setAccessible(true);
-        for (Iterator it = urls.iterator(); it.hasNext(); ) {
-            URL url = (URL) it.next();
-            methodAddUrl.invoke(sysCl, url);
-        }
-    }
-
     private File getFile(String fullPath) throws IOException {
         File file = new File(fullPath);
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.mule.api.MuleContext;
+import org.mule.munit.common.mp.MunitProxyClassRepository;
+import org.mule.munit.runner.MuleContextManager;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * Generates the MUnit proxy classes of the message processors used by the MUnit suites, so the tests do not need to
+ * generate them every time a suite starts.
+ * <p/>
+ * Each suite configuration is loaded, without starting it, to find the message processors it uses. The proxy classes
+ * are written to the output directory, which is part of the test classpath.
+ *
+ * @goal generate-proxies
+ * @requiresDependencyResolution test
+ * @phase process-test-classes
+ */
+public class MUnitProxiesMojo
+        extends AbstractMUnitMojo {
+
+    /**
+     * Where the proxy classes are written.
+     *
+     * @parameter expression="${munit.proxies.outputDirectory}" default-value="${project.build.testOutputDirectory}"
+     */
+    protected File outputDirectory;
+
+    public void execute()
+            throws MojoExecutionException {
+        if ("true".equals(System.getProperty("skipTests"))) {
+            return;
+        }
+
+        File testFolder = getMunitTestFolder();
+        if (!testFolder.exists()) {
+            return;
+        }
+
+        String previousOutputFolder = System.getProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY);
+        System.setProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY, outputDirectory.getAbsolutePath());
+        try {
+            addUrlsToClassPath(makeClassPath());
+            Collection<File> suites = getMunitTestSuiteFileList(testFolder);
+            for (File file : suites) {
+                String fileName = file.getPath().replace(testFolder.getPath() + File.separator, "");
+                generateProxiesFor(fileName);
+            }
+        } catch (Exception e) {
+            throw new MojoExecutionException("The MUnit proxy classes could not be generated", e);
+        } finally {
+            if (previousOutputFolder == null) {
+                System.clearProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY);
+            } else {
+                System.setProperty(MunitProxyClassRepository.OUTPUT_FOLDER_PROPERTY, previousOutputFolder);
+            }
+        }
+    }
+
+    private void generateProxiesFor(String fileName) {
+        MuleContextManager muleContextManager = new MuleContextManager(null);
+        MuleContext muleContext = null;
+        try {
+            muleContext = muleContextManager.createMule(fileName);
+        } catch (Exception e) {
+            getLog().warn("The proxies of " + fileName + " could not be generated: " + e.getMessage());
+        } finally {
+            muleContextManager.killMule(muleContext);
+        }
+    }
+}